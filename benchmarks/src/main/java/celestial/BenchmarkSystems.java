@@ -0,0 +1,28 @@
+package celestial;
+
+import java.util.Random;
+
+// Systems shared by the benchmarks.
+final class BenchmarkSystems {
+
+    private BenchmarkSystems() {
+    }
+
+    // Builds a system of `count` bodies: one star, mostly circular planets and every fifth body a comet.
+    static SolarSystem build(int count, long seed) {
+        Random random = new Random(seed);
+        SolarSystem system = new SolarSystem(new Star("Sun", 1.989e30, 6.96340e8, 5778.0, "G2V"));
+        system.setQuiet(true);
+        for (int i = 1; i < count; i++) {
+            double period = (0.1 + random.nextDouble() * 100.0) * 365.25 * Main.SECONDS_PER_DAY;
+            if (i % 5 == 0) {
+                system.addBody(new Comet("Comet " + i, 1e12, 2e3, 0.1 + 0.85 * random.nextDouble(),
+                                              period, (0.3 + random.nextDouble()) * Main.AU_TO_METERS));
+            } else {
+                system.addBody(new Planet("Body " + i, 1e18, 1e5, (0.3 + random.nextDouble() * 40.0) * Main.AU_TO_METERS,
+                                               period, 0, false, false));
+            }
+        }
+        return system;
+    }
+}
@@ -0,0 +1,67 @@
+package celestial;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Single-body methods.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BodyBenchmarks {
+    private static final double HOUR = 3600.0;
+
+    private Planet earth;
+    private Comet halley;
+
+    @Setup
+    public void setUp() {
+        earth = new Planet("Earth", 5.972e24, 6.371e6, Main.AU_TO_METERS,
+                                365.25 * Main.SECONDS_PER_DAY, 1, false, true);
+        halley = new Comet("Halley's Comet", 2.2e14, 5.5e3, 0.967,
+                                76.0 * 365.25 * Main.SECONDS_PER_DAY, 0.587 * Main.AU_TO_METERS);
+    }
+
+    @Benchmark
+    public double revolve() {
+        earth.revolve(HOUR);
+        return earth.getCurrentTheta();
+    }
+
+    @Benchmark
+    public double cometRevolve() {
+        halley.revolve(Main.SECONDS_PER_DAY);
+        return halley.getCurrentTheta();
+    }
+
+    @Benchmark
+    public double getDensity() {
+        return earth.getDensity();
+    }
+
+    @Benchmark
+    public double getSurfaceGravity() {
+        return earth.getSurfaceGravity();
+    }
+
+    @Benchmark
+    public String getCoordinates() {
+        return earth.getCoordinates();
+    }
+
+    @Benchmark
+    public String toStringFormatting() {
+        return earth.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package celestial;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Gravity kernels: one invocation is one full acceleration evaluation.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForceSolverBenchmarks {
+    private static final double SOFTENING = 1e6;
+
+    @Param({"100", "1000", "10000"})
+    public int bodies;
+
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private double[] mass;
+    private double[] ax;
+    private double[] ay;
+    private double[] az;
+    private DirectForceSolver direct;
+    private BarnesHutForceSolver tree;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        x = new double[bodies];
+        y = new double[bodies];
+        z = new double[bodies];
+        mass = new double[bodies];
+        ax = new double[bodies];
+        ay = new double[bodies];
+        az = new double[bodies];
+        for (int i = 0; i < bodies; i++) {
+            x[i] = random.nextGaussian() * Main.AU_TO_METERS;
+            y[i] = random.nextGaussian() * Main.AU_TO_METERS;
+            mass[i] = 1e20 * (1 + random.nextDouble());
+        }
+        direct = new DirectForceSolver();
+        tree = new BarnesHutForceSolver(BarnesHutForceSolver.DEFAULT_OPENING_ANGLE);
+    }
+
+    @Benchmark
+    public double direct() {
+        direct.computeAccelerations(x, y, z, mass, bodies, SOFTENING, ax, ay, az);
+        return ax[0];
+    }
+
+    @Benchmark
+    public double barnesHut() {
+        tree.computeAccelerations(x, y, z, mass, bodies, SOFTENING, ax, ay, az);
+        return ax[0];
+    }
+}
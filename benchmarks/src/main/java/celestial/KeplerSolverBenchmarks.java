@@ -0,0 +1,50 @@
+package celestial;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Kepler batch over comet-like elements; one invocation solves every element once.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeplerSolverBenchmarks {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int bodies;
+
+    private double[] meanAnomaly;
+    private double[] eccentricity;
+    private double[] eccentricAnomaly;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        meanAnomaly = new double[bodies];
+        eccentricity = new double[bodies];
+        eccentricAnomaly = new double[bodies];
+        for (int i = 0; i < bodies; i++) {
+            meanAnomaly[i] = 2 * Math.PI * random.nextDouble();
+            eccentricity[i] = 0.99 * random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public double solveBatch() {
+        KeplerSolver.solveBatch(meanAnomaly, eccentricity, eccentricAnomaly, 0, bodies,
+                                     KeplerSolver.DEFAULT_TOLERANCE);
+        return eccentricAnomaly[bodies - 1];
+    }
+}
@@ -0,0 +1,122 @@
+package celestial;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Whole-system propagation; one invocation is one step (or one analytic jump) for every body.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropagationBenchmarks {
+    private static final double HOUR = 3600.0;
+
+    // A system of `bodies` bodies, built once per trial.
+    @State(Scope.Thread)
+    public abstract static class SystemState {
+        @Param({"10", "1000", "100000", "1000000"})
+        public int bodies;
+
+        SolarSystem system;
+
+        @Setup(Level.Trial)
+        public void build() {
+            system = BenchmarkSystems.build(bodies, 42);
+            configure(system);
+        }
+
+        abstract void configure(SolarSystem system);
+    }
+
+    public static class Stepped extends SystemState {
+        @Override
+        void configure(SolarSystem system) {
+        }
+    }
+
+    public static class Analytic extends SystemState {
+        @Override
+        void configure(SolarSystem system) {
+            system.setPropagationMode(PropagationMode.ANALYTIC);
+        }
+    }
+
+    public static class Parallel extends SystemState {
+        @Override
+        void configure(SolarSystem system) {
+            system.setForkJoinPool(ForkJoinPool.commonPool());
+        }
+    }
+
+    public static class Blocks extends SystemState {
+        @Override
+        void configure(SolarSystem system) {
+            system.setBlockTimestepScheduler(new BlockTimestepScheduler());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OffHeap {
+        @Param({"10", "1000", "100000", "1000000"})
+        public int bodies;
+
+        SolarSystem system;
+
+        @Setup(Level.Trial)
+        public void build() {
+            system = BenchmarkSystems.build(bodies, 42).copyToOffHeap();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            system.getStore().close();
+        }
+    }
+
+    @Benchmark
+    public double stepped(Stepped state) {
+        state.system.runSimulation(HOUR, HOUR);
+        return state.system.getStore().getTime();
+    }
+
+    @Benchmark
+    public double analytic(Analytic state) {
+        state.system.runSimulation(HOUR, HOUR);
+        return state.system.getStore().getTime();
+    }
+
+    @Benchmark
+    public double parallel(Parallel state) {
+        state.system.runSimulation(HOUR, HOUR);
+        return state.system.getStore().getTime();
+    }
+
+    // One 30-day block step; most bodies take one step, close-in ones several.
+    @Benchmark
+    public double blockTimesteps(Blocks state) {
+        state.system.runSimulation(30 * Main.SECONDS_PER_DAY, 30 * Main.SECONDS_PER_DAY);
+        return state.system.getStore().getTime();
+    }
+
+    // The columns are direct buffers, so the fork needs direct memory beyond its default of the heap size.
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=4g")
+    public double offHeapStepped(OffHeap state) {
+        state.system.runSimulation(HOUR, HOUR);
+        return state.system.getStore().getTime();
+    }
+}
@@ -0,0 +1,71 @@
+package celestial;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Formatting the whole system's state; one invocation writes every body once.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateWriterBenchmarks {
+    @Param({"10", "1000", "100000"})
+    public int bodies;
+
+    private SolarSystem system;
+    private StringBuilder text;
+    private ByteBuffer buffer;
+    private WritableByteChannel discard;
+
+    @Setup
+    public void setUp() {
+        system = BenchmarkSystems.build(bodies, 42);
+        text = new StringBuilder();
+        buffer = ByteBuffer.allocateDirect(1 << 16);
+        discard = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int n = src.remaining();
+                src.position(src.limit());
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Benchmark
+    public int stringBuilder() {
+        text.setLength(0);
+        system.writeState(text);
+        return text.length();
+    }
+
+    @Benchmark
+    public int byteBuffer() throws IOException {
+        system.writeState(discard, buffer);
+        return buffer.position();
+    }
+}
@@ -0,0 +1,385 @@
+package celestial;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static celestial.Main.G;
+
+// Barnes-Hut tree code: O(N log N) forces from a quadtree, opening a node only when size / distance >= theta.
+// The simulation's state lies in the orbital plane, so the tree splits space by x and y only; z still enters
+// every distance through the node centres of mass. Nodes live in flat arrays that are kept between calls and
+// refilled each step, never reallocated per node.
+class BarnesHutForceSolver implements ForceSolver {
+    public static final double DEFAULT_OPENING_ANGLE = 0.5;
+    public static final int DEFAULT_SEQUENTIAL_CUTOFF = 1024;
+    private static final int MAX_DEPTH = 64;
+    private static final int EMPTY = -1;
+    private static final int AGGREGATE = -2;
+
+    private double openingAngle;
+    private ForkJoinPool forkJoinPool;
+    private int sequentialCutoff;
+
+    // Node pool. Children of a node are 4 consecutive nodes starting at firstChild[node].
+    private int nodeCount;
+    private int[] firstChild;
+    private int[] nodeBody;
+    private double[] nodeMass;
+    private double[] comX;
+    private double[] comY;
+    private double[] comZ;
+    private double[] centerX;
+    private double[] centerY;
+    private double[] halfSize;
+    // Leaf each body was inserted into, so a body can leave itself out of a shared (AGGREGATE) leaf.
+    private int[] bodyLeaf;
+
+    // Constructor for BarnesHutForceSolver.
+    public BarnesHutForceSolver(double openingAngle) {
+        this.openingAngle = openingAngle;
+        this.forkJoinPool = ForkJoinPool.commonPool();
+        this.sequentialCutoff = DEFAULT_SEQUENTIAL_CUTOFF;
+        this.nodeCount = 0;
+        this.bodyLeaf = new int[0];
+        allocateNodes(1024);
+    }
+
+    public double getOpeningAngle() {
+        return openingAngle;
+    }
+
+    // Smaller angles open more nodes: 0 degenerates to direct summation, around 0.5 is typical.
+    public void setOpeningAngle(double openingAngle) {
+        this.openingAngle = openingAngle;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    // Pool for the force walk; null walks every body on the calling thread.
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public void setSequentialCutoff(int sequentialCutoff) {
+        this.sequentialCutoff = sequentialCutoff;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public void computeAccelerations(double[] x, double[] y, double[] z, double[] mass, int n, double softening,
+                                     double[] ax, double[] ay, double[] az) {
+        if (n == 0) {
+            return;
+        }
+        buildTree(x, y, z, mass, n);
+        final double eps2 = softening * softening;
+        RangeTask.RangeBody walk = (from, to) -> {
+            int[] stack = new int[4 * MAX_DEPTH + 4];
+            for (int i = from; i < to; i++) {
+                accelerationOf(i, x[i], y[i], z[i], mass[i], eps2, stack, ax, ay, az);
+            }
+        };
+        if (forkJoinPool == null || n <= sequentialCutoff) {
+            walk.apply(0, n);
+        } else {
+            forkJoinPool.invoke(new RangeTask(walk, 0, n, sequentialCutoff));
+        }
+    }
+
+    // Builds the tree from every body but walks it only for the targets.
+    @Override
+    public void computeAccelerations(double[] x, double[] y, double[] z, double[] mass, int n, double softening,
+                                     int[] targets, int targetCount, double[] ax, double[] ay, double[] az) {
+        if (n == 0 || targetCount == 0) {
+            return;
+        }
+        buildTree(x, y, z, mass, n);
+        final double eps2 = softening * softening;
+        RangeTask.RangeBody walk = (from, to) -> {
+            int[] stack = new int[4 * MAX_DEPTH + 4];
+            for (int k = from; k < to; k++) {
+                int i = targets[k];
+                accelerationOf(i, x[i], y[i], z[i], mass[i], eps2, stack, ax, ay, az);
+            }
+        };
+        if (forkJoinPool == null || targetCount <= sequentialCutoff) {
+            walk.apply(0, targetCount);
+        } else {
+            forkJoinPool.invoke(new RangeTask(walk, 0, targetCount, sequentialCutoff));
+        }
+    }
+
+    // Compares tree accelerations with exact direct summation for up to sampleCount evenly spaced bodies.
+    public AccuracyReport compareWithDirectSummation(double[] x, double[] y, double[] z, double[] mass, int n,
+                                                     double softening, int sampleCount) {
+        double[] ax = new double[n];
+        double[] ay = new double[n];
+        double[] az = new double[n];
+        computeAccelerations(x, y, z, mass, n, softening, ax, ay, az);
+        double eps2 = softening * softening;
+        int stride = Math.max(1, n / Math.max(sampleCount, 1));
+        int samples = 0;
+        double sumError = 0.0;
+        double maxError = 0.0;
+        for (int i = 0; i < n; i += stride) {
+            double ex = 0.0;
+            double ey = 0.0;
+            double ez = 0.0;
+            for (int j = 0; j < n; j++) {
+                double dx = x[j] - x[i];
+                double dy = y[j] - y[i];
+                double dz = z[j] - z[i];
+                double r2 = dx * dx + dy * dy + dz * dz + eps2;
+                if (j == i || r2 == 0.0) {
+                    continue;
+                }
+                double s = G * mass[j] / (r2 * Math.sqrt(r2));
+                ex += dx * s;
+                ey += dy * s;
+                ez += dz * s;
+            }
+            double exact = Math.sqrt(ex * ex + ey * ey + ez * ez);
+            if (exact > 0) {
+                double dx = ax[i] - ex;
+                double dy = ay[i] - ey;
+                double dz = az[i] - ez;
+                double error = Math.sqrt(dx * dx + dy * dy + dz * dz) / exact;
+                sumError += error;
+                maxError = Math.max(maxError, error);
+                samples++;
+            }
+        }
+        return new AccuracyReport(samples, samples > 0 ? sumError / samples : 0.0, maxError, openingAngle);
+    }
+
+    // Relative acceleration error of the tree against direct summation.
+    static class AccuracyReport {
+        private final int sampleCount;
+        private final double meanRelativeError;
+        private final double maxRelativeError;
+        private final double openingAngle;
+
+        public AccuracyReport(int sampleCount, double meanRelativeError, double maxRelativeError, double openingAngle) {
+            this.sampleCount = sampleCount;
+            this.meanRelativeError = meanRelativeError;
+            this.maxRelativeError = maxRelativeError;
+            this.openingAngle = openingAngle;
+        }
+
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        public double getMeanRelativeError() {
+            return meanRelativeError;
+        }
+
+        public double getMaxRelativeError() {
+            return maxRelativeError;
+        }
+
+        @Override
+        public String toString() {
+            return "Barnes-Hut (theta " + openingAngle + ") vs direct over " + sampleCount + " bodies: mean error "
+                    + String.format("%.3E", meanRelativeError) + ", max error " + String.format("%.3E", maxRelativeError);
+        }
+    }
+
+    private void buildTree(double[] x, double[] y, double[] z, double[] mass, int n) {
+        double minX = x[0], maxX = x[0];
+        double minY = y[0], maxY = y[0];
+        for (int i = 1; i < n; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        double half = 0.5 * Math.max(maxX - minX, maxY - minY);
+        half = half > 0 ? half * 1.0001 : 1.0;
+        if (bodyLeaf.length < n) {
+            bodyLeaf = new int[Math.max(n, 2 * bodyLeaf.length)];
+        }
+        nodeCount = 0;
+        int root = newNode(0.5 * (minX + maxX), 0.5 * (minY + maxY), half);
+        for (int i = 0; i < n; i++) {
+            insert(root, i, x, y, z, mass);
+        }
+        // Children are always allocated after their parent, so a reverse sweep sees children first.
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int child = firstChild[node];
+            if (child >= 0) {
+                double m = 0.0, mx = 0.0, my = 0.0, mz = 0.0;
+                for (int c = child; c < child + 4; c++) {
+                    double cm = nodeMass[c];
+                    m += cm;
+                    mx += cm * comX[c];
+                    my += cm * comY[c];
+                    mz += cm * comZ[c];
+                }
+                setCenterOfMass(node, m, mx, my, mz);
+            } else if (nodeBody[node] >= 0) {
+                int b = nodeBody[node];
+                nodeMass[node] = mass[b];
+                comX[node] = x[b];
+                comY[node] = y[b];
+                comZ[node] = z[b];
+            } else if (nodeBody[node] == AGGREGATE) {
+                // Aggregates accumulated mass-weighted positions in com* during insertion.
+                setCenterOfMass(node, nodeMass[node], comX[node], comY[node], comZ[node]);
+            }
+        }
+    }
+
+    private void setCenterOfMass(int node, double m, double mx, double my, double mz) {
+        nodeMass[node] = m;
+        if (m > 0) {
+            comX[node] = mx / m;
+            comY[node] = my / m;
+            comZ[node] = mz / m;
+        } else {
+            comX[node] = centerX[node];
+            comY[node] = centerY[node];
+            comZ[node] = 0.0;
+        }
+    }
+
+    private void insert(int root, int body, double[] x, double[] y, double[] z, double[] mass) {
+        int node = root;
+        for (int depth = 0; ; depth++) {
+            if (firstChild[node] >= 0) {
+                node = firstChild[node] + quadrant(node, x[body], y[body]);
+                continue;
+            }
+            int resident = nodeBody[node];
+            if (resident == EMPTY) {
+                nodeBody[node] = body;
+                bodyLeaf[body] = node;
+                return;
+            }
+            if (depth >= MAX_DEPTH || resident == AGGREGATE) {
+                // Coincident bodies: stop subdividing and keep a single mass-weighted leaf.
+                if (resident != AGGREGATE) {
+                    nodeBody[node] = AGGREGATE;
+                    nodeMass[node] = mass[resident];
+                    comX[node] = mass[resident] * x[resident];
+                    comY[node] = mass[resident] * y[resident];
+                    comZ[node] = mass[resident] * z[resident];
+                }
+                nodeMass[node] += mass[body];
+                comX[node] += mass[body] * x[body];
+                comY[node] += mass[body] * y[body];
+                comZ[node] += mass[body] * z[body];
+                bodyLeaf[body] = node;
+                return;
+            }
+            subdivide(node);
+            nodeBody[node] = EMPTY;
+            int target = firstChild[node] + quadrant(node, x[resident], y[resident]);
+            nodeBody[target] = resident;
+            bodyLeaf[resident] = target;
+        }
+    }
+
+    private void subdivide(int node) {
+        double quarter = 0.5 * halfSize[node];
+        int first = nodeCount;
+        for (int c = 0; c < 4; c++) {
+            newNode(centerX[node] + ((c & 1) != 0 ? quarter : -quarter),
+                    centerY[node] + ((c & 2) != 0 ? quarter : -quarter),
+                    quarter);
+        }
+        firstChild[node] = first;
+    }
+
+    private int quadrant(int node, double px, double py) {
+        return (px >= centerX[node] ? 1 : 0) | (py >= centerY[node] ? 2 : 0);
+    }
+
+    private int newNode(double cx, double cy, double half) {
+        if (nodeCount == firstChild.length) {
+            allocateNodes(firstChild.length * 2);
+        }
+        int node = nodeCount++;
+        firstChild[node] = -1;
+        nodeBody[node] = EMPTY;
+        nodeMass[node] = 0.0;
+        comX[node] = 0.0;
+        comY[node] = 0.0;
+        comZ[node] = 0.0;
+        centerX[node] = cx;
+        centerY[node] = cy;
+        halfSize[node] = half;
+        return node;
+    }
+
+    private void allocateNodes(int capacity) {
+        firstChild = firstChild == null ? new int[capacity] : Arrays.copyOf(firstChild, capacity);
+        nodeBody = nodeBody == null ? new int[capacity] : Arrays.copyOf(nodeBody, capacity);
+        nodeMass = nodeMass == null ? new double[capacity] : Arrays.copyOf(nodeMass, capacity);
+        comX = comX == null ? new double[capacity] : Arrays.copyOf(comX, capacity);
+        comY = comY == null ? new double[capacity] : Arrays.copyOf(comY, capacity);
+        comZ = comZ == null ? new double[capacity] : Arrays.copyOf(comZ, capacity);
+        centerX = centerX == null ? new double[capacity] : Arrays.copyOf(centerX, capacity);
+        centerY = centerY == null ? new double[capacity] : Arrays.copyOf(centerY, capacity);
+        halfSize = halfSize == null ? new double[capacity] : Arrays.copyOf(halfSize, capacity);
+    }
+
+    // Walks the tree for one body. Reads only the finished tree, so bodies can be walked concurrently.
+    // A node holding the body itself is always opened, whatever the angle, and in a shared leaf the body's
+    // own mass is taken out first, so no body ever pulls on itself.
+    private void accelerationOf(int body, double px, double py, double pz, double bodyMass, double eps2, int[] stack,
+                                double[] ax, double[] ay, double[] az) {
+        double sumX = 0.0, sumY = 0.0, sumZ = 0.0;
+        double theta2 = openingAngle * openingAngle;
+        int leaf = bodyLeaf[body];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            double m = nodeMass[node];
+            if (m == 0.0 || nodeBody[node] == body) {
+                continue;
+            }
+            double dx = comX[node] - px;
+            double dy = comY[node] - py;
+            double dz = comZ[node] - pz;
+            if (node == leaf) {
+                // An AGGREGATE leaf that includes this body: the pull of the others is their own centre of mass.
+                double others = m - bodyMass;
+                if (others <= 0.0) {
+                    continue;
+                }
+                dx = (m * comX[node] - bodyMass * px) / others - px;
+                dy = (m * comY[node] - bodyMass * py) / others - py;
+                dz = (m * comZ[node] - bodyMass * pz) / others - pz;
+                m = others;
+            }
+            double d2 = dx * dx + dy * dy + dz * dz;
+            int child = firstChild[node];
+            double half = halfSize[node];
+            double size = 2.0 * half;
+            if (child >= 0 && (size * size >= theta2 * d2
+                    || Math.abs(px - centerX[node]) <= half && Math.abs(py - centerY[node]) <= half)) {
+                for (int c = child; c < child + 4; c++) {
+                    stack[top++] = c;
+                }
+                continue;
+            }
+            double r2 = d2 + eps2;
+            if (r2 > 0.0) {
+                double s = m / (r2 * Math.sqrt(r2));
+                sumX += dx * s;
+                sumY += dy * s;
+                sumZ += dz * s;
+            }
+        }
+        ax[body] = G * sumX;
+        ay[body] = G * sumY;
+        az[body] = G * sumZ;
+    }
+}
@@ -0,0 +1,167 @@
+package celestial;
+
+import java.util.Arrays;
+
+// Assigns every body a power-of-two block timestep, maxTimeStep / 2^level, and tracks which bodies are due.
+// Bodies are kept sorted finest level first, so the bodies due at any tick are a prefix of getOrder().
+class BlockTimestepScheduler {
+    public static final int DEFAULT_STEPS_PER_ORBIT = 64;
+    public static final double DEFAULT_ACCURACY = 0.02;
+    public static final int DEFAULT_MAX_LEVEL = 20;
+
+    private int stepsPerOrbit;
+    private double accuracy;
+    private int maxLevel;
+    private double maxTimeStep;
+    private int[] level;
+    private int[] order;
+    private int[] levelStart;
+    private int[] levelEnd;
+    private int count;
+    private int finestLevel;
+    private long bodyUpdates;
+
+    // Constructor for BlockTimestepScheduler.
+    public BlockTimestepScheduler() {
+        this.stepsPerOrbit = DEFAULT_STEPS_PER_ORBIT;
+        this.accuracy = DEFAULT_ACCURACY;
+        this.maxLevel = DEFAULT_MAX_LEVEL;
+        this.level = new int[0];
+        this.order = new int[0];
+        this.levelStart = new int[DEFAULT_MAX_LEVEL + 1];
+        this.levelEnd = new int[DEFAULT_MAX_LEVEL + 1];
+    }
+
+    public int getStepsPerOrbit() {
+        return stepsPerOrbit;
+    }
+
+    // Orbit-based criterion: a body takes at least this many steps per orbital period.
+    public void setStepsPerOrbit(int stepsPerOrbit) {
+        this.stepsPerOrbit = stepsPerOrbit;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    // Acceleration-based criterion (N-body): dt = accuracy * sqrt(lengthScale / |a|).
+    public void setAccuracy(double accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    // Finest level allowed, i.e. the smallest step is maxTimeStep / 2^maxLevel.
+    public void setMaxLevel(int maxLevel) {
+        this.maxLevel = Math.max(0, Math.min(maxLevel, 30));
+        this.levelStart = new int[this.maxLevel + 1];
+        this.levelEnd = new int[this.maxLevel + 1];
+    }
+
+    // Assigns levels from each row's orbital period: smallest level with dt <= period / stepsPerOrbit.
+    public void assignByPeriod(BodyStore store, int from, int to, double maxTimeStep) {
+        prepare(to, maxTimeStep);
+        for (int i = from; i < to; i++) {
+            double period = store.getOrbitalPeriod(i);
+            level[i] = period > 0 ? levelFor(period / stepsPerOrbit) : 0;
+        }
+        sortByLevel(from, to);
+    }
+
+    // Assigns levels from each body's acceleration: smallest level with dt <= accuracy * sqrt(length / |a|).
+    // A parent is then raised to its finest satellite's level; otherwise the satellite would feel a
+    // parent that only drifts in a straight line between its own, much longer, steps.
+    public void assignByAcceleration(double[] lengthScale, double[] ax, double[] ay, double[] az, int[] parent,
+                                     int n, double maxTimeStep) {
+        prepare(n, maxTimeStep);
+        for (int i = 0; i < n; i++) {
+            double a = Math.sqrt(ax[i] * ax[i] + ay[i] * ay[i] + az[i] * az[i]);
+            level[i] = a > 0 && lengthScale[i] > 0 ? levelFor(accuracy * Math.sqrt(lengthScale[i] / a)) : 0;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int p = parent[i]; p >= 0 && level[p] < level[i]; p = parent[p]) {
+                level[p] = level[i];
+            }
+        }
+        sortByLevel(0, n);
+    }
+
+    private void prepare(int size, double maxTimeStep) {
+        this.maxTimeStep = maxTimeStep;
+        if (level.length < size) {
+            level = new int[size];
+            order = new int[size];
+        }
+    }
+
+    private int levelFor(double wantedTimeStep) {
+        if (wantedTimeStep >= maxTimeStep) {
+            return 0;
+        }
+        int k = (int) Math.ceil(Math.log(maxTimeStep / wantedTimeStep) / Math.log(2));
+        return Math.min(k, maxLevel);
+    }
+
+    // Counting sort by level, finest first.
+    private void sortByLevel(int from, int to) {
+        Arrays.fill(levelStart, 0);
+        finestLevel = 0;
+        for (int i = from; i < to; i++) {
+            levelStart[level[i]]++;
+            finestLevel = Math.max(finestLevel, level[i]);
+        }
+        int offset = 0;
+        for (int k = maxLevel; k >= 0; k--) {
+            int c = levelStart[k];
+            levelStart[k] = offset;
+            levelEnd[k] = offset;
+            offset += c;
+        }
+        for (int i = from; i < to; i++) {
+            order[levelEnd[level[i]]++] = i;
+        }
+        count = to - from;
+    }
+
+    public int[] getOrder() {
+        return order;
+    }
+
+    public int getFinestLevel() {
+        return finestLevel;
+    }
+
+    public int getLevel(int id) {
+        return level[id];
+    }
+
+    // Range of getOrder() holding the bodies on the given level.
+    public int getLevelStart(int k) {
+        return levelStart[k];
+    }
+
+    public int getLevelEnd(int k) {
+        return levelEnd[k];
+    }
+
+    // Number of bodies on level k or finer; they occupy getOrder()[0, result).
+    public int countAtOrFinerThan(int k) {
+        return k <= 0 ? count : levelEnd[k];
+    }
+
+    public double getTimeStep(int k) {
+        return maxTimeStep / (1L << k);
+    }
+
+    void countUpdates(long updates) {
+        bodyUpdates += updates;
+    }
+
+    // Total individual body advances so far; compare with bodies * steps for a fixed global step.
+    public long getBodyUpdates() {
+        return bodyUpdates;
+    }
+}
@@ -0,0 +1,1001 @@
+package celestial;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static celestial.Main.G;
+
+// Columnar store: keeps per-body state in columns indexed by body id. The columns come from a ColumnStorage,
+// as heap arrays or as off-heap direct buffers, and every kernel below runs over either. Row lists (the orbit
+// order and the Kepler list) and the Kepler scratch stay on the heap.
+class BodyStore implements AutoCloseable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ColumnStorage storage;
+    private DoubleColumn mass;
+    private DoubleColumn radius;
+    private DoubleColumn orbitalRadius;
+    private DoubleColumn currentTheta;
+    private DoubleColumn orbitalPeriod;
+    private DoubleColumn epochTheta;
+    private DoubleColumn epochTime;
+    private DoubleColumn eccentricity;
+    private DoubleColumn perihelionDistance;
+    private DoubleColumn meanAnomaly;
+    private DoubleColumn epochMeanAnomaly;
+    private IntColumn parent;
+    private DoubleColumn x;
+    private DoubleColumn y;
+    // 2*PI / orbitalPeriod, computed when the period is set so the step kernels never divide.
+    private DoubleColumn angularVelocity;
+    // Mass a circular orbit is derived from when the row has no period of its own (0 = use the period).
+    private DoubleColumn centralMass;
+    // Number of rows whose parent is this row, so removal only scans for children when there are some.
+    private IntColumn childCount;
+    private int size;
+    private double time;
+    private boolean closed;
+
+    // Rows on eccentric orbits, plus scratch columns for the batched Kepler solve.
+    // keplerSlot[id] is the row's position in keplerIds, or -1, so it can leave the list in O(1).
+    private int[] keplerIds;
+    private IntColumn keplerSlot;
+    private int keplerCount;
+    private double[] keplerMeanAnomaly;
+    private double[] keplerEccentricity;
+    private double[] keplerEccentricAnomaly;
+
+    // Orbit tree: parents always precede their children in orbitOrder.
+    private int[] orbitOrder;
+    private boolean orbitOrderValid;
+    private volatile boolean positionsValid;
+
+    // Bumped by every external edit to a row, so cached copies of the state know to reload.
+    private long stateVersion;
+    // Bumped when rows are added or change which propagator applies to them (period, shape, parent, central mass).
+    private long layoutVersion;
+    // Bumped when rows get new epochs or positions from outside the orbit kernels (applyCartesianPositions,
+    // rebaseEpochs) without bumping stateVersion, so that N-body reloads stay cheap.
+    private long epochVersion;
+    // Set when the element columns are shared with a fork; the first write to any of them copies them.
+    private boolean elementsShared;
+
+    // Constructor for BodyStore.
+    public BodyStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public BodyStore(int capacity) {
+        this(ColumnStorage.HEAP, capacity);
+    }
+
+    public BodyStore(ColumnStorage storage) {
+        this(storage, INITIAL_CAPACITY);
+    }
+
+    public BodyStore(ColumnStorage storage, int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.storage = storage;
+        this.mass = storage.doubles(capacity);
+        this.radius = storage.doubles(capacity);
+        this.orbitalRadius = storage.doubles(capacity);
+        this.currentTheta = storage.doubles(capacity);
+        this.orbitalPeriod = storage.doubles(capacity);
+        this.epochTheta = storage.doubles(capacity);
+        this.epochTime = storage.doubles(capacity);
+        this.eccentricity = storage.doubles(capacity);
+        this.perihelionDistance = storage.doubles(capacity);
+        this.meanAnomaly = storage.doubles(capacity);
+        this.epochMeanAnomaly = storage.doubles(capacity);
+        this.parent = storage.ints(capacity);
+        this.x = storage.doubles(capacity);
+        this.y = storage.doubles(capacity);
+        this.angularVelocity = storage.doubles(capacity);
+        this.centralMass = storage.doubles(capacity);
+        this.childCount = storage.ints(capacity);
+        this.size = 0;
+        this.time = 0.0;
+        this.closed = false;
+        this.keplerIds = new int[INITIAL_CAPACITY];
+        this.keplerSlot = storage.ints(capacity);
+        this.keplerCount = 0;
+        this.keplerMeanAnomaly = new double[capacity];
+        this.keplerEccentricity = new double[capacity];
+        this.keplerEccentricAnomaly = new double[capacity];
+        this.orbitOrder = new int[0];
+        this.orbitOrderValid = false;
+        this.positionsValid = false;
+    }
+
+    // Copy-on-write constructor used by fork.
+    private BodyStore(BodyStore source) {
+        int capacity = source.mass.capacity();
+        this.storage = source.storage;
+        this.mass = source.mass;
+        this.radius = source.radius;
+        this.orbitalPeriod = source.orbitalPeriod;
+        this.angularVelocity = source.angularVelocity;
+        this.eccentricity = source.eccentricity;
+        this.perihelionDistance = source.perihelionDistance;
+        this.parent = source.parent;
+        this.centralMass = source.centralMass;
+        this.childCount = source.childCount;
+        this.keplerIds = source.keplerIds;
+        this.keplerSlot = source.keplerSlot;
+        this.keplerCount = source.keplerCount;
+        this.orbitOrder = source.orbitOrder;
+        this.orbitOrderValid = source.orbitOrderValid;
+        this.elementsShared = true;
+        this.orbitalRadius = source.orbitalRadius.copy();
+        this.currentTheta = source.currentTheta.copy();
+        this.epochTheta = source.epochTheta.copy();
+        this.epochTime = source.epochTime.copy();
+        this.meanAnomaly = source.meanAnomaly.copy();
+        this.epochMeanAnomaly = source.epochMeanAnomaly.copy();
+        this.x = source.x.copy();
+        this.y = source.y.copy();
+        this.positionsValid = source.positionsValid;
+        this.keplerMeanAnomaly = new double[capacity];
+        this.keplerEccentricity = new double[capacity];
+        this.keplerEccentricAnomaly = new double[capacity];
+        this.size = source.size;
+        this.time = source.time;
+        this.closed = false;
+        this.stateVersion = source.stateVersion;
+        this.layoutVersion = source.layoutVersion;
+        this.epochVersion = source.epochVersion;
+    }
+
+    // Copying constructor used by copyTo: every column is copied into the given storage, nothing is shared.
+    private BodyStore(BodyStore source, ColumnStorage storage) {
+        this(storage, source.size);
+        int rows = source.size;
+        source.mass.copyTo(0, mass, 0, rows);
+        source.radius.copyTo(0, radius, 0, rows);
+        source.orbitalRadius.copyTo(0, orbitalRadius, 0, rows);
+        source.currentTheta.copyTo(0, currentTheta, 0, rows);
+        source.orbitalPeriod.copyTo(0, orbitalPeriod, 0, rows);
+        source.epochTheta.copyTo(0, epochTheta, 0, rows);
+        source.epochTime.copyTo(0, epochTime, 0, rows);
+        source.eccentricity.copyTo(0, eccentricity, 0, rows);
+        source.perihelionDistance.copyTo(0, perihelionDistance, 0, rows);
+        source.meanAnomaly.copyTo(0, meanAnomaly, 0, rows);
+        source.epochMeanAnomaly.copyTo(0, epochMeanAnomaly, 0, rows);
+        source.parent.copyTo(0, parent, 0, rows);
+        source.x.copyTo(0, x, 0, rows);
+        source.y.copyTo(0, y, 0, rows);
+        source.angularVelocity.copyTo(0, angularVelocity, 0, rows);
+        source.centralMass.copyTo(0, centralMass, 0, rows);
+        source.childCount.copyTo(0, childCount, 0, rows);
+        source.keplerSlot.copyTo(0, keplerSlot, 0, rows);
+        this.keplerIds = source.keplerIds.clone();
+        this.keplerCount = source.keplerCount;
+        this.orbitOrder = source.orbitOrder.clone();
+        this.orbitOrderValid = source.orbitOrderValid;
+        this.positionsValid = source.positionsValid;
+        this.size = rows;
+        this.time = source.time;
+        this.stateVersion = source.stateVersion;
+        this.layoutVersion = source.layoutVersion;
+        this.epochVersion = source.epochVersion;
+    }
+
+    // Returns an independent store with the same rows. The element columns (mass, radius, period, angular
+    // velocity, orbit shape, parent, central mass and their bookkeeping) stay shared until either store writes one of them;
+    // the moving state is copied, since every run writes it. This store must not change while forking.
+    public synchronized BodyStore fork() {
+        ensureOpen();
+        elementsShared = true;
+        return new BodyStore(this);
+    }
+
+    // Returns an independent copy of every row, clock and version in the given storage. Nothing is shared, so the
+    // copy propagates bit for bit like this store would. This store must not change while copying.
+    public synchronized BodyStore copyTo(ColumnStorage storage) {
+        ensureOpen();
+        return new BodyStore(this, storage);
+    }
+
+    public ColumnStorage getStorage() {
+        return storage;
+    }
+
+    // Rows the columns can hold before they grow.
+    public int getCapacity() {
+        ensureOpen();
+        return mass.capacity();
+    }
+
+    // Marks the store closed and drops its references to the columns, so any later access throws
+    // IllegalStateException. It frees nothing itself: this is use-after-close checking only, and off-heap memory
+    // goes back only when the GC collects the buffers. Forks keep the columns they share with this store.
+    @Override
+    public synchronized void close() {
+        closed = true;
+        mass = radius = orbitalRadius = currentTheta = orbitalPeriod = epochTheta = epochTime = null;
+        eccentricity = perihelionDistance = meanAnomaly = epochMeanAnomaly = x = y = null;
+        angularVelocity = centralMass = null;
+        parent = childCount = keplerSlot = null;
+        keplerIds = orbitOrder = null;
+        keplerMeanAnomaly = keplerEccentricity = keplerEccentricAnomaly = null;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Body store is closed");
+        }
+    }
+
+    // Every single-row accessor goes through here, so a stale id fails instead of reading a dead or unused row.
+    private void checkRow(int id) {
+        ensureOpen();
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No row " + id + " in a store of " + size);
+        }
+    }
+
+    // Takes private copies of the element columns before the first write after a fork.
+    private void ownElements() {
+        if (!elementsShared) {
+            return;
+        }
+        mass = mass.copy();
+        radius = radius.copy();
+        orbitalPeriod = orbitalPeriod.copy();
+        angularVelocity = angularVelocity.copy();
+        eccentricity = eccentricity.copy();
+        perihelionDistance = perihelionDistance.copy();
+        parent = parent.copy();
+        centralMass = centralMass.copy();
+        childCount = childCount.copy();
+        keplerIds = keplerIds.clone();
+        keplerSlot = keplerSlot.copy();
+        elementsShared = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Simulation clock, in seconds since the store was created.
+    public double getTime() {
+        return time;
+    }
+
+    public void setTime(double time) {
+        this.time = time;
+    }
+
+    // Appends a row and returns its body id.
+    public int add(double mass, double radius, double orbitalRadius, double currentTheta, double orbitalPeriod) {
+        ensureOpen();
+        ensureCapacity(size + 1);
+        ownElements();
+        int id = size++;
+        this.mass.set(id, mass);
+        this.radius.set(id, radius);
+        this.orbitalRadius.set(id, orbitalRadius);
+        this.currentTheta.set(id, currentTheta);
+        this.orbitalPeriod.set(id, orbitalPeriod);
+        this.angularVelocity.set(id, orbitalPeriod > 0 ? (2 * Math.PI) / orbitalPeriod : 0.0);
+        this.centralMass.set(id, 0.0);
+        this.epochTheta.set(id, currentTheta);
+        this.epochTime.set(id, time);
+        this.eccentricity.set(id, 0.0);
+        this.perihelionDistance.set(id, 0.0);
+        this.meanAnomaly.set(id, currentTheta);
+        this.epochMeanAnomaly.set(id, currentTheta);
+        this.parent.set(id, -1);
+        this.childCount.set(id, 0);
+        this.keplerSlot.set(id, -1);
+        orbitOrderValid = false;
+        positionsValid = false;
+        stateVersion++;
+        layoutVersion++;
+        return id;
+    }
+
+    // Grows every column together so rows stay aligned.
+    public void ensureCapacity(int capacity) {
+        ensureOpen();
+        if (capacity <= mass.capacity()) {
+            return;
+        }
+        int newCapacity = (int) Math.min(Math.max(capacity, mass.capacity() * 2L), storage.maxCapacity());
+        newCapacity = storage.checkCapacity(Math.max(newCapacity, capacity));
+        mass = mass.resize(newCapacity);
+        radius = radius.resize(newCapacity);
+        orbitalRadius = orbitalRadius.resize(newCapacity);
+        currentTheta = currentTheta.resize(newCapacity);
+        orbitalPeriod = orbitalPeriod.resize(newCapacity);
+        epochTheta = epochTheta.resize(newCapacity);
+        epochTime = epochTime.resize(newCapacity);
+        eccentricity = eccentricity.resize(newCapacity);
+        perihelionDistance = perihelionDistance.resize(newCapacity);
+        meanAnomaly = meanAnomaly.resize(newCapacity);
+        epochMeanAnomaly = epochMeanAnomaly.resize(newCapacity);
+        parent = parent.resize(newCapacity);
+        x = x.resize(newCapacity);
+        y = y.resize(newCapacity);
+        angularVelocity = angularVelocity.resize(newCapacity);
+        centralMass = centralMass.resize(newCapacity);
+        childCount = childCount.resize(newCapacity);
+        keplerSlot = keplerSlot.resize(newCapacity);
+        // Kepler scratch is indexed by position in a row list, which never exceeds the row count.
+        keplerMeanAnomaly = Arrays.copyOf(keplerMeanAnomaly, newCapacity);
+        keplerEccentricity = Arrays.copyOf(keplerEccentricity, newCapacity);
+        keplerEccentricAnomaly = Arrays.copyOf(keplerEccentricAnomaly, newCapacity);
+        keplerIds = keplerIds.clone();
+        elementsShared = false;
+    }
+
+    public double getMass(int id) {
+        checkRow(id);
+        return mass.get(id);
+    }
+
+    public void setMass(int id, double mass) {
+        checkRow(id);
+        ownElements();
+        this.mass.set(id, mass);
+        stateVersion++;
+    }
+
+    public double getRadius(int id) {
+        checkRow(id);
+        return radius.get(id);
+    }
+
+    public void setRadius(int id, double radius) {
+        checkRow(id);
+        ownElements();
+        this.radius.set(id, radius);
+    }
+
+    public double getOrbitalRadius(int id) {
+        checkRow(id);
+        return orbitalRadius.get(id);
+    }
+
+    public void setOrbitalRadius(int id, double orbitalRadius) {
+        checkRow(id);
+        this.orbitalRadius.set(id, orbitalRadius);
+        positionsValid = false;
+        stateVersion++;
+    }
+
+    public double getCurrentTheta(int id) {
+        checkRow(id);
+        return currentTheta.get(id);
+    }
+
+    // Ensures theta stays within 0 to 2*PI radians.
+    public void setCurrentTheta(int id, double currentTheta) {
+        checkRow(id);
+        this.currentTheta.set(id, currentTheta % (2 * Math.PI));
+        positionsValid = false;
+        stateVersion++;
+        syncMeanAnomaly(id);
+        rebaseEpochs(id, id + 1);
+    }
+
+    public double getOrbitalPeriod(int id) {
+        checkRow(id);
+        return orbitalPeriod.get(id);
+    }
+
+    public void setOrbitalPeriod(int id, double orbitalPeriod) {
+        checkRow(id);
+        ownElements();
+        this.orbitalPeriod.set(id, orbitalPeriod);
+        this.angularVelocity.set(id, orbitalPeriod > 0 ? (2 * Math.PI) / orbitalPeriod : 0.0);
+        stateVersion++;
+        layoutVersion++;
+        rebaseEpochs(id, id + 1);
+    }
+
+    public double getAngularVelocity(int id) {
+        checkRow(id);
+        return angularVelocity.get(id);
+    }
+
+    public double getCentralMass(int id) {
+        checkRow(id);
+        return centralMass.get(id);
+    }
+
+    // Makes the row a circular orbit around a body of the given mass; its period is derived by
+    // deriveCircularPeriod when a SolarSystem registers it with the circular-by-mass propagator.
+    public void setCentralMass(int id, double centralMass) {
+        checkRow(id);
+        ownElements();
+        this.centralMass.set(id, centralMass);
+        stateVersion++;
+        layoutVersion++;
+    }
+
+    // Sets period and angular velocity from centralMass and orbitalRadius: omega = sqrt(G*M/r) / r.
+    public void deriveCircularPeriod(int id) {
+        checkRow(id);
+        double r = orbitalRadius.get(id);
+        double m = centralMass.get(id);
+        if (m <= 0 || r <= 0) {
+            return;
+        }
+        double omega = Math.sqrt(G * m / r) / r;
+        if (angularVelocity.get(id) == omega) {
+            return;
+        }
+        ownElements();
+        angularVelocity.set(id, omega);
+        orbitalPeriod.set(id, (2 * Math.PI) / omega);
+        stateVersion++;
+        rebaseEpochs(id, id + 1);
+    }
+
+    public long getLayoutVersion() {
+        return layoutVersion;
+    }
+
+    // Returns the id of the body this row orbits, or -1 for a root of the orbit tree.
+    public int getParent(int id) {
+        checkRow(id);
+        return parent.get(id);
+    }
+
+    // Makes the row orbit parentId (or nothing, with -1). Its orbitalRadius and theta are then relative to the parent.
+    public void setParent(int id, int parentId) {
+        checkRow(id);
+        if (parentId >= 0) {
+            checkRow(parentId);
+        }
+        for (int p = parentId; p >= 0; p = parent.get(p)) {
+            if (p == id) {
+                throw new IllegalArgumentException("Body " + id + " cannot orbit its own satellite " + parentId);
+            }
+        }
+        ownElements();
+        int oldParent = parent.get(id);
+        if (oldParent >= 0) {
+            childCount.set(oldParent, childCount.get(oldParent) - 1);
+        }
+        if (parentId >= 0) {
+            childCount.set(parentId, childCount.get(parentId) + 1);
+        }
+        parent.set(id, parentId);
+        orbitOrderValid = false;
+        positionsValid = false;
+        stateVersion++;
+        layoutVersion++;
+    }
+
+    // Number of rows orbiting this one.
+    public int getChildCount(int id) {
+        checkRow(id);
+        return childCount.get(id);
+    }
+
+    // Removes a row in O(1) by moving the last row into its place. Returns the old id of the moved row
+    // (size() before the call, minus one), or -1 if the removed row was the last. Rows orbiting the removed
+    // one first move to its parent, keeping their absolute position; that step scans the store, but only
+    // for rows that have satellites. Ids held elsewhere must be renamed by the caller.
+    public int swapRemove(int id) {
+        checkRow(id);
+        if (childCount.get(id) > 0) {
+            reparentChildren(id);
+        }
+        ownElements();
+        removeKeplerId(id);
+        int oldParent = parent.get(id);
+        if (oldParent >= 0) {
+            childCount.set(oldParent, childCount.get(oldParent) - 1);
+        }
+        int last = --size;
+        if (id != last) {
+            mass.set(id, mass.get(last));
+            radius.set(id, radius.get(last));
+            orbitalRadius.set(id, orbitalRadius.get(last));
+            currentTheta.set(id, currentTheta.get(last));
+            orbitalPeriod.set(id, orbitalPeriod.get(last));
+            epochTheta.set(id, epochTheta.get(last));
+            epochTime.set(id, epochTime.get(last));
+            eccentricity.set(id, eccentricity.get(last));
+            perihelionDistance.set(id, perihelionDistance.get(last));
+            meanAnomaly.set(id, meanAnomaly.get(last));
+            epochMeanAnomaly.set(id, epochMeanAnomaly.get(last));
+            parent.set(id, parent.get(last));
+            x.set(id, x.get(last));
+            y.set(id, y.get(last));
+            angularVelocity.set(id, angularVelocity.get(last));
+            centralMass.set(id, centralMass.get(last));
+            childCount.set(id, childCount.get(last));
+            keplerSlot.set(id, keplerSlot.get(last));
+            if (keplerSlot.get(id) >= 0) {
+                keplerIds[keplerSlot.get(id)] = id;
+            }
+            if (childCount.get(id) > 0) {
+                for (int i = 0; i < size; i++) {
+                    if (parent.get(i) == last) {
+                        parent.set(i, id);
+                    }
+                }
+            }
+        }
+        orbitOrderValid = false;
+        positionsValid = false;
+        stateVersion++;
+        layoutVersion++;
+        return id != last ? last : -1;
+    }
+
+    // Moves every row orbiting id to id's own parent, re-deriving orbitalRadius and theta so each keeps its
+    // absolute position. Periods and orbit shapes are left as they were.
+    public void reparentChildren(int id) {
+        checkRow(id);
+        updatePositions();
+        ownElements();
+        int newParent = parent.get(id);
+        double originX = newParent < 0 ? 0.0 : x.get(newParent);
+        double originY = newParent < 0 ? 0.0 : y.get(newParent);
+        for (int i = 0; i < size && childCount.get(id) > 0; i++) {
+            if (parent.get(i) != id) {
+                continue;
+            }
+            double dx = x.get(i) - originX;
+            double dy = y.get(i) - originY;
+            orbitalRadius.set(i, Math.hypot(dx, dy));
+            currentTheta.set(i, Math.atan2(dy, dx));
+            syncMeanAnomaly(i);
+            rebaseEpochs(i, i + 1);
+            parent.set(i, newParent);
+            childCount.set(id, childCount.get(id) - 1);
+            if (newParent >= 0) {
+                childCount.set(newParent, childCount.get(newParent) + 1);
+            }
+        }
+        orbitOrderValid = false;
+        stateVersion++;
+        layoutVersion++;
+    }
+
+    // Absolute Cartesian position, with roots of the orbit tree at the origin.
+    public double getX(int id) {
+        checkRow(id);
+        updatePositions();
+        return x.get(id);
+    }
+
+    public double getY(int id) {
+        checkRow(id);
+        updatePositions();
+        return y.get(id);
+    }
+
+    // Absolute position of one row, walking up its parent chain; unlike getX this leaves the other rows alone,
+    // so sampling a few bodies costs O(depth) each rather than a full updatePositions pass.
+    public double resolveX(int id) {
+        checkRow(id);
+        if (positionsValid) {
+            return x.get(id);
+        }
+        double sum = 0.0;
+        for (int i = id; i >= 0; i = parent.get(i)) {
+            sum += orbitalRadius.get(i) * Math.cos(currentTheta.get(i));
+        }
+        return sum;
+    }
+
+    public double resolveY(int id) {
+        checkRow(id);
+        if (positionsValid) {
+            return y.get(id);
+        }
+        double sum = 0.0;
+        for (int i = id; i >= 0; i = parent.get(i)) {
+            sum += orbitalRadius.get(i) * Math.sin(currentTheta.get(i));
+        }
+        return sum;
+    }
+
+    // Analytic absolute position of one row at time t, from its epoch elements, without touching the row's
+    // current state; out[0] = x, out[1] = y. Rows with no period stay where they are.
+    public void positionAt(int id, double t, double[] out) {
+        checkRow(id);
+        final double twoPi = 2 * Math.PI;
+        double sumX = 0.0;
+        double sumY = 0.0;
+        for (int i = id; i >= 0; i = parent.get(i)) {
+            double p = orbitalPeriod.get(i);
+            double e = eccentricity.get(i);
+            double r = orbitalRadius.get(i);
+            double theta = currentTheta.get(i);
+            if (p > 0) {
+                double revolutions = (t - epochTime.get(i)) / p;
+                revolutions -= Math.floor(revolutions);
+                if (e == 0) {
+                    theta = (epochTheta.get(i) + twoPi * revolutions) % twoPi;
+                } else {
+                    double eccentricAnomaly = KeplerSolver.solve((epochMeanAnomaly.get(i) + twoPi * revolutions) % twoPi, e);
+                    theta = KeplerSolver.trueAnomaly(eccentricAnomaly, e);
+                    r = KeplerSolver.radius(perihelionDistance.get(i), e, eccentricAnomaly);
+                }
+            }
+            sumX += r * Math.cos(theta);
+            sumY += r * Math.sin(theta);
+        }
+        out[0] = sumX;
+        out[1] = sumY;
+    }
+
+    // Shortest positive period on the row's path up the orbit tree, or 0 if nothing on it moves.
+    public double shortestPeriodOnPath(int id) {
+        checkRow(id);
+        double shortest = 0.0;
+        for (int i = id; i >= 0; i = parent.get(i)) {
+            double p = orbitalPeriod.get(i);
+            if (p > 0 && (shortest == 0 || p < shortest)) {
+                shortest = p;
+            }
+        }
+        return shortest;
+    }
+
+    // Recomputes absolute positions in one pass over the orbit tree, parents first, so each parent's
+    // position is computed once and reused by all of its children. Does nothing if nothing has moved.
+    public void updatePositions() {
+        ensureOpen();
+        if (positionsValid) {
+            return;
+        }
+        if (!orbitOrderValid) {
+            rebuildOrbitOrder();
+        }
+        for (int k = 0; k < size; k++) {
+            int i = orbitOrder[k];
+            int p = parent.get(i);
+            double originX = p < 0 ? 0.0 : x.get(p);
+            double originY = p < 0 ? 0.0 : y.get(p);
+            double r = orbitalRadius.get(i);
+            double theta = currentTheta.get(i);
+            x.set(i, originX + r * Math.cos(theta));
+            y.set(i, originY + r * Math.sin(theta));
+        }
+        positionsValid = true;
+    }
+
+    public long getStateVersion() {
+        return stateVersion;
+    }
+
+    // Changes whenever what positionAt returns may have changed: on every state edit, and also when an N-body or
+    // distributed run replaces the orbits through applyCartesianPositions and rebaseEpochs.
+    public long getTrajectoryVersion() {
+        return stateVersion + epochVersion;
+    }
+
+    public void copyMasses(double[] destination) {
+        ensureOpen();
+        mass.copyTo(0, destination, 0, size);
+    }
+
+    public void copyOrbitalRadii(double[] destination) {
+        ensureOpen();
+        orbitalRadius.copyTo(0, destination, 0, size);
+    }
+
+    public void copyParents(int[] destination) {
+        ensureOpen();
+        parent.copyTo(0, destination, 0, size);
+    }
+
+    // Fills absolute Cartesian positions and velocities for every row. Velocities follow from each
+    // row's orbit (circular or Keplerian, with mu = n^2 * a^3 from the period) plus its parent's velocity.
+    public void computeCartesianState(double[] x, double[] y, double[] vx, double[] vy) {
+        updatePositions();
+        this.x.copyTo(0, x, 0, size);
+        this.y.copyTo(0, y, 0, size);
+        for (int k = 0; k < size; k++) {
+            int i = orbitOrder[k];
+            int p = parent.get(i);
+            double originVx = p < 0 ? 0.0 : vx[p];
+            double originVy = p < 0 ? 0.0 : vy[p];
+            double period = orbitalPeriod.get(i);
+            if (period <= 0) {
+                vx[i] = originVx;
+                vy[i] = originVy;
+                continue;
+            }
+            double e = eccentricity.get(i);
+            double semiMajorAxis = e > 0 ? perihelionDistance.get(i) / (1.0 - e) : orbitalRadius.get(i);
+            double meanMotion = (2 * Math.PI) / period;
+            double mu = meanMotion * meanMotion * semiMajorAxis * semiMajorAxis * semiMajorAxis;
+            double h = Math.sqrt(mu / (semiMajorAxis * (1.0 - e * e)));
+            double nu = currentTheta.get(i);
+            double radialSpeed = h * e * Math.sin(nu);
+            double transverseSpeed = h * (1.0 + e * Math.cos(nu));
+            vx[i] = originVx + radialSpeed * Math.cos(nu) - transverseSpeed * Math.sin(nu);
+            vy[i] = originVy + radialSpeed * Math.sin(nu) + transverseSpeed * Math.cos(nu);
+        }
+    }
+
+    // Takes absolute positions computed elsewhere (e.g. by the N-body integrator) as the new state.
+    // orbitalRadius and theta are re-derived relative to each row's parent; the state version is not bumped.
+    public void applyCartesianPositions(double[] x, double[] y) {
+        ensureOpen();
+        this.x.copyFrom(x, 0, 0, size);
+        this.y.copyFrom(y, 0, 0, size);
+        for (int i = 0; i < size; i++) {
+            int p = parent.get(i);
+            double dx = p < 0 ? x[i] : x[i] - x[p];
+            double dy = p < 0 ? y[i] : y[i] - y[p];
+            orbitalRadius.set(i, Math.hypot(dx, dy));
+            currentTheta.set(i, Math.atan2(dy, dx));
+            syncMeanAnomaly(i);
+        }
+        positionsValid = true;
+        epochVersion++;
+    }
+
+    // Copies the per-frame columns (theta, orbitalRadius, x, y, meanAnomaly), each as one contiguous run of size doubles.
+    public void putFrameColumns(DoubleBuffer out) {
+        updatePositions();
+        currentTheta.write(out, size);
+        orbitalRadius.write(out, size);
+        x.write(out, size);
+        y.write(out, size);
+        meanAnomaly.write(out, size);
+    }
+
+    // Reverse of putFrameColumns: replaces the moving state of every row and makes it the new epoch.
+    public void getFrameColumns(DoubleBuffer in) {
+        ensureOpen();
+        currentTheta.read(in, size);
+        orbitalRadius.read(in, size);
+        x.read(in, size);
+        y.read(in, size);
+        meanAnomaly.read(in, size);
+        positionsValid = true;
+        stateVersion++;
+        rebaseEpochs(0, size);
+    }
+
+    // Orders rows by depth in the orbit tree (counting sort), which puts every parent before its children.
+    private void rebuildOrbitOrder() {
+        int[] depth = new int[size];
+        int maxDepth = 0;
+        for (int i = 0; i < size; i++) {
+            int d = 0;
+            for (int p = parent.get(i); p >= 0; p = parent.get(p)) {
+                d++;
+            }
+            depth[i] = d;
+            maxDepth = Math.max(maxDepth, d);
+        }
+        int[] start = new int[maxDepth + 2];
+        for (int i = 0; i < size; i++) {
+            start[depth[i] + 1]++;
+        }
+        for (int d = 1; d < start.length; d++) {
+            start[d] += start[d - 1];
+        }
+        orbitOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            orbitOrder[start[depth[i]]++] = i;
+        }
+        orbitOrderValid = true;
+    }
+
+    public double getEccentricity(int id) {
+        checkRow(id);
+        return eccentricity.get(id);
+    }
+
+    public double getPerihelionDistance(int id) {
+        checkRow(id);
+        return perihelionDistance.get(id);
+    }
+
+    // Gives a row an elliptical orbit. Rows with e > 0 are propagated with Kepler's equation,
+    // in which case currentTheta is the true anomaly and orbitalRadius the current focal distance.
+    public void setOrbitShape(int id, double eccentricity, double perihelionDistance) {
+        checkRow(id);
+        if (eccentricity < 0 || eccentricity >= 1) {
+            throw new IllegalArgumentException("Eccentricity must be in [0, 1) for an elliptical orbit: " + eccentricity);
+        }
+        boolean wasKeplerian = this.eccentricity.get(id) > 0;
+        ownElements();
+        layoutVersion++;
+        this.eccentricity.set(id, eccentricity);
+        this.perihelionDistance.set(id, perihelionDistance);
+        if (eccentricity > 0 && !wasKeplerian) {
+            addKeplerId(id);
+        } else if (eccentricity == 0 && wasKeplerian) {
+            removeKeplerId(id);
+        }
+        if (eccentricity > 0) {
+            double eccentricAnomaly = KeplerSolver.solve(
+                    KeplerSolver.meanAnomalyFromTrueAnomaly(currentTheta.get(id), eccentricity), eccentricity);
+            orbitalRadius.set(id, KeplerSolver.radius(perihelionDistance, eccentricity, eccentricAnomaly));
+        }
+        positionsValid = false;
+        stateVersion++;
+        syncMeanAnomaly(id);
+        rebaseEpochs(id, id + 1);
+    }
+
+    private void addKeplerId(int id) {
+        if (keplerCount == keplerIds.length) {
+            keplerIds = Arrays.copyOf(keplerIds, keplerIds.length * 2);
+        }
+        keplerSlot.set(id, keplerCount);
+        keplerIds[keplerCount++] = id;
+    }
+
+    private void removeKeplerId(int id) {
+        int slot = keplerSlot.get(id);
+        if (slot < 0) {
+            return;
+        }
+        int moved = keplerIds[--keplerCount];
+        keplerIds[slot] = moved;
+        keplerSlot.set(moved, slot);
+        keplerSlot.set(id, -1);
+    }
+
+    private void syncMeanAnomaly(int id) {
+        double e = eccentricity.get(id);
+        meanAnomaly.set(id, e > 0
+                ? KeplerSolver.meanAnomalyFromTrueAnomaly(currentTheta.get(id), e)
+                : currentTheta.get(id));
+    }
+
+    // Makes the current theta of rows [from, to) the reference for analytic propagation.
+    public void rebaseEpochs(int from, int to) {
+        ensureOpen();
+        Objects.checkFromToIndex(from, to, size);
+        currentTheta.copyTo(from, epochTheta, from, to - from);
+        meanAnomaly.copyTo(from, epochMeanAnomaly, from, to - from);
+        epochTime.fill(from, to, time);
+        epochVersion++;
+    }
+
+    // Advances circular rows in [from, to) by one step of uniform circular motion.
+    // Same arithmetic as CelestialBody.revolve, so results match it bit for bit.
+    public void propagate(double deltaTime, int from, int to) {
+        ensureOpen();
+        Objects.checkFromToIndex(from, to, size);
+        final double twoPi = 2 * Math.PI;
+        final DoubleColumn theta = currentTheta;
+        final DoubleColumn omega = angularVelocity;
+        final DoubleColumn ecc = eccentricity;
+        positionsValid = false;
+        for (int i = from; i < to; i++) {
+            double w = omega.get(i);
+            if (w > 0 && ecc.get(i) == 0) {
+                theta.set(i, (theta.get(i) + w * deltaTime) % twoPi);
+            }
+        }
+    }
+
+    // Advances the circular rows ids[from, to) by one step. The caller guarantees every listed row is
+    // circular, so the loop is a branch-free multiply-add per row.
+    public void propagateRows(int[] ids, int from, int to, double deltaTime) {
+        ensureOpen();
+        final double twoPi = 2 * Math.PI;
+        final DoubleColumn theta = currentTheta;
+        final DoubleColumn omega = angularVelocity;
+        positionsValid = false;
+        for (int k = from; k < to; k++) {
+            int i = ids[k];
+            theta.set(i, (theta.get(i) + omega.get(i) * deltaTime) % twoPi);
+        }
+    }
+
+    // Sets the circular rows ids[from, to) to their closed-form position at targetTime.
+    public void propagateRowsTo(int[] ids, int from, int to, double targetTime) {
+        ensureOpen();
+        final double twoPi = 2 * Math.PI;
+        positionsValid = false;
+        for (int k = from; k < to; k++) {
+            int i = ids[k];
+            double p = orbitalPeriod.get(i);
+            if (p > 0) {
+                double revolutions = (targetTime - epochTime.get(i)) / p;
+                revolutions -= Math.floor(revolutions);
+                currentTheta.set(i, (epochTheta.get(i) + twoPi * revolutions) % twoPi);
+            }
+        }
+    }
+
+    // Sets rows [from, to) to their closed-form position at targetTime.
+    // Whole revolutions are dropped before scaling, so the error does not grow with elapsed time.
+    public void propagateTo(double targetTime, int from, int to) {
+        ensureOpen();
+        Objects.checkFromToIndex(from, to, size);
+        final double twoPi = 2 * Math.PI;
+        final DoubleColumn theta = currentTheta;
+        final DoubleColumn period = orbitalPeriod;
+        final DoubleColumn ecc = eccentricity;
+        positionsValid = false;
+        for (int i = from; i < to; i++) {
+            double p = period.get(i);
+            if (p > 0 && ecc.get(i) == 0) {
+                double revolutions = (targetTime - epochTime.get(i)) / p;
+                revolutions -= Math.floor(revolutions);
+                theta.set(i, (epochTheta.get(i) + twoPi * revolutions) % twoPi);
+            }
+        }
+    }
+
+    // Number of rows on eccentric orbits; the Kepler kernels take ranges of [0, getKeplerCount()).
+    public int getKeplerCount() {
+        return keplerCount;
+    }
+
+    // Advances eccentric rows [from, to) of the Kepler list by one step: the mean anomaly moves
+    // uniformly, then the batch is solved for E and converted to theta and orbitalRadius.
+    public void propagateKepler(double deltaTime, int from, int to) {
+        ensureOpen();
+        propagateKeplerRows(keplerIds, from, to, deltaTime);
+    }
+
+    // Sets eccentric rows [from, to) of the Kepler list to their closed-form position at targetTime.
+    public void propagateKeplerTo(double targetTime, int from, int to) {
+        ensureOpen();
+        propagateKeplerRowsTo(keplerIds, from, to, targetTime);
+    }
+
+    // Same as propagateKepler for the eccentric rows listed in ids[from, to).
+    public void propagateKeplerRows(int[] ids, int from, int to, double deltaTime) {
+        ensureOpen();
+        final double twoPi = 2 * Math.PI;
+        for (int k = from; k < to; k++) {
+            int id = ids[k];
+            double omega = angularVelocity.get(id);
+            if (omega > 0) {
+                meanAnomaly.set(id, (meanAnomaly.get(id) + omega * deltaTime) % twoPi);
+            }
+        }
+        solveKeplerRows(ids, from, to);
+    }
+
+    public void propagateKeplerRowsTo(int[] ids, int from, int to, double targetTime) {
+        ensureOpen();
+        final double twoPi = 2 * Math.PI;
+        for (int k = from; k < to; k++) {
+            int id = ids[k];
+            double p = orbitalPeriod.get(id);
+            if (p > 0) {
+                double revolutions = (targetTime - epochTime.get(id)) / p;
+                revolutions -= Math.floor(revolutions);
+                meanAnomaly.set(id, (epochMeanAnomaly.get(id) + twoPi * revolutions) % twoPi);
+            }
+        }
+        solveKeplerRows(ids, from, to);
+    }
+
+    // Gathers the eccentric rows into contiguous scratch columns, solves them as one batch and scatters back.
+    // Disjoint ranges touch disjoint scratch slots, so ranges can be solved concurrently.
+    private void solveKeplerRows(int[] ids, int from, int to) {
+        positionsValid = false;
+        for (int k = from; k < to; k++) {
+            int id = ids[k];
+            keplerMeanAnomaly[k] = meanAnomaly.get(id);
+            keplerEccentricity[k] = eccentricity.get(id);
+        }
+        KeplerSolver.solveBatch(keplerMeanAnomaly, keplerEccentricity, keplerEccentricAnomaly,
+                                from, to, KeplerSolver.DEFAULT_TOLERANCE);
+        for (int k = from; k < to; k++) {
+            int id = ids[k];
+            double e = keplerEccentricity[k];
+            double eccentricAnomaly = keplerEccentricAnomaly[k];
+            currentTheta.set(id, KeplerSolver.trueAnomaly(eccentricAnomaly, e) % (2 * Math.PI));
+            orbitalRadius.set(id, KeplerSolver.radius(perihelionDistance.get(id), e, eccentricAnomaly));
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package celestial;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Streams body catalogs into a SolarSystem in batches. Two formats are read, detected from the first bytes:
+//   CSV, one body per line: name,category,mass,radius,orbitalRadius,orbitalPeriod,eccentricity,perihelionDistance,parent
+//     (the last three may be empty; an optional header line starting with "name" and lines starting with '#' are skipped)
+//   binary (see writeBinary): magic, version, count, then per body six doubles and three length-prefixed UTF-8 strings
+// Files are read through a reusable buffer and numbers are parsed straight from its bytes; the only Strings
+// created are each body's name and, for moons, its parent's name. Rows with e > 0 are loaded as Comet so they
+// follow Keplerian orbits; their category is kept.
+class CatalogLoader {
+    public static final int BINARY_MAGIC = 0x43424354; // "CBCT"
+    public static final int BINARY_VERSION = 1;
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final String[] KNOWN_CATEGORIES = {"planet", "moon", "comet", "star", "asteroid", "dwarf planet", "unspecified"};
+    private static final byte[][] KNOWN_CATEGORY_BYTES = new byte[KNOWN_CATEGORIES.length][];
+    private static final int CSV_FIELDS = 9;
+    // Strings in the binary format carry an unsigned 16-bit length prefix.
+    public static final int MAX_FIELD_BYTES = 0xFFFF;
+    private static final int BINARY_HEADER_BYTES = 12;
+    private static final int MAX_RECORD_BYTES = 6 * Double.BYTES + 3 * (Short.BYTES + MAX_FIELD_BYTES);
+
+    static {
+        for (int i = 0; i < KNOWN_CATEGORIES.length; i++) {
+            KNOWN_CATEGORY_BYTES[i] = KNOWN_CATEGORIES[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // Receives each full batch; the array may be reused once accept returns.
+    interface BatchSink {
+        void accept(CelestialBody[] batch, int count) throws InterruptedException;
+    }
+
+    private final int batchSize;
+    private final int bufferSize;
+
+    public CatalogLoader() {
+        this(DEFAULT_BATCH_SIZE, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CatalogLoader(int batchSize, int bufferSize) {
+        this.batchSize = Math.max(batchSize, 1);
+        this.bufferSize = Math.max(bufferSize, 4096);
+    }
+
+    // Loads the whole catalog into the system on the calling thread; returns the number of bodies read.
+    public int load(Path path, SolarSystem system) throws IOException {
+        try {
+            return load(path, system::addBatch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + path, e);
+        }
+    }
+
+    // Parses the catalog on a background thread and queues batches on the system, which picks them up
+    // between simulation steps. The future completes with the body count once every batch is queued.
+    public CompletableFuture<Integer> loadAsync(Path path, SolarSystem system) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(path, (batch, count) -> system.enqueueBatch(Arrays.copyOf(batch, count)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Catalog loading interrupted", e);
+            }
+        }, task -> {
+            Thread thread = new Thread(task, "catalog-loader");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    public int load(Path path, BatchSink sink) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            fill(channel, buffer, 4);
+            boolean binary = buffer.remaining() >= 4 && buffer.getInt(buffer.position()) == BINARY_MAGIC;
+            return binary ? readBinary(channel, buffer, sink) : readCsv(channel, buffer, sink);
+        }
+    }
+
+    // Reads until at least `needed` bytes are available or the file ends; leaves the buffer flipped for reading.
+    private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        buffer.compact();
+        while (buffer.position() < needed && channel.read(buffer) >= 0) {
+            // keep reading
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private int readCsv(FileChannel channel, ByteBuffer buffer, BatchSink sink) throws IOException, InterruptedException {
+        CelestialBody[] batch = new CelestialBody[batchSize];
+        int[] fieldStart = new int[CSV_FIELDS];
+        int[] fieldEnd = new int[CSV_FIELDS];
+        int count = 0;
+        int total = 0;
+        int lineNumber = 0;
+        boolean endOfFile = false;
+        while (true) {
+            byte[] bytes = buffer.array();
+            int limit = buffer.limit();
+            int lineStart = buffer.position();
+            for (int i = lineStart; i <= limit; i++) {
+                if (i < limit ? bytes[i] != '\n' : !endOfFile || i == lineStart) {
+                    continue;
+                }
+                lineNumber++;
+                CelestialBody body = parseCsvLine(bytes, lineStart, i, lineNumber, fieldStart, fieldEnd);
+                lineStart = i + 1;
+                if (body != null) {
+                    batch[count++] = body;
+                    total++;
+                    if (count == batchSize) {
+                        sink.accept(batch, count);
+                        count = 0;
+                    }
+                }
+            }
+            if (endOfFile) {
+                break;
+            }
+            buffer.position(Math.min(lineStart, limit));
+            if (buffer.position() == 0 && limit == buffer.capacity()) {
+                // A single line fills the buffer: grow it rather than split the line.
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                larger.put(buffer);
+                larger.flip();
+                buffer = larger;
+            }
+            int before = buffer.remaining();
+            buffer = fill(channel, buffer, buffer.capacity());
+            endOfFile = buffer.remaining() == before;
+            buffer.position(0);
+        }
+        if (count > 0) {
+            sink.accept(batch, count);
+        }
+        return total;
+    }
+
+    // Parses one line in bytes[start, end); returns null for blank, comment and header lines.
+    private CelestialBody parseCsvLine(byte[] bytes, int start, int end, int lineNumber, int[] fieldStart, int[] fieldEnd)
+            throws IOException {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        if (end == start || bytes[start] == '#') {
+            return null;
+        }
+        int fields = 0;
+        int position = start;
+        while (fields < CSV_FIELDS && position <= end) {
+            int fieldEndPosition;
+            if (position < end && bytes[position] == '"') {
+                int close = position + 1;
+                while (close < end && !(bytes[close] == '"' && (close + 1 >= end || bytes[close + 1] != '"'))) {
+                    close += bytes[close] == '"' ? 2 : 1;
+                }
+                fieldStart[fields] = position;
+                fieldEnd[fields] = Math.min(close + 1, end);
+                fieldEndPosition = Math.min(close + 1, end);
+                while (fieldEndPosition < end && bytes[fieldEndPosition] != ',') {
+                    fieldEndPosition++;
+                }
+            } else {
+                fieldEndPosition = position;
+                while (fieldEndPosition < end && bytes[fieldEndPosition] != ',') {
+                    fieldEndPosition++;
+                }
+                fieldStart[fields] = position;
+                fieldEnd[fields] = fieldEndPosition;
+            }
+            fields++;
+            position = fieldEndPosition + 1;
+        }
+        if (lineNumber == 1 && matches(bytes, fieldStart[0], fieldEnd[0], "name")) {
+            return null;
+        }
+        if (fields < 6) {
+            throw new IOException("Line " + lineNumber + ": expected at least 6 fields, found " + fields);
+        }
+        String name = text(bytes, fieldStart[0], fieldEnd[0]);
+        String category = category(bytes, fieldStart[1], fieldEnd[1]);
+        double mass = number(bytes, fieldStart[2], fieldEnd[2], lineNumber);
+        double radius = number(bytes, fieldStart[3], fieldEnd[3], lineNumber);
+        double orbitalRadius = number(bytes, fieldStart[4], fieldEnd[4], lineNumber);
+        double orbitalPeriod = number(bytes, fieldStart[5], fieldEnd[5], lineNumber);
+        double eccentricity = fields > 6 ? number(bytes, fieldStart[6], fieldEnd[6], lineNumber) : 0.0;
+        double perihelionDistance = fields > 7 ? number(bytes, fieldStart[7], fieldEnd[7], lineNumber) : 0.0;
+        String parentName = fields > 8 && fieldEnd[8] > fieldStart[8] && "moon".equals(category)
+                ? text(bytes, fieldStart[8], fieldEnd[8]) : null;
+        return createBody(name, category, mass, radius, orbitalRadius, orbitalPeriod, eccentricity, perihelionDistance, parentName);
+    }
+
+    private static double number(byte[] bytes, int start, int end, int lineNumber) throws IOException {
+        double value = parseDouble(bytes, start, end);
+        if (Double.isNaN(value)) {
+            throw new IOException("Line " + lineNumber + ": not a number: "
+                    + new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        }
+        return value;
+    }
+
+    // Parses a decimal number from bytes[start, end); blank fields are 0 and malformed ones NaN.
+    // Up to 18 significant digits (so the long cannot overflow) with a power of ten up to 22 are parsed here;
+    // mantissas past 2^53 and larger exponents fall back to Double.parseDouble.
+    static double parseDouble(byte[] bytes, int start, int end) {
+        while (start < end && bytes[start] == ' ') {
+            start++;
+        }
+        while (end > start && bytes[end - 1] == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return 0.0;
+        }
+        int i = start;
+        boolean negative = false;
+        if (bytes[i] == '-' || bytes[i] == '+') {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+            anyDigit = true;
+            if (significantDigits < 18) {
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+            } else {
+                exponent++;
+            }
+        }
+        if (i < end && bytes[i] == '.') {
+            for (i++; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+                anyDigit = true;
+                if (significantDigits < 18) {
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                    exponent--;
+                    if (mantissa != 0) {
+                        significantDigits++;
+                    }
+                }
+            }
+        }
+        if (!anyDigit) {
+            return Double.NaN;
+        }
+        if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            int explicit = 0;
+            boolean exponentDigit = false;
+            for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+                exponentDigit = true;
+                explicit = Math.min(explicit * 10 + (bytes[i] - '0'), 100_000);
+            }
+            if (!exponentDigit) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (mantissa < (1L << 53) && Math.abs(exponent) <= 22) {
+            value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean matches(byte[] bytes, int start, int end, String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (bytes[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Decodes a field, removing surrounding quotes and unescaping doubled quotes.
+    private static String text(byte[] bytes, int start, int end) {
+        if (end - start >= 2 && bytes[start] == '"' && bytes[end - 1] == '"') {
+            String inner = new String(bytes, start + 1, end - start - 2, StandardCharsets.UTF_8);
+            return inner.indexOf('"') >= 0 ? inner.replace("\"\"", "\"") : inner;
+        }
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // Returns the shared constant for known categories, so common rows allocate nothing for this field.
+    private static String category(byte[] bytes, int start, int end) {
+        for (int k = 0; k < KNOWN_CATEGORY_BYTES.length; k++) {
+            byte[] known = KNOWN_CATEGORY_BYTES[k];
+            if (known.length == end - start && Arrays.equals(bytes, start, end, known, 0, known.length)) {
+                return KNOWN_CATEGORIES[k];
+            }
+        }
+        return end > start ? text(bytes, start, end) : "unspecified";
+    }
+
+    private static CelestialBody createBody(String name, String category, double mass, double radius, double orbitalRadius,
+                                            double orbitalPeriod, double eccentricity, double perihelionDistance,
+                                            String parentName) {
+        CelestialBody body;
+        if (eccentricity > 0) {
+            body = new Comet(name, mass, radius, eccentricity, orbitalPeriod, perihelionDistance);
+        } else if ("moon".equals(category) && parentName != null) {
+            body = new Moon(name, mass, radius, orbitalRadius, orbitalPeriod, parentName, false);
+        } else if ("planet".equals(category)) {
+            body = new Planet(name, mass, radius, orbitalRadius, orbitalPeriod, 0, false, false);
+        } else {
+            body = new CelestialBody(name, mass, radius);
+            body.setOrbitalRadius(orbitalRadius);
+            body.setOrbitalPeriod(orbitalPeriod);
+        }
+        body.setCategory(category);
+        return body;
+    }
+
+    private int readBinary(FileChannel channel, ByteBuffer buffer, BatchSink sink) throws IOException, InterruptedException {
+        if (buffer.capacity() < Short.BYTES + MAX_FIELD_BYTES) {
+            // Every string field must fit in the buffer at once.
+            ByteBuffer larger = ByteBuffer.allocate(Short.BYTES + MAX_FIELD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            larger.put(buffer);
+            larger.flip();
+            buffer = larger;
+        }
+        require(channel, buffer, BINARY_HEADER_BYTES, "header");
+        buffer.getInt();
+        int version = buffer.getInt();
+        if (version != BINARY_VERSION) {
+            throw new IOException("Unsupported catalog version " + version);
+        }
+        int expected = buffer.getInt();
+        if (expected < 0) {
+            throw new IOException("Negative body count " + expected + " in catalog header");
+        }
+        CelestialBody[] batch = new CelestialBody[batchSize];
+        int count = 0;
+        for (int total = 0; total < expected; total++) {
+            require(channel, buffer, 6 * Double.BYTES, total);
+            double mass = buffer.getDouble();
+            double radius = buffer.getDouble();
+            double orbitalRadius = buffer.getDouble();
+            double orbitalPeriod = buffer.getDouble();
+            double eccentricity = buffer.getDouble();
+            double perihelionDistance = buffer.getDouble();
+            int length = readField(channel, buffer, total);
+            String category = category(buffer.array(), buffer.position() - length, buffer.position());
+            length = readField(channel, buffer, total);
+            String name = new String(buffer.array(), buffer.position() - length, length, StandardCharsets.UTF_8);
+            length = readField(channel, buffer, total);
+            String parentName = length > 0 && "moon".equals(category)
+                    ? new String(buffer.array(), buffer.position() - length, length, StandardCharsets.UTF_8) : null;
+            batch[count++] = createBody(name, category, mass, radius, orbitalRadius, orbitalPeriod,
+                                        eccentricity, perihelionDistance, parentName);
+            if (count == batchSize) {
+                sink.accept(batch, count);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            sink.accept(batch, count);
+        }
+        return expected;
+    }
+
+    // Consumes one length-prefixed field of the given record, leaving its bytes just before the buffer position;
+    // returns its length.
+    private static int readField(FileChannel channel, ByteBuffer buffer, int record) throws IOException {
+        require(channel, buffer, Short.BYTES, record);
+        int length = buffer.getShort() & 0xFFFF;
+        require(channel, buffer, length, record);
+        buffer.position(buffer.position() + length);
+        return length;
+    }
+
+    private static void require(FileChannel channel, ByteBuffer buffer, int needed, int record) throws IOException {
+        require(channel, buffer, needed, "record " + record);
+    }
+
+    // Ensures `needed` bytes are readable, or fails naming the part of the file that is cut short.
+    private static void require(FileChannel channel, ByteBuffer buffer, int needed, String part) throws IOException {
+        if (buffer.remaining() < needed) {
+            fill(channel, buffer, needed);
+            if (buffer.remaining() < needed) {
+                throw new IOException("Catalog ends inside " + part + ": needed " + needed + " bytes, found "
+                        + buffer.remaining());
+            }
+        }
+    }
+
+    // Writes the system's bodies, except its central star, in the binary catalog format.
+    // Strings longer than MAX_FIELD_BYTES in UTF-8 are rejected before the file is opened.
+    public static void writeBinary(Path path, SolarSystem system) throws IOException {
+        List<CelestialBody> bodies = system.getBodies();
+        int first = system.getCentralStar() != null ? 1 : 0;
+        for (CelestialBody body : bodies.subList(first, bodies.size())) {
+            checkFieldLength(body.getCategory());
+            checkFieldLength(body.getName());
+            if (body instanceof Moon && ((Moon) body).getPlanetOrbitingName() != null) {
+                checkFieldLength(((Moon) body).getPlanetOrbitingName());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            // Large enough for the longest possible record, so draining before each record always makes room.
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(DEFAULT_BUFFER_SIZE, BINARY_HEADER_BYTES + MAX_RECORD_BYTES))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putInt(bodies.size() - first);
+            for (CelestialBody body : bodies.subList(first, bodies.size())) {
+                byte[] category = body.getCategory().getBytes(StandardCharsets.UTF_8);
+                byte[] name = body.getName().getBytes(StandardCharsets.UTF_8);
+                byte[] parent = body instanceof Moon && ((Moon) body).getPlanetOrbitingName() != null
+                        ? ((Moon) body).getPlanetOrbitingName().getBytes(StandardCharsets.UTF_8) : new byte[0];
+                if (buffer.remaining() < 6 * Double.BYTES + 6 + category.length + name.length + parent.length) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                double eccentricity = body instanceof Comet ? ((Comet) body).getEccentricity() : 0.0;
+                double perihelion = body instanceof Comet ? ((Comet) body).getPerihelionDistance() : 0.0;
+                buffer.putDouble(body.getMass()).putDouble(body.getRadius()).putDouble(body.getOrbitalRadius())
+                      .putDouble(body.getOrbitalPeriod()).putDouble(eccentricity).putDouble(perihelion);
+                buffer.putShort((short) category.length).put(category);
+                buffer.putShort((short) name.length).put(name);
+                buffer.putShort((short) parent.length).put(parent);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    // UTF-8 needs at most three bytes per char, so only long strings are encoded to be measured.
+    private static void checkFieldLength(String text) {
+        if ((long) text.length() * 3 > MAX_FIELD_BYTES) {
+            int bytes = text.getBytes(StandardCharsets.UTF_8).length;
+            if (bytes > MAX_FIELD_BYTES) {
+                throw new IllegalArgumentException("\"" + text.substring(0, 32) + "...\" is " + bytes
+                        + " bytes in UTF-8; catalog strings are limited to " + MAX_FIELD_BYTES);
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package celestial;
+
+import java.text.DecimalFormat;
+
+import static celestial.Main.G;
+
+// Parent Class: Represents a generic celestial body.
+// Once added to a SolarSystem, the body becomes a view over its row in the system's BodyStore.
+class CelestialBody {
+    // DecimalFormat is not thread-safe, so each thread reuses its own instead of building one per call.
+    private static final ThreadLocal<DecimalFormat> RADIUS_FORMAT = ThreadLocal.withInitial(() -> new DecimalFormat("0.##E0"));
+    private static final ThreadLocal<DecimalFormat> THETA_FORMAT = ThreadLocal.withInitial(() -> new DecimalFormat("0.00"));
+
+    private String name;
+    private String category;
+    private double mass;
+    private double radius;
+    private double orbitalRadius;
+    private double currentTheta;
+    private double orbitalPeriod;
+    private double orbitCenterMass;
+    private BodyStore store;
+    private int id;
+
+    // Constructor for CelestialBody.
+    public CelestialBody(String name, double mass, double radius) {
+        this.name = name;
+        this.category = "unspecified";
+        this.mass = mass;
+        this.radius = radius;
+        this.orbitalRadius = 0.0;
+        this.currentTheta = 0.0;
+        this.orbitalPeriod = 0.0;
+        this.orbitCenterMass = 0.0;
+        this.store = null;
+        this.id = -1;
+    }
+
+    // Moves this body's state into a row of the store and turns it into a view over that row.
+    void bind(BodyStore store) {
+        int newId = store.add(getMass(), getRadius(), getOrbitalRadius(), getCurrentTheta(), getOrbitalPeriod());
+        if (orbitCenterMass > 0) {
+            store.setCentralMass(newId, orbitCenterMass);
+        }
+        this.store = store;
+        this.id = newId;
+    }
+
+    // A plain body with the template's name and category, viewing an existing row of another store.
+    // Used for forks, which share rows rather than re-adding bodies.
+    static CelestialBody viewOf(CelestialBody template, BodyStore store) {
+        CelestialBody view = new CelestialBody(template.getName(), 0.0, 0.0);
+        view.setCategory(template.getCategory());
+        view.store = store;
+        view.id = template.getId();
+        return view;
+    }
+
+    // Copies the row's current values back into this object and detaches it from the store, before the row is removed.
+    void unbind() {
+        if (store == null) {
+            return;
+        }
+        mass = store.getMass(id);
+        radius = store.getRadius(id);
+        orbitalRadius = store.getOrbitalRadius(id);
+        currentTheta = store.getCurrentTheta(id);
+        orbitalPeriod = store.getOrbitalPeriod(id);
+        orbitCenterMass = store.getCentralMass(id);
+        store = null;
+        id = -1;
+    }
+
+    // Follows the row to its new id after the store moved it (see BodyStore.swapRemove).
+    void relocate(int id) {
+        this.id = id;
+    }
+
+    // Returns the store this body is a view over, or null when the body is not part of a system.
+    BodyStore getStore() {
+        return store;
+    }
+
+    // Returns the body id within its store, or -1 when the body is not part of a system.
+    public int getId() {
+        return id;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    // Renaming a body that belongs to a system goes through SolarSystem.renameBody, which keeps its name index current.
+    public void setName(String name) {
+        if (store != null) {
+            throw new IllegalStateException(this.name + " belongs to a system; rename it with SolarSystem.renameBody");
+        }
+        this.name = name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    // Likewise, a registered body changes category through SolarSystem.setBodyCategory.
+    public void setCategory(String category) {
+        if (store != null) {
+            throw new IllegalStateException(name + " belongs to a system; change its category with SolarSystem.setBodyCategory");
+        }
+        this.category = category;
+    }
+
+    // Sets the name and category without the registration check; only SolarSystem calls these, after updating its indexes.
+    void assignName(String name) {
+        this.name = name;
+    }
+
+    void assignCategory(String category) {
+        this.category = category;
+    }
+
+    public double getMass() {
+        return store != null ? store.getMass(id) : mass;
+    }
+
+    public void setMass(double mass) {
+        if (store != null) {
+            store.setMass(id, mass);
+        } else {
+            this.mass = mass;
+        }
+    }
+
+    public double getRadius() {
+        return store != null ? store.getRadius(id) : radius;
+    }
+
+    public void setRadius(double radius) {
+        if (store != null) {
+            store.setRadius(id, radius);
+        } else {
+            this.radius = radius;
+        }
+    }
+
+    public double getOrbitalRadius() {
+        return store != null ? store.getOrbitalRadius(id) : orbitalRadius;
+    }
+
+    public void setOrbitalRadius(double orbitalRadius) {
+        if (store != null) {
+            store.setOrbitalRadius(id, orbitalRadius);
+        } else {
+            this.orbitalRadius = orbitalRadius;
+        }
+    }
+
+    public double getCurrentTheta() {
+        return store != null ? store.getCurrentTheta(id) : currentTheta;
+    }
+
+    // Ensures theta stays within 0 to 2*PI radians.
+    public void setCurrentTheta(double currentTheta) {
+        if (store != null) {
+            store.setCurrentTheta(id, currentTheta);
+        } else {
+            this.currentTheta = currentTheta % (2 * Math.PI);
+        }
+    }
+
+    public double getOrbitalPeriod() {
+        return store != null ? store.getOrbitalPeriod(id) : orbitalPeriod;
+    }
+
+    public void setOrbitalPeriod(double orbitalPeriod) {
+        if (store != null) {
+            store.setOrbitalPeriod(id, orbitalPeriod);
+        } else {
+            this.orbitalPeriod = orbitalPeriod;
+        }
+    }
+
+    public double getOrbitCenterMass() {
+        return store != null ? store.getCentralMass(id) : orbitCenterMass;
+    }
+
+    // Orbits a body of this mass on a circle of orbitalRadius, with omega = sqrt(G*M/r) / r, instead of
+    // following orbitalPeriod. The period is derived when the body is registered with a SolarSystem.
+    public void setOrbitCenterMass(double orbitCenterMass) {
+        if (store != null) {
+            store.setCentralMass(id, orbitCenterMass);
+        } else {
+            this.orbitCenterMass = orbitCenterMass;
+        }
+    }
+
+    // Angular speed along the orbit: from the period if there is one, else from the central mass.
+    public double getAngularVelocity() {
+        double orbitalPeriod = getOrbitalPeriod();
+        if (orbitalPeriod > 0) {
+            return (2 * Math.PI) / orbitalPeriod;
+        }
+        double centerMass = getOrbitCenterMass();
+        double r = getOrbitalRadius();
+        return centerMass > 0 && r > 0 ? Math.sqrt(G * centerMass / r) / r : 0.0;
+    }
+
+    // Absolute position in the plane of the system, resolved through the orbit tree once in a SolarSystem.
+    public double getX() {
+        return store != null ? store.getX(id) : getOrbitalRadius() * Math.cos(getCurrentTheta());
+    }
+
+    public double getY() {
+        return store != null ? store.getY(id) : getOrbitalRadius() * Math.sin(getCurrentTheta());
+    }
+
+    // Calculates the density.
+    public double getDensity() {
+        double radius = getRadius();
+        if (radius <= 0) {
+            return 0.0;
+        }
+        double volume = (4.0 / 3.0) * Math.PI * Math.pow(radius, 3);
+        return getMass() / volume;
+    }
+
+    // Calculates surface gravity.
+    public double getSurfaceGravity() {
+        double radius = getRadius();
+        if (radius <= 0) {
+            return 0.0;
+        }
+        return (G * getMass()) / Math.pow(radius, 2);
+    }
+
+    // Simulates orbital revolution.
+    public void revolve(double deltaTime) {
+        double angularSpeed = getAngularVelocity();
+        if (angularSpeed > 0) {
+            double deltaTheta = angularSpeed * deltaTime;
+            setCurrentTheta(getCurrentTheta() + deltaTheta);
+        }
+    }
+
+    // Provides formatted coordinates.
+    public String getCoordinates() {
+        return "(" + RADIUS_FORMAT.get().format(getOrbitalRadius()) + " m, " + THETA_FORMAT.get().format(getCurrentTheta()) + " rad)";
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + category + ")";
+    }
+}
@@ -0,0 +1,39 @@
+package celestial;
+
+public class CelestialSimulation {
+
+    // Earth and Moon on circular orbits derived from their central masses, omega = sqrt(G*M/r) / r.
+    // Uses the body model and SolarSystem shared with Main; the orbits are moved by the circular-by-mass propagator.
+    public static void main(String[] args) {
+        double massOfSun = 1.989e30;    // kg
+        double massOfEarth = 5.972e24;  // kg
+
+        Star sun = new Star("Sun", massOfSun, 6.96340e8, 5778.0, "G2V");
+        Planet earth = new Planet("Earth", massOfEarth, 6.371e6, 1.496e11, 0.0, 1, false, true); // 1 AU
+        earth.setOrbitCenterMass(massOfSun);
+        Moon moon = new Moon("Moon", 7.342e22, 1.7374e6, 3.844e8, 0.0, "Earth", true); // Moon's orbit
+        moon.setOrbitCenterMass(massOfEarth);
+
+        SolarSystem system = new SolarSystem(sun);
+        system.setQuiet(true);
+        system.addBody(earth);
+        system.addBody(moon);
+
+        System.out.println(earth);
+        System.out.println(moon);
+
+        double time = 86400; // 1 day in seconds
+
+        system.runSimulation(time, time);
+        // One line per body for the whole run; the propagators themselves never print.
+        for (CelestialBody body : new CelestialBody[] {earth, moon}) {
+            System.out.printf("%s revolved for %.0f seconds. New θ = %.3fπ%n",
+                              body.getName(), time, body.getCurrentTheta() / Math.PI);
+        }
+
+        System.out.println(earth);
+        System.out.println(moon);
+
+        moon.exertTidalInfluence();
+    }
+}
@@ -0,0 +1,12 @@
+package celestial;
+
+import static celestial.Main.G;
+
+// Circular motion around a given central mass, omega = sqrt(G*M/r) / r. Omega is worked out once at
+// registration and stored as the row's period, after which the row moves exactly like a by-period one.
+class CircularMassPropagator extends CircularPeriodPropagator {
+    @Override
+    public void register(BodyStore store, int id) {
+        store.deriveCircularPeriod(id);
+    }
+}
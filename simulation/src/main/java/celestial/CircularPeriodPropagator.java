@@ -0,0 +1,14 @@
+package celestial;
+
+// Uniform circular motion at the row's stored angular velocity, 2*PI / orbitalPeriod.
+class CircularPeriodPropagator implements Propagator {
+    @Override
+    public void advance(BodyStore store, int[] ids, int from, int to, double deltaTime) {
+        store.propagateRows(ids, from, to, deltaTime);
+    }
+
+    @Override
+    public void advanceTo(BodyStore store, int[] ids, int from, int to, double targetTime) {
+        store.propagateRowsTo(ids, from, to, targetTime);
+    }
+}
@@ -0,0 +1,236 @@
+package celestial;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Finds touching bodies with sweep-and-prune on x extents [x - r, x + r], then an exact circle test.
+// The sweep order is kept between calls and repaired by insertion sort, which is close to linear while
+// bodies move a little per step; a large reshuffle falls back to a full merge sort. Also holds the policy
+// configuration and listeners a SolarSystem applies to what it finds.
+class CollisionDetector {
+    private CollisionPolicy defaultPolicy;
+    private final Map<String, CollisionPolicy> categoryPolicies;
+    private final List<CollisionListener> listeners;
+    private int n;
+    private double[] x;
+    private double[] y;
+    private double[] radius;
+    private double[] lower;
+    private int[] order;
+    private int[] scratch;
+    private int orderedCount;
+    private long candidatePairs;
+    private long contacts;
+    private long merged;
+    private long removed;
+
+    // Constructor for CollisionDetector.
+    public CollisionDetector(CollisionPolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+        this.categoryPolicies = new HashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.n = 0;
+        this.x = new double[0];
+        this.y = new double[0];
+        this.radius = new double[0];
+        this.lower = new double[0];
+        this.order = new int[0];
+        this.scratch = new int[0];
+        this.orderedCount = 0;
+    }
+
+    public CollisionPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    public void setDefaultPolicy(CollisionPolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    // Overrides the policy for collisions whose lighter body has the given category; null restores the default.
+    public void setPolicy(String category, CollisionPolicy policy) {
+        if (policy != null) {
+            categoryPolicies.put(category, policy);
+        } else {
+            categoryPolicies.remove(category);
+        }
+    }
+
+    public CollisionPolicy getPolicy(String category) {
+        return categoryPolicies.getOrDefault(category, defaultPolicy);
+    }
+
+    public void addListener(CollisionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CollisionListener listener) {
+        listeners.remove(listener);
+    }
+
+    void fire(CollisionEvent event) {
+        for (CollisionListener listener : listeners) {
+            listener.onCollision(event);
+        }
+    }
+
+    void countResolution(CollisionPolicy policy) {
+        if (policy == CollisionPolicy.MERGE) {
+            merged++;
+        } else if (policy == CollisionPolicy.REMOVE) {
+            removed++;
+        }
+    }
+
+    // Pairs that overlapped on the sweep axis and went to the exact test, over all calls.
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    public long getContacts() {
+        return contacts;
+    }
+
+    public long getMerged() {
+        return merged;
+    }
+
+    public long getRemoved() {
+        return removed;
+    }
+
+    // Finds every touching pair of store rows; returns how many were visited.
+    public int detect(BodyStore store, SpatialGrid.PairVisitor visitor) {
+        store.updatePositions();
+        int count = store.size();
+        resize(count);
+        for (int i = 0; i < count; i++) {
+            x[i] = store.getX(i);
+            y[i] = store.getY(i);
+            radius[i] = store.getRadius(i);
+        }
+        return sweep(visitor);
+    }
+
+    // Same, with positions from an N-body integrator and radii from the store it was loaded from.
+    public int detect(NBodyIntegrator integrator, BodyStore store, SpatialGrid.PairVisitor visitor) {
+        int count = integrator.getBodyCount();
+        resize(count);
+        for (int i = 0; i < count; i++) {
+            x[i] = integrator.getX(i);
+            y[i] = integrator.getY(i);
+            radius[i] = store.getRadius(i);
+        }
+        return sweep(visitor);
+    }
+
+    // Keeps the previous order for ids that still exist and appends new ones at the end.
+    private void resize(int count) {
+        if (x.length < count) {
+            int capacity = Math.max(count, x.length * 2);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            radius = Arrays.copyOf(radius, capacity);
+            lower = Arrays.copyOf(lower, capacity);
+            order = Arrays.copyOf(order, capacity);
+            scratch = new int[capacity];
+        }
+        if (count < orderedCount) {
+            int kept = 0;
+            for (int k = 0; k < orderedCount; k++) {
+                if (order[k] < count) {
+                    order[kept++] = order[k];
+                }
+            }
+            orderedCount = kept;
+        }
+        for (int id = orderedCount; id < count; id++) {
+            order[id] = id;
+        }
+        orderedCount = count;
+        n = count;
+    }
+
+    private int sweep(SpatialGrid.PairVisitor visitor) {
+        for (int i = 0; i < n; i++) {
+            lower[i] = x[i] - radius[i];
+        }
+        sortOrder();
+        int found = 0;
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            double upper = x[i] + radius[i];
+            for (int m = k + 1; m < n; m++) {
+                int j = order[m];
+                if (lower[j] > upper) {
+                    break;
+                }
+                double reach = radius[i] + radius[j];
+                double dy = y[j] - y[i];
+                if (Math.abs(dy) > reach) {
+                    continue;
+                }
+                candidatePairs++;
+                double dx = x[j] - x[i];
+                double d2 = dx * dx + dy * dy;
+                if (d2 <= reach * reach) {
+                    found++;
+                    visitor.visit(Math.min(i, j), Math.max(i, j), Math.sqrt(d2));
+                }
+            }
+        }
+        contacts += found;
+        return found;
+    }
+
+    // Insertion sort of order by lower bound, giving up after a few shifts per body.
+    private void sortOrder() {
+        long budget = 4L * n + 16;
+        for (int k = 1; k < n; k++) {
+            int id = order[k];
+            double key = lower[id];
+            int m = k - 1;
+            while (m >= 0 && lower[order[m]] > key) {
+                order[m + 1] = order[m];
+                m--;
+                if (--budget < 0) {
+                    order[m + 1] = id;
+                    mergeSort();
+                    return;
+                }
+            }
+            order[m + 1] = id;
+        }
+    }
+
+    // Bottom-up merge sort of order by lower bound; stable, so equal keys keep their previous order.
+    private void mergeSort() {
+        int[] source = order;
+        int[] target = scratch;
+        for (int width = 1; width < n; width *= 2) {
+            for (int start = 0; start < n; start += 2 * width) {
+                int mid = Math.min(start + width, n);
+                int end = Math.min(start + 2 * width, n);
+                int a = start;
+                int b = mid;
+                for (int k = start; k < end; k++) {
+                    if (a < mid && (b >= end || lower[source[a]] <= lower[source[b]])) {
+                        target[k] = source[a++];
+                    } else {
+                        target[k] = source[b++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != order) {
+            scratch = order;
+            order = source;
+        }
+    }
+}
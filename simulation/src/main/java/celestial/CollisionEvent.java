@@ -0,0 +1,73 @@
+package celestial;
+
+// One contact found by the collision stage, as seen at the end of the step it happened in.
+class CollisionEvent {
+    private final double time;
+    private final String survivorName;
+    private final String otherName;
+    private final int survivorId;
+    private final int otherId;
+    private final double survivorMass;
+    private final double otherMass;
+    private final double distance;
+    private final CollisionPolicy policy;
+
+    // Constructor for CollisionEvent.
+    public CollisionEvent(double time, String survivorName, String otherName, int survivorId, int otherId,
+                          double survivorMass, double otherMass, double distance, CollisionPolicy policy) {
+        this.time = time;
+        this.survivorName = survivorName;
+        this.otherName = otherName;
+        this.survivorId = survivorId;
+        this.otherId = otherId;
+        this.survivorMass = survivorMass;
+        this.otherMass = otherMass;
+        this.distance = distance;
+        this.policy = policy;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    // The heavier body, which always outlives the collision.
+    public String getSurvivorName() {
+        return survivorName;
+    }
+
+    // The lighter body, merged or removed according to the policy.
+    public String getOtherName() {
+        return otherName;
+    }
+
+    // Ids at the time of the collision; removals later in the same step may reuse them.
+    public int getSurvivorId() {
+        return survivorId;
+    }
+
+    public int getOtherId() {
+        return otherId;
+    }
+
+    public double getSurvivorMass() {
+        return survivorMass;
+    }
+
+    public double getOtherMass() {
+        return otherMass;
+    }
+
+    // Centre-to-centre distance at detection, at most the sum of the radii.
+    public double getDistance() {
+        return distance;
+    }
+
+    public CollisionPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("t=%.0f s: %s hit %s (%s)", time, otherName, survivorName, policy);
+    }
+}
@@ -0,0 +1,6 @@
+package celestial;
+
+// Receives every collision the stage handles, after its policy has been applied.
+interface CollisionListener {
+    void onCollision(CollisionEvent event);
+}
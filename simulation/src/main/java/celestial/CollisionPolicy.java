@@ -0,0 +1,11 @@
+package celestial;
+
+// What a SolarSystem does with two bodies found touching.
+enum CollisionPolicy {
+    // The lighter body is absorbed by the heavier: masses and volumes add (and momentum, in NBODY mode).
+    MERGE,
+    // The lighter body is destroyed; the heavier one is unchanged.
+    REMOVE,
+    // Both bodies are left alone; the collision is only reported.
+    RECORD
+}
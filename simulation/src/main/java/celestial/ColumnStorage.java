@@ -0,0 +1,280 @@
+package celestial;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+// Where a BodyStore keeps its per-body columns. HEAP uses plain arrays. OFF_HEAP uses direct buffers outside the
+// Java heap, for catalogs too large to keep as arrays without long GC pauses: the GC only ever sees the few buffer
+// objects. Direct buffers count against -XX:MaxDirectMemorySize, which defaults to the maximum heap size, so a JVM
+// holding a large OFF_HEAP store should set it explicitly; allocations past it fail with OutOfMemoryError. Direct
+// buffers cannot be freed on demand: their memory goes back only once the buffers are collected.
+enum ColumnStorage {
+    HEAP {
+        @Override
+        DoubleColumn doubles(int capacity) {
+            return new HeapDoubles(new double[checkCapacity(capacity)]);
+        }
+
+        @Override
+        IntColumn ints(int capacity) {
+            return new HeapInts(new int[checkCapacity(capacity)]);
+        }
+
+        @Override
+        int maxCapacity() {
+            return Integer.MAX_VALUE - 8;
+        }
+    },
+    OFF_HEAP {
+        @Override
+        DoubleColumn doubles(int capacity) {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(checkCapacity(capacity) * Double.BYTES);
+            return new DirectDoubles(bytes.order(ByteOrder.nativeOrder()).asDoubleBuffer());
+        }
+
+        @Override
+        IntColumn ints(int capacity) {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(checkCapacity(capacity) * Integer.BYTES);
+            return new DirectInts(bytes.order(ByteOrder.nativeOrder()).asIntBuffer());
+        }
+
+        @Override
+        int maxCapacity() {
+            return Integer.MAX_VALUE / Double.BYTES;
+        }
+    };
+
+    // Returns a zeroed column of the given number of rows.
+    abstract DoubleColumn doubles(int capacity);
+
+    abstract IntColumn ints(int capacity);
+
+    // Most rows a single column of this storage can hold.
+    abstract int maxCapacity();
+
+    int checkCapacity(int capacity) {
+        if (capacity < 0 || capacity > maxCapacity()) {
+            throw new IllegalArgumentException("Capacity must be in [0, " + maxCapacity() + "]: " + capacity);
+        }
+        return capacity;
+    }
+
+    private static final class HeapDoubles implements DoubleColumn {
+        private final double[] values;
+
+        HeapDoubles(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public double get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, double value) {
+            values[index] = value;
+        }
+
+        @Override
+        public int capacity() {
+            return values.length;
+        }
+
+        @Override
+        public DoubleColumn resize(int capacity) {
+            return new HeapDoubles(Arrays.copyOf(values, HEAP.checkCapacity(capacity)));
+        }
+
+        @Override
+        public void copyTo(int from, double[] destination, int destinationFrom, int length) {
+            System.arraycopy(values, from, destination, destinationFrom, length);
+        }
+
+        @Override
+        public void copyFrom(double[] source, int sourceFrom, int from, int length) {
+            System.arraycopy(source, sourceFrom, values, from, length);
+        }
+
+        @Override
+        public void copyTo(int from, DoubleColumn destination, int destinationFrom, int length) {
+            if (destination instanceof HeapDoubles heap) {
+                System.arraycopy(values, from, heap.values, destinationFrom, length);
+            } else {
+                destination.copyFrom(values, from, destinationFrom, length);
+            }
+        }
+
+        @Override
+        public void fill(int from, int to, double value) {
+            Arrays.fill(values, from, to, value);
+        }
+
+        @Override
+        public void write(DoubleBuffer out, int length) {
+            out.put(values, 0, length);
+        }
+
+        @Override
+        public void read(DoubleBuffer in, int length) {
+            in.get(values, 0, length);
+        }
+    }
+
+    private static final class HeapInts implements IntColumn {
+        private final int[] values;
+
+        HeapInts(int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, int value) {
+            values[index] = value;
+        }
+
+        @Override
+        public int capacity() {
+            return values.length;
+        }
+
+        @Override
+        public IntColumn resize(int capacity) {
+            return new HeapInts(Arrays.copyOf(values, HEAP.checkCapacity(capacity)));
+        }
+
+        @Override
+        public void copyTo(int from, int[] destination, int destinationFrom, int length) {
+            System.arraycopy(values, from, destination, destinationFrom, length);
+        }
+
+        @Override
+        public void copyTo(int from, IntColumn destination, int destinationFrom, int length) {
+            if (destination instanceof HeapInts heap) {
+                System.arraycopy(values, from, heap.values, destinationFrom, length);
+            } else {
+                IntColumn.super.copyTo(from, destination, destinationFrom, length);
+            }
+        }
+    }
+
+    // Absolute get and put only, so the buffer's position never changes and concurrent range kernels are safe.
+    private static final class DirectDoubles implements DoubleColumn {
+        private final DoubleBuffer buffer;
+
+        DirectDoubles(DoubleBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public double get(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public void set(int index, double value) {
+            buffer.put(index, value);
+        }
+
+        @Override
+        public int capacity() {
+            return buffer.capacity();
+        }
+
+        @Override
+        public DoubleColumn resize(int capacity) {
+            DirectDoubles resized = (DirectDoubles) OFF_HEAP.doubles(capacity);
+            resized.buffer.put(0, buffer, 0, Math.min(capacity, buffer.capacity()));
+            return resized;
+        }
+
+        @Override
+        public void copyTo(int from, double[] destination, int destinationFrom, int length) {
+            buffer.get(from, destination, destinationFrom, length);
+        }
+
+        @Override
+        public void copyFrom(double[] source, int sourceFrom, int from, int length) {
+            buffer.put(from, source, sourceFrom, length);
+        }
+
+        @Override
+        public void copyTo(int from, DoubleColumn destination, int destinationFrom, int length) {
+            if (destination instanceof DirectDoubles direct) {
+                direct.buffer.put(destinationFrom, buffer, from, length);
+            } else {
+                DoubleColumn.super.copyTo(from, destination, destinationFrom, length);
+            }
+        }
+
+        @Override
+        public void fill(int from, int to, double value) {
+            for (int i = from; i < to; i++) {
+                buffer.put(i, value);
+            }
+        }
+
+        @Override
+        public void write(DoubleBuffer out, int length) {
+            out.put(buffer.slice(0, length));
+        }
+
+        @Override
+        public void read(DoubleBuffer in, int length) {
+            buffer.put(0, in, in.position(), length);
+            in.position(in.position() + length);
+        }
+    }
+
+    private static final class DirectInts implements IntColumn {
+        private final IntBuffer buffer;
+
+        DirectInts(IntBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int get(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public void set(int index, int value) {
+            buffer.put(index, value);
+        }
+
+        @Override
+        public int capacity() {
+            return buffer.capacity();
+        }
+
+        @Override
+        public IntColumn resize(int capacity) {
+            DirectInts resized = (DirectInts) OFF_HEAP.ints(capacity);
+            resized.buffer.put(0, buffer, 0, Math.min(capacity, buffer.capacity()));
+            return resized;
+        }
+
+        @Override
+        public void copyTo(int from, int[] destination, int destinationFrom, int length) {
+            buffer.get(from, destination, destinationFrom, length);
+        }
+
+        @Override
+        public void copyTo(int from, IntColumn destination, int destinationFrom, int length) {
+            if (destination instanceof DirectInts direct) {
+                direct.buffer.put(destinationFrom, buffer, from, length);
+            } else {
+                IntColumn.super.copyTo(from, destination, destinationFrom, length);
+            }
+        }
+    }
+}
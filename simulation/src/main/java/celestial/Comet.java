@@ -0,0 +1,86 @@
+package celestial;
+
+// Child Class: Represents a Comet.
+class Comet extends CelestialBody {
+    private double eccentricity;
+    private double perihelionDistance;
+
+    // Constructor for Comet.
+    public Comet(String name, double mass, double radius, double eccentricity,
+                 double orbitalPeriod, double perihelionDistance) {
+        super(name, mass, radius);
+        setCategory("comet");
+        this.eccentricity = eccentricity;
+        this.perihelionDistance = perihelionDistance;
+        setOrbitalPeriod(orbitalPeriod);
+        // Comets start at perihelion.
+        setOrbitalRadius(perihelionDistance);
+    }
+
+    @Override
+    void bind(BodyStore store) {
+        super.bind(store);
+        store.setOrbitShape(getId(), eccentricity, perihelionDistance);
+    }
+
+    @Override
+    void unbind() {
+        if (getStore() != null) {
+            eccentricity = getStore().getEccentricity(getId());
+            perihelionDistance = getStore().getPerihelionDistance(getId());
+        }
+        super.unbind();
+    }
+
+    // Getters and Setters for Comet-specific properties
+    public double getEccentricity() {
+        return getStore() != null ? getStore().getEccentricity(getId()) : eccentricity;
+    }
+
+    public void setEccentricity(double eccentricity) {
+        this.eccentricity = eccentricity;
+        if (getStore() != null) {
+            getStore().setOrbitShape(getId(), eccentricity, getPerihelionDistance());
+        }
+    }
+
+    public double getPerihelionDistance() {
+        return getStore() != null ? getStore().getPerihelionDistance(getId()) : perihelionDistance;
+    }
+
+    public void setPerihelionDistance(double perihelionDistance) {
+        this.perihelionDistance = perihelionDistance;
+        if (getStore() != null) {
+            getStore().setOrbitShape(getId(), getEccentricity(), perihelionDistance);
+        }
+    }
+
+    // Simulates motion along the elliptical orbit by solving Kepler's equation.
+    @Override
+    public void revolve(double deltaTime) {
+        double orbitalPeriod = getOrbitalPeriod();
+        if (orbitalPeriod > 0) {
+            double e = getEccentricity();
+            double meanAnomaly = KeplerSolver.meanAnomalyFromTrueAnomaly(getCurrentTheta(), e)
+                    + (2 * Math.PI) / orbitalPeriod * deltaTime;
+            double eccentricAnomaly = KeplerSolver.solve(meanAnomaly, e);
+            setOrbitalRadius(KeplerSolver.radius(getPerihelionDistance(), e, eccentricAnomaly));
+            setCurrentTheta(KeplerSolver.trueAnomaly(eccentricAnomaly, e));
+        }
+    }
+
+    // Describes the orbit's shape.
+    public void describeOrbitShape() {
+        System.out.println(getName() + " has an eccentric orbit with value: " + getEccentricity() + " and perihelion distance " + String.format("%.2E", getPerihelionDistance()) + " m.");
+    }
+
+    // Simulates brightening near a star.
+    public void brightenNearStar() {
+        System.out.println(getName() + " is brightening as it approaches the central star!");
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " with eccentricity " + getEccentricity() + " at " + getCoordinates();
+    }
+}
@@ -0,0 +1,103 @@
+package celestial;
+
+import java.util.Arrays;
+
+import static celestial.Main.G;
+
+// Exact O(N^2) direct summation. Each pair is visited once and applied to both bodies (Newton's third law),
+// and the pair loop is blocked into tiles so both tiles' coordinates stay in cache.
+class DirectForceSolver implements ForceSolver {
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    private final int tileSize;
+
+    public DirectForceSolver() {
+        this(DEFAULT_TILE_SIZE);
+    }
+
+    public DirectForceSolver(int tileSize) {
+        this.tileSize = Math.max(tileSize, 1);
+    }
+
+    @Override
+    public void computeAccelerations(double[] x, double[] y, double[] z, double[] mass, int n, double softening,
+                                     double[] ax, double[] ay, double[] az) {
+        Arrays.fill(ax, 0, n, 0.0);
+        Arrays.fill(ay, 0, n, 0.0);
+        Arrays.fill(az, 0, n, 0.0);
+        final double eps2 = softening * softening;
+        for (int iTile = 0; iTile < n; iTile += tileSize) {
+            int iEnd = Math.min(iTile + tileSize, n);
+            for (int jTile = iTile; jTile < n; jTile += tileSize) {
+                int jEnd = Math.min(jTile + tileSize, n);
+                for (int i = iTile; i < iEnd; i++) {
+                    double xi = x[i];
+                    double yi = y[i];
+                    double zi = z[i];
+                    double mi = mass[i];
+                    double axi = 0.0;
+                    double ayi = 0.0;
+                    double azi = 0.0;
+                    for (int j = jTile == iTile ? i + 1 : jTile; j < jEnd; j++) {
+                        double dx = x[j] - xi;
+                        double dy = y[j] - yi;
+                        double dz = z[j] - zi;
+                        double r2 = dx * dx + dy * dy + dz * dz + eps2;
+                        if (r2 == 0.0) {
+                            continue;
+                        }
+                        double invR3 = 1.0 / (r2 * Math.sqrt(r2));
+                        double si = mass[j] * invR3;
+                        double sj = mi * invR3;
+                        axi += dx * si;
+                        ayi += dy * si;
+                        azi += dz * si;
+                        ax[j] -= dx * sj;
+                        ay[j] -= dy * sj;
+                        az[j] -= dz * sj;
+                    }
+                    ax[i] += axi;
+                    ay[i] += ayi;
+                    az[i] += azi;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            ax[i] *= G;
+            ay[i] *= G;
+            az[i] *= G;
+        }
+    }
+
+    // Sums over all sources for each target; without the symmetric update this is O(targets * N).
+    @Override
+    public void computeAccelerations(double[] x, double[] y, double[] z, double[] mass, int n, double softening,
+                                     int[] targets, int targetCount, double[] ax, double[] ay, double[] az) {
+        final double eps2 = softening * softening;
+        for (int k = 0; k < targetCount; k++) {
+            int i = targets[k];
+            double xi = x[i];
+            double yi = y[i];
+            double zi = z[i];
+            double axi = 0.0;
+            double ayi = 0.0;
+            double azi = 0.0;
+            for (int j = 0; j < n; j++) {
+                double dx = x[j] - xi;
+                double dy = y[j] - yi;
+                double dz = z[j] - zi;
+                double r2 = dx * dx + dy * dy + dz * dz + eps2;
+                if (j == i || r2 == 0.0) {
+                    continue;
+                }
+                double s = mass[j] / (r2 * Math.sqrt(r2));
+                axi += dx * s;
+                ayi += dy * s;
+                azi += dz * s;
+            }
+            ax[i] = G * axi;
+            ay[i] = G * ayi;
+            az[i] = G * azi;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package celestial;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static celestial.Main.AU_TO_METERS;
+
+// Runs the N-body problem of a SolarSystem on several workers, one per orbital band, with this object as
+// coordinator. Bands are cut at quantiles of the bodies' distance from the central star, so every worker
+// starts with about the same number of bodies. Each step the coordinator sends every worker its ghosts
+// (the neighbouring bands' bodies within haloWidth of the shared edge), one point mass per band further in,
+// and the bodies that moved into its band; it then waits for every report before the next step, which is
+// the step barrier. The central star stays fixed at the origin and is known to every worker. The system's
+// bodies are read by start and written back at the end of each run; other system features (propagators,
+// collisions, subscriptions) are not applied to a distributed run.
+class DistributedSimulation implements AutoCloseable {
+    // Work done by one worker so far, for load-balance reports.
+    static class WorkerLoad {
+        private final int index;
+        private final double inner;
+        private final double outer;
+        private int bodies;
+        private long steps;
+        private long finishes;
+        private long computeNanos;
+        private long maxStepNanos;
+
+        // Constructor for WorkerLoad.
+        WorkerLoad(int index, double inner, double outer) {
+            this.index = index;
+            this.inner = inner;
+            this.outer = outer;
+        }
+
+        // Records a worker's reply to a request of the given type. Only STEP replies count as steps; the closing
+        // half kick of a FINISH is counted on its own but still adds to the compute time.
+        void record(int bodies, long nanos, int requestType) {
+            this.bodies = bodies;
+            if (requestType == DomainWorker.STEP) {
+                steps++;
+                computeNanos += nanos;
+                maxStepNanos = Math.max(maxStepNanos, nanos);
+            } else if (requestType == DomainWorker.FINISH) {
+                finishes++;
+                computeNanos += nanos;
+            }
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public double getInner() {
+            return inner;
+        }
+
+        public double getOuter() {
+            return outer;
+        }
+
+        // Bodies in the band after the latest step.
+        public int getBodies() {
+            return bodies;
+        }
+
+        // Full steps; a run of n steps reports n, whatever it took to finish.
+        public long getSteps() {
+            return steps;
+        }
+
+        // Closing half kicks, one per run.
+        public long getFinishes() {
+            return finishes;
+        }
+
+        public long getComputeNanos() {
+            return computeNanos;
+        }
+
+        public long getMaxStepNanos() {
+            return maxStepNanos;
+        }
+    }
+
+    // The coordinator's copy of one worker's latest report.
+    private static class Report {
+        private double mass;
+        private double centerX;
+        private double centerY;
+        private double[] innerGhosts = new double[0];
+        private int innerGhostCount;
+        private double[] outerGhosts = new double[0];
+        private int outerGhostCount;
+        // Bodies that left the band: id, mass, x, y, vx, vy each.
+        private ByteBuffer leaving = ByteBuffer.allocate(1024);
+    }
+
+    private final SolarSystem system;
+    private final int workerCount;
+    private final double haloWidth;
+    private final double softening;
+    private final double openingAngle;
+    private Transport[] transports;
+    private double[] bounds;
+    private WorkerLoad[] loads;
+    private Report[] reports;
+    private ByteBuffer out;
+    private double[] stateX;
+    private double[] stateY;
+    private long exchangeNanos;
+
+    // Constructor for DistributedSimulation. An openingAngle above 0 makes workers use Barnes-Hut, 0 direct summation.
+    public DistributedSimulation(SolarSystem system, int workerCount, double haloWidth, double softening,
+                                 double openingAngle) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be at least 1");
+        }
+        this.system = system;
+        this.workerCount = workerCount;
+        this.haloWidth = haloWidth;
+        this.softening = softening;
+        this.openingAngle = openingAngle;
+        this.out = ByteBuffer.allocate(1 << 16);
+    }
+
+    // Splits the system's orbiting bodies into bands, launches one worker per band and sends each its bodies.
+    public void start(WorkerLauncher launcher) throws IOException {
+        if (transports != null) {
+            throw new IllegalStateException("Already started");
+        }
+        system.drainPendingBatches();
+        system.ensurePropagatorGroups();
+        BodyStore store = system.getStore();
+        int size = store.size();
+        stateX = new double[size];
+        stateY = new double[size];
+        double[] vx = new double[size];
+        double[] vy = new double[size];
+        store.computeCartesianState(stateX, stateY, vx, vy);
+        int first = system.getCentralStar() != null ? 1 : 0;
+        double starMass = first == 1 ? store.getMass(0) : 0.0;
+        double[] radii = new double[size - first];
+        for (int id = first; id < size; id++) {
+            radii[id - first] = Math.hypot(stateX[id], stateY[id]);
+        }
+        double[] sorted = radii.clone();
+        Arrays.sort(sorted);
+        bounds = new double[workerCount + 1];
+        for (int k = 1; k < workerCount; k++) {
+            bounds[k] = sorted.length > 0 ? sorted[(int) ((long) k * sorted.length / workerCount)] : k;
+        }
+        bounds[workerCount] = Double.POSITIVE_INFINITY;
+        loads = new WorkerLoad[workerCount];
+        reports = new Report[workerCount];
+        for (int k = 0; k < workerCount; k++) {
+            loads[k] = new WorkerLoad(k, bounds[k], bounds[k + 1]);
+            reports[k] = new Report();
+        }
+        transports = launcher.launch(workerCount);
+        for (int k = 0; k < workerCount; k++) {
+            out.clear();
+            out = DomainWorker.ensureRemaining(out, 60);
+            out.putInt(DomainWorker.INIT);
+            out.putDouble(openingAngle);
+            out.putDouble(softening);
+            out.putDouble(starMass);
+            out.putDouble(bounds[k]);
+            out.putDouble(bounds[k + 1]);
+            out.putDouble(haloWidth);
+            int countAt = out.position();
+            out.putInt(0);
+            int count = 0;
+            for (int id = first; id < size; id++) {
+                if (bandOf(radii[id - first]) == k) {
+                    out = DomainWorker.ensureRemaining(out, 44);
+                    out.putInt(id);
+                    out.putDouble(store.getMass(id));
+                    out.putDouble(stateX[id]);
+                    out.putDouble(stateY[id]);
+                    out.putDouble(vx[id]);
+                    out.putDouble(vy[id]);
+                    count++;
+                }
+            }
+            out.putInt(countAt, count);
+            out.flip();
+            transports[k].send(out);
+        }
+        for (int k = 0; k < workerCount; k++) {
+            readReply(k, transports[k].receive(), DomainWorker.INIT);
+        }
+    }
+
+    private int bandOf(double r) {
+        int k = Arrays.binarySearch(bounds, 0, workerCount, r);
+        k = k >= 0 ? k : -k - 2;
+        return Math.max(0, Math.min(k, workerCount - 1));
+    }
+
+    // Steps every band forward by timeStep until totalTime has elapsed, then writes the positions back to the system.
+    public void run(double totalTime, double timeStep) throws IOException {
+        if (transports == null) {
+            throw new IllegalStateException("Not started");
+        }
+        int steps = 0;
+        for (double t = 0; t < totalTime; t += timeStep) {
+            exchange(DomainWorker.STEP, timeStep, steps == 0 ? 0.5 : 1.0);
+            steps++;
+        }
+        if (steps == 0) {
+            return;
+        }
+        exchange(DomainWorker.FINISH, timeStep, 0.5);
+        BodyStore store = system.getStore();
+        store.applyCartesianPositions(stateX, stateY);
+        store.setTime(store.getTime() + steps * timeStep);
+        store.rebaseEpochs(0, store.size());
+        system.updateSpatialIndex();
+    }
+
+    // Sends every worker its next message, then waits for all of their replies.
+    private void exchange(int type, double deltaTime, double kickFactor) throws IOException {
+        long start = System.nanoTime();
+        for (int k = 0; k < workerCount; k++) {
+            out.clear();
+            out = DomainWorker.ensureRemaining(out, 32);
+            out.putInt(type);
+            out.putDouble(deltaTime);
+            out.putDouble(kickFactor);
+            putArrivals(k);
+            putSources(k);
+            out.flip();
+            transports[k].send(out);
+        }
+        for (Report report : reports) {
+            report.leaving.clear();
+        }
+        for (int k = 0; k < workerCount; k++) {
+            readReply(k, transports[k].receive(), type);
+        }
+        exchangeNanos += System.nanoTime() - start;
+    }
+
+    // The bodies that other workers reported leaving for band k.
+    private void putArrivals(int k) {
+        out = DomainWorker.ensureRemaining(out, 4);
+        int countAt = out.position();
+        out.putInt(0);
+        int count = 0;
+        for (Report report : reports) {
+            ByteBuffer leaving = report.leaving.duplicate().flip();
+            while (leaving.hasRemaining()) {
+                int recordStart = leaving.position();
+                leaving.position(recordStart + 12);
+                double bx = leaving.getDouble();
+                double by = leaving.getDouble();
+                leaving.position(recordStart + 44);
+                if (bandOf(Math.hypot(bx, by)) == k) {
+                    out = DomainWorker.ensureRemaining(out, 44);
+                    out.put(leaving.duplicate().position(recordStart).limit(recordStart + 44));
+                    count++;
+                }
+            }
+        }
+        out.putInt(countAt, count);
+    }
+
+    // Ghosts from both neighbours, then one point mass per band further in. The inner neighbour's point mass
+    // leaves out the bodies already sent as ghosts.
+    private void putSources(int k) {
+        Report below = k > 0 ? reports[k - 1] : null;
+        Report above = k + 1 < workerCount ? reports[k + 1] : null;
+        int ghostCount = (below != null ? below.outerGhostCount : 0) + (above != null ? above.innerGhostCount : 0);
+        out = DomainWorker.ensureRemaining(out, 8 + (ghostCount + k) * 24);
+        out.putInt(ghostCount);
+        int farCountAt = out.position();
+        out.putInt(0);
+        if (below != null) {
+            putTriples(below.outerGhosts, below.outerGhostCount);
+        }
+        if (above != null) {
+            putTriples(above.innerGhosts, above.innerGhostCount);
+        }
+        int farCount = 0;
+        for (int d = 0; d < k; d++) {
+            Report report = reports[d];
+            double m = report.mass;
+            double sumX = report.mass * report.centerX;
+            double sumY = report.mass * report.centerY;
+            if (d == k - 1) {
+                for (int g = 0; g < report.outerGhostCount; g++) {
+                    m -= report.outerGhosts[3 * g];
+                    sumX -= report.outerGhosts[3 * g] * report.outerGhosts[3 * g + 1];
+                    sumY -= report.outerGhosts[3 * g] * report.outerGhosts[3 * g + 2];
+                }
+            }
+            if (m > 0) {
+                out.putDouble(m);
+                out.putDouble(sumX / m);
+                out.putDouble(sumY / m);
+                farCount++;
+            }
+        }
+        out.putInt(farCountAt, farCount);
+    }
+
+    private void putTriples(double[] values, int count) {
+        for (int k = 0; k < 3 * count; k++) {
+            out.putDouble(values[k]);
+        }
+    }
+
+    private void readReply(int k, ByteBuffer message, int requestType) throws IOException {
+        int type = message.getInt();
+        long elapsed = message.getLong();
+        Report report = reports[k];
+        if (type == DomainWorker.STATE) {
+            int count = message.getInt();
+            for (int i = 0; i < count; i++) {
+                int id = message.getInt();
+                message.getDouble();
+                stateX[id] = message.getDouble();
+                stateY[id] = message.getDouble();
+                message.getDouble();
+                message.getDouble();
+            }
+            loads[k].record(count, elapsed, requestType);
+            return;
+        }
+        if (type != DomainWorker.REPORT) {
+            throw new IOException("Unexpected message type " + type + " from worker " + k);
+        }
+        int leavingCount = message.getInt();
+        report.leaving.clear();
+        report.leaving = DomainWorker.ensureRemaining(report.leaving, leavingCount * 44);
+        report.leaving.put(message.duplicate().limit(message.position() + leavingCount * 44));
+        message.position(message.position() + leavingCount * 44);
+        int bodies = message.getInt();
+        report.mass = message.getDouble();
+        report.centerX = message.getDouble();
+        report.centerY = message.getDouble();
+        report.innerGhostCount = message.getInt();
+        report.innerGhosts = readTriples(message, report.innerGhosts, report.innerGhostCount);
+        report.outerGhostCount = message.getInt();
+        report.outerGhosts = readTriples(message, report.outerGhosts, report.outerGhostCount);
+        loads[k].record(bodies, elapsed, requestType);
+    }
+
+    private static double[] readTriples(ByteBuffer message, double[] values, int count) {
+        if (values.length < 3 * count) {
+            values = new double[3 * count];
+        }
+        for (int k = 0; k < 3 * count; k++) {
+            values[k] = message.getDouble();
+        }
+        return values;
+    }
+
+    public List<WorkerLoad> getLoads() {
+        return loads != null ? Collections.unmodifiableList(Arrays.asList(loads)) : Collections.emptyList();
+    }
+
+    // Wall time the coordinator spent in step exchanges, barrier waits included.
+    public long getExchangeNanos() {
+        return exchangeNanos;
+    }
+
+    // Per-worker table: band (AU), bodies, steps, total and worst step compute time, share of the total;
+    // then the imbalance, the busiest worker's compute time over the mean.
+    public String formatLoadReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-6s %21s %10s %8s %12s %12s %7s%n",
+                                    "worker", "band (AU)", "bodies", "steps", "compute ms", "max step ms", "share"));
+        long total = 0;
+        long busiest = 0;
+        for (WorkerLoad load : getLoads()) {
+            total += load.getComputeNanos();
+            busiest = Math.max(busiest, load.getComputeNanos());
+        }
+        for (WorkerLoad load : getLoads()) {
+            report.append(String.format("%-6d %10.3f-%10.3f %10d %8d %12.1f %12.2f %6.1f%%%n",
+                                        load.getIndex(), load.getInner() / AU_TO_METERS, load.getOuter() / AU_TO_METERS,
+                                        load.getBodies(), load.getSteps(), load.getComputeNanos() / 1e6,
+                                        load.getMaxStepNanos() / 1e6,
+                                        total > 0 ? 100.0 * load.getComputeNanos() / total : 0.0));
+        }
+        double mean = workerCount > 0 ? (double) total / workerCount : 0.0;
+        report.append(String.format("imbalance %.2f (busiest / mean compute), exchange wall time %.1f ms%n",
+                                    mean > 0 ? busiest / mean : 1.0, exchangeNanos / 1e6));
+        return report.toString();
+    }
+
+    // Stops every worker and closes the transports.
+    @Override
+    public void close() throws IOException {
+        if (transports == null) {
+            return;
+        }
+        IOException failure = null;
+        for (Transport transport : transports) {
+            try {
+                out.clear();
+                out.putInt(DomainWorker.STOP);
+                out.flip();
+                transport.send(out);
+            } catch (IOException e) {
+                // The worker is already gone; closing below is all that is left to do.
+            }
+            try {
+                transport.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        transports = null;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package celestial;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// One domain of a DistributedSimulation: the bodies whose distance from the central star lies in this worker's
+// band [inner, outer). Each step it computes accelerations from its own bodies, the ghost copies of its
+// neighbours' boundary bodies, one point mass per inner band further in and the central star, then kicks and
+// drifts its bodies and reports back. Bands further out are left out. That is an approximation, not a theorem:
+// a flat ring does pull on bodies inside it, but far less than the star and the inner bands do, and for a
+// roughly even ring the pulls from opposite sides largely cancel.
+class DomainWorker {
+    static final int INIT = 1;
+    static final int STEP = 2;
+    static final int FINISH = 3;
+    static final int STOP = 4;
+    static final int REPORT = 5;
+    static final int STATE = 6;
+
+    private final Transport transport;
+    private ForceSolver forceSolver;
+    private double softening;
+    private double starMass;
+    private double inner;
+    private double outer;
+    private double haloWidth;
+    private int n;
+    private int[] ids;
+    private double[] mass;
+    private double[] x;
+    private double[] y;
+    private double[] vx;
+    private double[] vy;
+    // Everything that pulls on this domain: its own bodies first, then ghosts, far-field masses and the star.
+    private double[] sourceX;
+    private double[] sourceY;
+    private double[] sourceZ;
+    private double[] sourceMass;
+    private double[] ax;
+    private double[] ay;
+    private double[] az;
+    private int[] targets;
+    private final IdList leaving;
+    private ByteBuffer out;
+
+    private DomainWorker(Transport transport) {
+        this.transport = transport;
+        this.n = 0;
+        this.ids = new int[16];
+        this.mass = new double[16];
+        this.x = new double[16];
+        this.y = new double[16];
+        this.vx = new double[16];
+        this.vy = new double[16];
+        this.sourceX = new double[0];
+        this.sourceY = new double[0];
+        this.sourceZ = new double[0];
+        this.sourceMass = new double[0];
+        this.ax = new double[0];
+        this.ay = new double[0];
+        this.az = new double[0];
+        this.targets = new int[0];
+        this.leaving = new IdList();
+        this.out = ByteBuffer.allocate(1 << 16);
+    }
+
+    // Serves one coordinator until it sends STOP or closes the transport.
+    public static void serve(Transport transport) throws IOException {
+        DomainWorker worker = new DomainWorker(transport);
+        while (true) {
+            ByteBuffer message;
+            try {
+                message = transport.receive();
+            } catch (EOFException e) {
+                return;
+            }
+            int type = message.getInt();
+            if (type == STOP) {
+                return;
+            } else if (type == INIT) {
+                worker.init(message);
+            } else if (type == STEP || type == FINISH) {
+                worker.step(message, type == FINISH);
+            } else {
+                throw new IOException("Unknown message type " + type);
+            }
+        }
+    }
+
+    // Grows buffer so that it has room for `bytes` more, keeping what was written so far.
+    static ByteBuffer ensureRemaining(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    private void init(ByteBuffer message) throws IOException {
+        double openingAngle = message.getDouble();
+        forceSolver = openingAngle > 0 ? new BarnesHutForceSolver(openingAngle) : new DirectForceSolver();
+        softening = message.getDouble();
+        starMass = message.getDouble();
+        inner = message.getDouble();
+        outer = message.getDouble();
+        haloWidth = message.getDouble();
+        n = 0;
+        readBodies(message);
+        report(0L);
+    }
+
+    // Appends the bodies listed in the message: a count, then id, mass, x, y, vx, vy for each.
+    private void readBodies(ByteBuffer message) {
+        int count = message.getInt();
+        ensureCapacity(n + count);
+        for (int k = 0; k < count; k++) {
+            ids[n] = message.getInt();
+            mass[n] = message.getDouble();
+            x[n] = message.getDouble();
+            y[n] = message.getDouble();
+            vx[n] = message.getDouble();
+            vy[n] = message.getDouble();
+            n++;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        mass = Arrays.copyOf(mass, newCapacity);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        vx = Arrays.copyOf(vx, newCapacity);
+        vy = Arrays.copyOf(vy, newCapacity);
+    }
+
+    // One leapfrog half: kick by kickFactor * dt with forces at the current positions, then (except when
+    // finishing a run) drift by dt. A run is a half kick, full kicks, and a closing half kick with FINISH.
+    private void step(ByteBuffer message, boolean finish) throws IOException {
+        double deltaTime = message.getDouble();
+        double kickFactor = message.getDouble();
+        readBodies(message);
+        long start = System.nanoTime();
+        int ghostCount = message.getInt();
+        int farCount = message.getInt();
+        int sources = n + ghostCount + farCount + 1;
+        if (sourceX.length < sources) {
+            int capacity = Math.max(sources, sourceX.length * 2);
+            sourceX = new double[capacity];
+            sourceY = new double[capacity];
+            sourceZ = new double[capacity];
+            sourceMass = new double[capacity];
+            ax = new double[capacity];
+            ay = new double[capacity];
+            az = new double[capacity];
+        }
+        if (targets.length < n) {
+            targets = new int[Math.max(n, targets.length * 2)];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = i;
+            }
+        }
+        System.arraycopy(x, 0, sourceX, 0, n);
+        System.arraycopy(y, 0, sourceY, 0, n);
+        System.arraycopy(mass, 0, sourceMass, 0, n);
+        for (int k = n; k < sources - 1; k++) {
+            sourceMass[k] = message.getDouble();
+            sourceX[k] = message.getDouble();
+            sourceY[k] = message.getDouble();
+        }
+        sourceMass[sources - 1] = starMass;
+        sourceX[sources - 1] = 0.0;
+        sourceY[sources - 1] = 0.0;
+        Arrays.fill(sourceZ, 0, sources, 0.0);
+        forceSolver.computeAccelerations(sourceX, sourceY, sourceZ, sourceMass, sources, softening, targets, n, ax, ay, az);
+        double kick = kickFactor * deltaTime;
+        for (int i = 0; i < n; i++) {
+            vx[i] += ax[i] * kick;
+            vy[i] += ay[i] * kick;
+            if (!finish) {
+                x[i] += vx[i] * deltaTime;
+                y[i] += vy[i] * deltaTime;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (finish) {
+            sendState(elapsed);
+        } else {
+            report(elapsed);
+        }
+    }
+
+    // REPORT: compute time, the bodies that left the band (removed here, placed by the coordinator), body count,
+    // total mass and centre of mass, then the ghosts near the inner and outer edges.
+    private void report(long elapsed) throws IOException {
+        out.clear();
+        out = ensureRemaining(out, 16);
+        out.putInt(REPORT);
+        out.putLong(elapsed);
+        leaving.clear();
+        for (int i = 0; i < n; i++) {
+            double r = Math.hypot(x[i], y[i]);
+            if (r < inner || r >= outer) {
+                leaving.add(i);
+            }
+        }
+        out = ensureRemaining(out, 4 + leaving.size() * 44);
+        out.putInt(leaving.size());
+        for (int k = leaving.size() - 1; k >= 0; k--) {
+            int i = leaving.getId(k);
+            putBody(i);
+            int last = --n;
+            ids[i] = ids[last];
+            mass[i] = mass[last];
+            x[i] = x[last];
+            y[i] = y[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+        }
+        double totalMass = 0.0;
+        double sumX = 0.0;
+        double sumY = 0.0;
+        for (int i = 0; i < n; i++) {
+            totalMass += mass[i];
+            sumX += mass[i] * x[i];
+            sumY += mass[i] * y[i];
+        }
+        out = ensureRemaining(out, 28);
+        out.putInt(n);
+        out.putDouble(totalMass);
+        out.putDouble(totalMass > 0 ? sumX / totalMass : 0.0);
+        out.putDouble(totalMass > 0 ? sumY / totalMass : 0.0);
+        putGhosts(true);
+        putGhosts(false);
+        out.flip();
+        transport.send(out);
+    }
+
+    private void putGhosts(boolean innerEdge) {
+        out = ensureRemaining(out, 4);
+        int countAt = out.position();
+        out.putInt(0);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            double r = Math.hypot(x[i], y[i]);
+            if (innerEdge ? r < inner + haloWidth : r >= outer - haloWidth) {
+                out = ensureRemaining(out, 24);
+                out.putDouble(mass[i]);
+                out.putDouble(x[i]);
+                out.putDouble(y[i]);
+                count++;
+            }
+        }
+        out.putInt(countAt, count);
+    }
+
+    private void putBody(int i) {
+        out.putInt(ids[i]);
+        out.putDouble(mass[i]);
+        out.putDouble(x[i]);
+        out.putDouble(y[i]);
+        out.putDouble(vx[i]);
+        out.putDouble(vy[i]);
+    }
+
+    // STATE: compute time, then every body of the domain.
+    private void sendState(long elapsed) throws IOException {
+        out.clear();
+        out = ensureRemaining(out, 16 + n * 44);
+        out.putInt(STATE);
+        out.putLong(elapsed);
+        out.putInt(n);
+        for (int i = 0; i < n; i++) {
+            putBody(i);
+        }
+        out.flip();
+        transport.send(out);
+    }
+}
@@ -0,0 +1,40 @@
+package celestial;
+
+import java.nio.DoubleBuffer;
+
+// One per-body column of doubles, indexed by body id. Columns come from a ColumnStorage.
+interface DoubleColumn {
+    double get(int index);
+
+    void set(int index, double value);
+
+    int capacity();
+
+    // Returns a new column in the same storage holding the first min(capacity(), capacity) values.
+    DoubleColumn resize(int capacity);
+
+    default DoubleColumn copy() {
+        return resize(capacity());
+    }
+
+    // Copies [from, from + length) to destination[destinationFrom, ...).
+    void copyTo(int from, double[] destination, int destinationFrom, int length);
+
+    // Copies source[sourceFrom, sourceFrom + length) to [from, from + length).
+    void copyFrom(double[] source, int sourceFrom, int from, int length);
+
+    // Copies [from, from + length) to another column, which may live in a different storage.
+    default void copyTo(int from, DoubleColumn destination, int destinationFrom, int length) {
+        for (int k = 0; k < length; k++) {
+            destination.set(destinationFrom + k, get(from + k));
+        }
+    }
+
+    void fill(int from, int to, double value);
+
+    // Writes [0, length) to out, advancing its position.
+    void write(DoubleBuffer out, int length);
+
+    // Reads [0, length) from in, advancing its position.
+    void read(DoubleBuffer in, int length);
+}
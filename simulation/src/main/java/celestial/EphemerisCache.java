@@ -0,0 +1,316 @@
+package celestial;
+
+import java.util.Arrays;
+
+// Caches Chebyshev fits of each body's analytic position (BodyStore.positionAt) over fixed time segments,
+// so repeated queries at nearby times cost one polynomial evaluation instead of a chain of Kepler solves.
+// Segments start at multiples of the body's segment length, a fraction of the shortest period on its path
+// up the orbit tree; a fit whose error exceeds the tolerance halves that body's segment length and refits.
+// A segment that still misses the tolerance after MAX_REFINEMENTS halvings is answered by exact propagation.
+// At most maxSegments fits are kept, coefficients in one primitive pool, evicting the least recently used.
+// Any change to the store's trajectory version (bodies added, elements edited, orbits replaced by an N-body or
+// distributed run) empties the cache.
+// Not thread-safe.
+class EphemerisCache {
+    public static final int DEFAULT_DEGREE = 12;
+    public static final int DEFAULT_SEGMENTS_PER_ORBIT = 8;
+    public static final int MAX_REFINEMENTS = 12;
+    private static final double STATIC_SEGMENT = 1e9;
+    private static final int EMPTY = -1;
+
+    private final BodyStore store;
+    private final int degree;
+    private final int maxSegments;
+    private final double tolerance;
+    private final int segmentsPerOrbit;
+    private final double[] coefficients;
+    private final int[] segmentId;
+    private final int[] segmentLevel;
+    private final long[] segmentIndex;
+    private final boolean[] segmentExact;
+    private final double[] segmentStart;
+    private final double[] segmentLength;
+    private final int[] newer;
+    private final int[] older;
+    private final int[] tableSlots;
+    private final int tableMask;
+    private final double[] nodeX;
+    private final double[] nodeY;
+    private final double[] scratch;
+    private int[] refinements;
+    private int used;
+    private int newest;
+    private int oldest;
+    private long version;
+    private long hits;
+    private long misses;
+    private long exactFallbacks;
+
+    // Constructor for EphemerisCache.
+    public EphemerisCache(BodyStore store, int maxSegments, double tolerance) {
+        this(store, maxSegments, tolerance, DEFAULT_DEGREE, DEFAULT_SEGMENTS_PER_ORBIT);
+    }
+
+    public EphemerisCache(BodyStore store, int maxSegments, double tolerance, int degree, int segmentsPerOrbit) {
+        if (maxSegments < 1 || degree < 1 || segmentsPerOrbit < 1 || !(tolerance > 0)) {
+            throw new IllegalArgumentException("Invalid ephemeris cache settings");
+        }
+        this.store = store;
+        this.degree = degree;
+        this.maxSegments = maxSegments;
+        this.tolerance = tolerance;
+        this.segmentsPerOrbit = segmentsPerOrbit;
+        this.coefficients = new double[maxSegments * 2 * (degree + 1)];
+        this.segmentId = new int[maxSegments];
+        this.segmentLevel = new int[maxSegments];
+        this.segmentIndex = new long[maxSegments];
+        this.segmentExact = new boolean[maxSegments];
+        this.segmentStart = new double[maxSegments];
+        this.segmentLength = new double[maxSegments];
+        this.newer = new int[maxSegments];
+        this.older = new int[maxSegments];
+        int tableSize = Integer.highestOneBit(Math.max(4 * maxSegments - 1, 8)) << 1;
+        this.tableSlots = new int[tableSize];
+        this.tableMask = tableSize - 1;
+        this.nodeX = new double[degree + 1];
+        this.nodeY = new double[degree + 1];
+        this.scratch = new double[2];
+        this.refinements = new int[0];
+        clear();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    // Queries answered by exact propagation because their segment could not be fitted within the tolerance.
+    public long getExactFallbacks() {
+        return exactFallbacks;
+    }
+
+    public int getSegmentCount() {
+        return used;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    // Drops every segment and forgets per-body refinements.
+    public void clear() {
+        Arrays.fill(tableSlots, EMPTY);
+        used = 0;
+        newest = -1;
+        oldest = -1;
+        Arrays.fill(refinements, 0);
+        version = store.getTrajectoryVersion();
+    }
+
+    // Interpolated absolute position of body id at time t; out[0] = x, out[1] = y.
+    public void position(int id, double t, double[] out) {
+        if (store.getTrajectoryVersion() != version) {
+            clear();
+        }
+        if (refinements.length < store.size()) {
+            refinements = Arrays.copyOf(refinements, store.size());
+        }
+        int slot = -1;
+        while (slot < 0) {
+            double length = segmentLength(id);
+            long index = (long) Math.floor(t / length);
+            slot = lookup(id, refinements[id], index);
+            if (slot >= 0) {
+                hits++;
+                touch(slot);
+            } else {
+                misses++;
+                slot = fit(id, index, index * length, length);
+            }
+        }
+        if (segmentExact[slot]) {
+            exactFallbacks++;
+            store.positionAt(id, t, out);
+            return;
+        }
+        double x = 2.0 * (t - segmentStart[slot]) / segmentLength[slot] - 1.0;
+        int base = slot * 2 * (degree + 1);
+        out[0] = clenshaw(base, x);
+        out[1] = clenshaw(base + degree + 1, x);
+    }
+
+    private double segmentLength(int id) {
+        double period = store.shortestPeriodOnPath(id);
+        double length = period > 0 ? period / segmentsPerOrbit : STATIC_SEGMENT;
+        return Math.scalb(length, -refinements[id]);
+    }
+
+    // The table holds slot numbers; a segment is identified by its body id, refinement level and index,
+    // compared field by field, so no id or time range can alias another.
+    private int hash(int id, int level, long index) {
+        long h = (index * 0x9E3779B97F4A7C15L) ^ ((((long) id << 8) | level) * 0xC2B2AE3D27D4EB4FL);
+        return (int) (h ^ (h >>> 32)) & tableMask;
+    }
+
+    private int hashOf(int slot) {
+        return hash(segmentId[slot], segmentLevel[slot], segmentIndex[slot]);
+    }
+
+    private int lookup(int id, int level, long index) {
+        for (int i = hash(id, level, index); tableSlots[i] != EMPTY; i = (i + 1) & tableMask) {
+            int slot = tableSlots[i];
+            if (segmentIndex[slot] == index && segmentId[slot] == id && segmentLevel[slot] == level) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int slot) {
+        int i = hashOf(slot);
+        while (tableSlots[i] != EMPTY) {
+            i = (i + 1) & tableMask;
+        }
+        tableSlots[i] = slot;
+    }
+
+    // Linear-probing delete: shift later entries of the probe run back so lookups never stop early.
+    private void remove(int slot) {
+        int i = hashOf(slot);
+        while (tableSlots[i] != slot) {
+            i = (i + 1) & tableMask;
+        }
+        int hole = i;
+        for (int j = (hole + 1) & tableMask; tableSlots[j] != EMPTY; j = (j + 1) & tableMask) {
+            int home = hashOf(tableSlots[j]);
+            if (((j - home) & tableMask) >= ((j - hole) & tableMask)) {
+                tableSlots[hole] = tableSlots[j];
+                hole = j;
+            }
+        }
+        tableSlots[hole] = EMPTY;
+    }
+
+    // Moves a slot to the front of the recency list.
+    private void touch(int slot) {
+        if (slot == newest) {
+            return;
+        }
+        unlinkSlot(slot);
+        linkNewest(slot);
+    }
+
+    private void unlinkSlot(int slot) {
+        if (newer[slot] >= 0) {
+            older[newer[slot]] = older[slot];
+        } else {
+            newest = older[slot];
+        }
+        if (older[slot] >= 0) {
+            newer[older[slot]] = newer[slot];
+        } else {
+            oldest = newer[slot];
+        }
+    }
+
+    private void linkNewest(int slot) {
+        newer[slot] = -1;
+        older[slot] = newest;
+        if (newest >= 0) {
+            newer[newest] = slot;
+        }
+        newest = slot;
+        if (oldest < 0) {
+            oldest = slot;
+        }
+    }
+
+    private void linkOldest(int slot) {
+        older[slot] = -1;
+        newer[slot] = oldest;
+        if (oldest >= 0) {
+            older[oldest] = slot;
+        }
+        oldest = slot;
+        if (newest < 0) {
+            newest = slot;
+        }
+    }
+
+    // Fits the segment [start, start + length) into a free or evicted slot. Returns the slot, or -1 if the
+    // fit missed the tolerance and the body's segments were refined, in which case the caller looks again.
+    // Past MAX_REFINEMENTS a missed fit is kept but marked exact, so queries in it propagate directly.
+    private int fit(int id, long index, double start, double length) {
+        int n = degree + 1;
+        for (int k = 0; k < n; k++) {
+            double node = Math.cos(Math.PI * (k + 0.5) / n);
+            store.positionAt(id, start + 0.5 * length * (node + 1.0), scratch);
+            nodeX[k] = scratch[0];
+            nodeY[k] = scratch[1];
+        }
+        int slot;
+        if (used < maxSegments) {
+            slot = used++;
+        } else {
+            slot = oldest;
+            unlinkSlot(slot);
+            remove(slot);
+        }
+        int base = slot * 2 * n;
+        for (int j = 0; j < n; j++) {
+            double sumX = 0.0;
+            double sumY = 0.0;
+            for (int k = 0; k < n; k++) {
+                double weight = Math.cos(Math.PI * j * (k + 0.5) / n);
+                sumX += nodeX[k] * weight;
+                sumY += nodeY[k] * weight;
+            }
+            double scale = (j == 0 ? 1.0 : 2.0) / n;
+            coefficients[base + j] = sumX * scale;
+            coefficients[base + n + j] = sumY * scale;
+        }
+        segmentId[slot] = id;
+        segmentLevel[slot] = refinements[id];
+        segmentIndex[slot] = index;
+        segmentExact[slot] = false;
+        segmentStart[slot] = start;
+        segmentLength[slot] = length;
+        linkNewest(slot);
+        insert(slot);
+        // Check halfway between the fitting nodes, where the interpolation error peaks.
+        double worst = 0.0;
+        for (int k = 0; k <= n; k++) {
+            double x = Math.cos(Math.PI * k / n);
+            store.positionAt(id, start + 0.5 * length * (x + 1.0), scratch);
+            worst = Math.max(worst, Math.hypot(clenshaw(base, x) - scratch[0], clenshaw(base + n, x) - scratch[1]));
+        }
+        if (worst > tolerance) {
+            if (refinements[id] >= MAX_REFINEMENTS) {
+                segmentExact[slot] = true;
+                return slot;
+            }
+            // Keep the rejected fit only as the next eviction victim.
+            unlinkSlot(slot);
+            linkOldest(slot);
+            refinements[id]++;
+            return -1;
+        }
+        return slot;
+    }
+
+    // Evaluates the series stored at coefficients[base, base + degree] at x in [-1, 1].
+    private double clenshaw(int base, double x) {
+        double b1 = 0.0;
+        double b2 = 0.0;
+        double twoX = 2.0 * x;
+        for (int j = degree; j >= 1; j--) {
+            double b0 = twoX * b1 - b2 + coefficients[base + j];
+            b2 = b1;
+            b1 = b0;
+        }
+        return x * b1 - b2 + coefficients[base];
+    }
+}
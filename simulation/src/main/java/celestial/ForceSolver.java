@@ -0,0 +1,14 @@
+package celestial;
+
+// Computes gravitational accelerations for n point masses held in primitive arrays.
+interface ForceSolver {
+    void computeAccelerations(double[] x, double[] y, double[] z, double[] mass, int n, double softening,
+                              double[] ax, double[] ay, double[] az);
+
+    // Computes accelerations for targets[0, targetCount) only; other entries of ax/ay/az may be overwritten.
+    // Solvers that can do less work for a subset override this.
+    default void computeAccelerations(double[] x, double[] y, double[] z, double[] mass, int n, double softening,
+                                      int[] targets, int targetCount, double[] ax, double[] ay, double[] az) {
+        computeAccelerations(x, y, z, mass, n, softening, ax, ay, az);
+    }
+}
@@ -0,0 +1,71 @@
+package celestial;
+
+import java.util.Arrays;
+
+// Growable list of body ids.
+class IdList {
+    protected int[] ids;
+    protected int size;
+
+    // Constructor for IdList.
+    public IdList() {
+        this.ids = new int[16];
+        this.size = 0;
+    }
+
+    // Constructor for IdList, sized for lists that usually stay short.
+    public IdList(int capacity) {
+        this.ids = new int[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int k) {
+        return ids[k];
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    void add(int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = id;
+    }
+
+    // Removes the first occurrence of id, keeping the order of the rest; returns whether it was present.
+    boolean remove(int id) {
+        for (int k = 0; k < size; k++) {
+            if (ids[k] == id) {
+                System.arraycopy(ids, k + 1, ids, k, size - k - 1);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Replaces the first occurrence of from with to, in place.
+    void replace(int from, int to) {
+        for (int k = 0; k < size; k++) {
+            if (ids[k] == from) {
+                ids[k] = to;
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void copyFrom(IdList source) {
+        ids = Arrays.copyOf(source.ids, Math.max(source.size, 1));
+        size = source.size;
+    }
+}
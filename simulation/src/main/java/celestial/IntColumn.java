@@ -0,0 +1,27 @@
+package celestial;
+
+// One per-body column of ints, indexed by body id. Columns come from a ColumnStorage.
+interface IntColumn {
+    int get(int index);
+
+    void set(int index, int value);
+
+    int capacity();
+
+    // Returns a new column in the same storage holding the first min(capacity(), capacity) values.
+    IntColumn resize(int capacity);
+
+    default IntColumn copy() {
+        return resize(capacity());
+    }
+
+    // Copies [from, from + length) to destination[destinationFrom, ...).
+    void copyTo(int from, int[] destination, int destinationFrom, int length);
+
+    // Copies [from, from + length) to another column, which may live in a different storage.
+    default void copyTo(int from, IntColumn destination, int destinationFrom, int length) {
+        for (int k = 0; k < length; k++) {
+            destination.set(destinationFrom + k, get(from + k));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package celestial;
+
+// Keplerian ellipses, solved in batches per range.
+class KeplerPropagator implements Propagator {
+    @Override
+    public void advance(BodyStore store, int[] ids, int from, int to, double deltaTime) {
+        store.propagateKeplerRows(ids, from, to, deltaTime);
+    }
+
+    @Override
+    public void advanceTo(BodyStore store, int[] ids, int from, int to, double targetTime) {
+        store.propagateKeplerRowsTo(ids, from, to, targetTime);
+    }
+}
@@ -0,0 +1,91 @@
+package celestial;
+
+// Solves Kepler's equation M = E - e*sin(E) for elliptical orbits (0 <= e < 1).
+class KeplerSolver {
+    public static final double DEFAULT_TOLERANCE = 1e-12;
+    public static final int MAX_ITERATIONS = 12;
+
+    private KeplerSolver() {
+    }
+
+    // Returns the eccentric anomaly for one mean anomaly.
+    public static double solve(double meanAnomaly, double eccentricity) {
+        return solve(meanAnomaly, eccentricity, DEFAULT_TOLERANCE);
+    }
+
+    public static double solve(double meanAnomaly, double eccentricity, double tolerance) {
+        double m = meanAnomaly % (2 * Math.PI);
+        double e = initialGuess(m, eccentricity);
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            double correction = halleyCorrection(e, m, eccentricity);
+            e -= correction;
+            if (Math.abs(correction) < tolerance) {
+                break;
+            }
+        }
+        return e;
+    }
+
+    // Solves entries [from, to) of the input arrays into eccentricAnomaly without allocating; the inputs are
+    // left as they are. Every entry gets the same number of sweeps, so the inner loop has no per-element exit;
+    // instead an entry stops taking corrections once they drop below tolerance, which leaves each result
+    // independent of the other entries in the batch and so of how a caller splits its rows into ranges.
+    // A Halley step is unchanged by adding whole turns to both E and M, so mean anomalies outside [0, 2*PI)
+    // are iterated as given and their whole turns taken off E at the end, matching solve.
+    public static void solveBatch(double[] meanAnomaly, double[] eccentricity, double[] eccentricAnomaly,
+                                  int from, int to, double tolerance) {
+        final double twoPi = 2 * Math.PI;
+        for (int i = from; i < to; i++) {
+            eccentricAnomaly[i] = initialGuess(meanAnomaly[i], eccentricity[i]);
+        }
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double largestCorrection = 0.0;
+            for (int i = from; i < to; i++) {
+                double correction = halleyCorrection(eccentricAnomaly[i], meanAnomaly[i], eccentricity[i]);
+                eccentricAnomaly[i] -= Math.abs(correction) < tolerance ? 0.0 : correction;
+                largestCorrection = Math.max(largestCorrection, Math.abs(correction));
+            }
+            if (largestCorrection < tolerance) {
+                break;
+            }
+        }
+        for (int i = from; i < to; i++) {
+            eccentricAnomaly[i] -= meanAnomaly[i] - meanAnomaly[i] % twoPi;
+        }
+    }
+
+    // Danby's starting value: within a few iterations of the root for every e < 1.
+    private static double initialGuess(double meanAnomaly, double eccentricity) {
+        return meanAnomaly + 0.85 * eccentricity * Math.signum(Math.sin(meanAnomaly));
+    }
+
+    // One Halley step on f(E) = E - e*sin(E) - M.
+    private static double halleyCorrection(double eccentricAnomaly, double meanAnomaly, double eccentricity) {
+        double eSin = eccentricity * Math.sin(eccentricAnomaly);
+        double eCos = eccentricity * Math.cos(eccentricAnomaly);
+        double f = eccentricAnomaly - eSin - meanAnomaly;
+        double fPrime = 1.0 - eCos;
+        return f / (fPrime - 0.5 * f * eSin / fPrime);
+    }
+
+    // Converts an eccentric anomaly to the true anomaly (angle from perihelion).
+    public static double trueAnomaly(double eccentricAnomaly, double eccentricity) {
+        double half = 0.5 * eccentricAnomaly;
+        return 2.0 * Math.atan2(Math.sqrt(1.0 + eccentricity) * Math.sin(half),
+                                Math.sqrt(1.0 - eccentricity) * Math.cos(half));
+    }
+
+    // Converts a true anomaly back to the mean anomaly.
+    public static double meanAnomalyFromTrueAnomaly(double trueAnomaly, double eccentricity) {
+        double half = 0.5 * trueAnomaly;
+        double eccentricAnomaly = 2.0 * Math.atan2(Math.sqrt(1.0 - eccentricity) * Math.sin(half),
+                                                   Math.sqrt(1.0 + eccentricity) * Math.cos(half));
+        return eccentricAnomaly - eccentricity * Math.sin(eccentricAnomaly);
+    }
+
+    // Distance from the focus for a given eccentric anomaly.
+    public static double radius(double perihelionDistance, double eccentricity, double eccentricAnomaly) {
+        double semiMajorAxis = perihelionDistance / (1.0 - eccentricity);
+        return semiMajorAxis * (1.0 - eccentricity * Math.cos(eccentricAnomaly));
+    }
+}
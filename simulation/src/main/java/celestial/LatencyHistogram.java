@@ -0,0 +1,80 @@
+package celestial;
+
+import java.util.Arrays;
+
+// Log-linear latency histogram in the style of HdrHistogram: values are bucketed by power of two, each power
+// split into 2^SUB_BUCKET_BITS linear sub-buckets, so any recorded value is known to within ~3% with a fixed
+// ~15 KB of counters and no allocation per record. Single writer; readers may see a record in flight.
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts;
+    private long totalCount;
+    private long maxValue;
+
+    // Constructor for LatencyHistogram.
+    public LatencyHistogram() {
+        this.counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[index(value)]++;
+        totalCount++;
+        if (value > maxValue) {
+            maxValue = value;
+        }
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // Highest value that falls in bucket i.
+    private static long highestValue(int i) {
+        if (i < SUB_BUCKETS) {
+            return i;
+        }
+        int shift = i / SUB_BUCKETS - 1;
+        long lowest = (long) (i % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    // Value at the given percentile (0-100), as the upper edge of its bucket capped at the maximum seen.
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount;
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        maxValue = 0;
+    }
+}
@@ -0,0 +1,93 @@
+package celestial;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public class Main {
+
+    // Global constants
+    public static final double G = 6.67430e-11;
+    public static final double AU_TO_METERS = 1.495978707e11;
+    public static final double SECONDS_PER_DAY = 86400;
+
+    // Main method: Entry point of the program.
+    public static void main(String[] args) {
+        // Worker mode for DistributedSimulation: connect to the coordinator and serve one domain until stopped.
+        if (args.length == 3 && "--worker".equals(args[0])) {
+            try (Transport transport = SocketTransport.connect(args[1], Integer.parseInt(args[2]))) {
+                DomainWorker.serve(transport);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+
+        // Define masses.
+        final double SUN_MASS = 1.989e30;
+        final double EARTH_MASS = 5.972e24;
+        final double MARS_MASS = 6.39e23;
+        final double JUPITER_MASS = 1.898e27;
+        final double MOON_MASS = 7.342e22;
+        final double PHOBOS_MASS = 1.0659e16;
+        final double HALLEY_MASS = 2.2e14;
+
+        // Create celestial body instances.
+        Star sun = new Star("Sun", SUN_MASS, 6.96340e8, 5778.0, "G2V");
+
+        Planet earth = new Planet("Earth", EARTH_MASS, 6.371e6, 1.0 * AU_TO_METERS,
+                                  365.25 * SECONDS_PER_DAY, 1, false, true);
+        Planet mars = new Planet("Mars", MARS_MASS, 3.3895e6, 1.524 * AU_TO_METERS,
+                                 687.0 * SECONDS_PER_DAY, 2, false, false);
+        Planet jupiter = new Planet("Jupiter", JUPITER_MASS, 6.9911e7, 5.2 * AU_TO_METERS,
+                                    4332.59 * SECONDS_PER_DAY, 95, true, false);
+
+        Moon earthsMoon = new Moon("Moon", MOON_MASS, 1.7374e6, 3.844e8,
+                                   27.32 * SECONDS_PER_DAY, "Earth", true);
+        Moon phobos = new Moon("Phobos", PHOBOS_MASS, 1.126e4, 9.377e6,
+                               7.65 * 3600.0, "Mars", true);
+
+        Comet halleysComet = new Comet("Halley's Comet", HALLEY_MASS, 5.5e3, 0.967,
+                                        76.0 * 365.25 * SECONDS_PER_DAY, 0.587 * AU_TO_METERS);
+        Comet enckesComet = new Comet("Encke's Comet", 2.0e12, 2.4e3, 0.847,
+                                      3.3 * 365.25 * SECONDS_PER_DAY, 0.336 * AU_TO_METERS);
+
+        // Initialize solar system.
+        SolarSystem ourSystem = new SolarSystem(sun);
+
+        // Add bodies to the system.
+        ourSystem.addBody(earth);
+        ourSystem.addBody(mars);
+        ourSystem.addBody(jupiter);
+        ourSystem.addBody(earthsMoon);
+        ourSystem.addBody(phobos);
+        ourSystem.addBody(halleysComet);
+        ourSystem.addBody(enckesComet);
+
+        // Display initial state.
+        System.out.println("\n--- Initial System Configuration ---");
+        ourSystem.displaySystemState();
+
+        // Run simulation.
+        double simulationDuration = 2 * SECONDS_PER_DAY;
+        double simulationTimeStep = SECONDS_PER_DAY / 24.0;
+        ourSystem.runSimulation(simulationDuration, simulationTimeStep);
+
+        // Display final state.
+        System.out.println("\n--- System Configuration After Simulation ---");
+        ourSystem.displaySystemState();
+
+        // Direct method demonstrations.
+        System.out.println("\n--- Key Demonstrations ---");
+        sun.emitLightAndHeat(); // Demonstrate a Star method
+        earth.describeMoons(); // Demonstrate a Planet method
+        earthsMoon.exertTidalInfluence(); // Demonstrate a Moon method
+        halleysComet.describeOrbitShape(); // Demonstrate a Comet method
+
+        // Additional calculations.
+        System.out.println("\n--- Additional Calculations ---");
+        System.out.println(earth.getName() + " Density: " + String.format("%.2f", earth.getDensity()) + " kg/m^3");
+        System.out.println(mars.getName() + " Surface Gravity: " + String.format("%.2f", mars.getSurfaceGravity()) + " m/s^2");
+
+        System.out.println("\nProgram finished.");
+    }
+}
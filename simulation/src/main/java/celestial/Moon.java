@@ -0,0 +1,69 @@
+package celestial;
+
+// Child Class: Represents a Moon.
+class Moon extends CelestialBody {
+    private String planetOrbitingName;
+    private CelestialBody planetOrbiting;
+    private boolean tidallyLocked;
+
+    // Constructor for Moon.
+    public Moon(String name, double mass, double radius, double orbitalRadius,
+                double orbitalPeriod, String planetOrbitingName, boolean tidallyLocked) {
+        super(name, mass, radius);
+        setCategory("moon");
+        setOrbitalRadius(orbitalRadius);
+        setOrbitalPeriod(orbitalPeriod);
+        this.planetOrbitingName = planetOrbitingName;
+        this.planetOrbiting = null;
+        this.tidallyLocked = tidallyLocked;
+    }
+
+    // Getters and Setters for Moon-specific properties
+    public String getPlanetOrbitingName() {
+        return planetOrbitingName;
+    }
+
+    // Renames the parent only; use setPlanetOrbiting to move the moon to another body.
+    public void setPlanetOrbitingName(String planetOrbitingName) {
+        this.planetOrbitingName = planetOrbitingName;
+    }
+
+    // Returns the resolved parent body, or null until a SolarSystem has matched planetOrbitingName.
+    public CelestialBody getPlanetOrbiting() {
+        return planetOrbiting;
+    }
+
+    // Makes this moon orbit the given body; orbitalRadius and theta are relative to it.
+    public void setPlanetOrbiting(CelestialBody planet) {
+        this.planetOrbiting = planet;
+        if (planet != null) {
+            this.planetOrbitingName = planet.getName();
+        }
+        if (getStore() != null) {
+            getStore().setParent(getId(), planet != null && planet.getStore() == getStore() ? planet.getId() : -1);
+        }
+    }
+
+    public boolean isTidallyLocked() {
+        return tidallyLocked;
+    }
+
+    public void setTidallyLocked(boolean tidallyLocked) {
+        this.tidallyLocked = tidallyLocked;
+    }
+
+    // Simulates a tidal effect.
+    public void exertTidalInfluence() {
+        System.out.println(getName() + " is exerting tidal forces on " + planetOrbitingName + ".");
+    }
+
+    // Describes tidal lock status.
+    public void describeTidalLock() {
+        System.out.println(getName() + (tidallyLocked ? " is tidally locked to " : " is not tidally locked to ") + planetOrbitingName + ".");
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " orbiting " + planetOrbitingName + " at " + getCoordinates();
+    }
+}
@@ -0,0 +1,268 @@
+package celestial;
+
+import java.util.Arrays;
+
+import static celestial.Main.G;
+
+// Symplectic kick-drift-kick leapfrog (velocity Verlet) over Cartesian state for every body in a store.
+class NBodyIntegrator {
+    private final ForceSolver forceSolver;
+    private double softening;
+    private BodyStore loadedStore;
+    private long loadedVersion;
+    private int n;
+    private double[] mass;
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private double[] vx;
+    private double[] vy;
+    private double[] vz;
+    private double[] ax;
+    private double[] ay;
+    private double[] az;
+    private double[] lengthScale;
+    private int[] parent;
+    private SimulationMetrics metrics;
+
+    // Constructor for NBodyIntegrator.
+    public NBodyIntegrator(ForceSolver forceSolver, double softening) {
+        this.forceSolver = forceSolver;
+        this.softening = softening;
+        this.loadedStore = null;
+        this.n = 0;
+    }
+
+    public ForceSolver getForceSolver() {
+        return forceSolver;
+    }
+
+    public double getSoftening() {
+        return softening;
+    }
+
+    // Plummer softening length added to every pair distance, in meters.
+    public void setSoftening(double softening) {
+        this.softening = softening;
+    }
+
+    public int getBodyCount() {
+        return n;
+    }
+
+    // Force evaluations are timed into the given metrics; null (the default) records nothing.
+    public void setMetrics(SimulationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Loads positions and orbital velocities from the store, unless the state loaded last time is still current.
+    public void load(BodyStore store) {
+        if (store == loadedStore && store.getStateVersion() == loadedVersion && store.size() == n) {
+            return;
+        }
+        n = store.size();
+        if (mass == null || mass.length < n) {
+            int capacity = Math.max(n, 16);
+            mass = new double[capacity];
+            x = new double[capacity];
+            y = new double[capacity];
+            z = new double[capacity];
+            vx = new double[capacity];
+            vy = new double[capacity];
+            vz = new double[capacity];
+            ax = new double[capacity];
+            ay = new double[capacity];
+            az = new double[capacity];
+            lengthScale = new double[capacity];
+            parent = new int[capacity];
+        }
+        store.copyMasses(mass);
+        store.copyOrbitalRadii(lengthScale);
+        store.copyParents(parent);
+        store.computeCartesianState(x, y, vx, vy);
+        Arrays.fill(z, 0, n, 0.0);
+        Arrays.fill(vz, 0, n, 0.0);
+        computeAccelerations();
+        loadedStore = store;
+        loadedVersion = store.getStateVersion();
+    }
+
+    // Advances every body by one kick-drift-kick step.
+    public void step(double deltaTime) {
+        double halfStep = 0.5 * deltaTime;
+        for (int i = 0; i < n; i++) {
+            vx[i] += ax[i] * halfStep;
+            vy[i] += ay[i] * halfStep;
+            vz[i] += az[i] * halfStep;
+            x[i] += vx[i] * deltaTime;
+            y[i] += vy[i] * deltaTime;
+            z[i] += vz[i] * deltaTime;
+        }
+        computeAccelerations();
+        for (int i = 0; i < n; i++) {
+            vx[i] += ax[i] * halfStep;
+            vy[i] += ay[i] * halfStep;
+            vz[i] += az[i] * halfStep;
+        }
+    }
+
+    // Advances every body by maxTimeStep using individual block timesteps: each body is kicked only at
+    // the ends of its own steps, and forces are evaluated only for bodies whose step ends at that tick.
+    // Positions of the other bodies are drifted with their current velocities before each evaluation.
+    public void stepBlocks(double maxTimeStep, BlockTimestepScheduler scheduler) {
+        scheduler.assignByAcceleration(lengthScale, ax, ay, az, parent, n, maxTimeStep);
+        int[] order = scheduler.getOrder();
+        int finestLevel = scheduler.getFinestLevel();
+        int ticks = 1 << finestLevel;
+        double tickTime = maxTimeStep / ticks;
+        for (int level = 0; level <= finestLevel; level++) {
+            kick(order, scheduler.getLevelStart(level), scheduler.getLevelEnd(level),
+                 0.5 * scheduler.getTimeStep(level));
+        }
+        int lastDrift = 0;
+        for (int tick = 1; tick <= ticks; tick++) {
+            int coarsestDue = finestLevel - Integer.numberOfTrailingZeros(tick);
+            int dueCount = scheduler.countAtOrFinerThan(Math.max(coarsestDue, 0));
+            if (dueCount == 0) {
+                continue;
+            }
+            drift((tick - lastDrift) * tickTime);
+            lastDrift = tick;
+            if (tick == ticks) {
+                computeAccelerations();
+            } else {
+                computeAccelerations(order, dueCount);
+            }
+            // Ends the step just finished and, except at the final tick, opens the next one with the same forces.
+            double kickFraction = tick == ticks ? 0.5 : 1.0;
+            for (int level = Math.max(coarsestDue, 0); level <= finestLevel; level++) {
+                kick(order, scheduler.getLevelStart(level), scheduler.getLevelEnd(level),
+                     kickFraction * scheduler.getTimeStep(level));
+            }
+            scheduler.countUpdates(dueCount);
+        }
+    }
+
+    private void kick(int[] ids, int from, int to, double deltaTime) {
+        for (int k = from; k < to; k++) {
+            int i = ids[k];
+            vx[i] += ax[i] * deltaTime;
+            vy[i] += ay[i] * deltaTime;
+            vz[i] += az[i] * deltaTime;
+        }
+    }
+
+    private void drift(double deltaTime) {
+        for (int i = 0; i < n; i++) {
+            x[i] += vx[i] * deltaTime;
+            y[i] += vy[i] * deltaTime;
+            z[i] += vz[i] * deltaTime;
+        }
+    }
+
+    // Current position of body i, as integrated since the last load.
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    // Current velocity of body i.
+    public double getVx(int i) {
+        return vx[i];
+    }
+
+    public double getVy(int i) {
+        return vy[i];
+    }
+
+    // Combines body absorbed into body survivor: masses add, and the survivor moves to their centre of mass
+    // with the velocity that conserves momentum. The absorbed body is left in place for swapRemove.
+    public void merge(int survivor, int absorbed) {
+        double m1 = mass[survivor];
+        double m2 = mass[absorbed];
+        double total = m1 + m2;
+        if (total > 0) {
+            x[survivor] = (m1 * x[survivor] + m2 * x[absorbed]) / total;
+            y[survivor] = (m1 * y[survivor] + m2 * y[absorbed]) / total;
+            z[survivor] = (m1 * z[survivor] + m2 * z[absorbed]) / total;
+            vx[survivor] = (m1 * vx[survivor] + m2 * vx[absorbed]) / total;
+            vy[survivor] = (m1 * vy[survivor] + m2 * vy[absorbed]) / total;
+            vz[survivor] = (m1 * vz[survivor] + m2 * vz[absorbed]) / total;
+        }
+        mass[survivor] = total;
+    }
+
+    // Mirrors BodyStore.swapRemove on the loaded state, so the integrator stays aligned with its store
+    // during a run. Accelerations of the remaining bodies are refreshed at the next force evaluation.
+    // Parent links are not renamed here; call reloadParents once a batch of removals is done.
+    public void swapRemove(int id) {
+        int last = --n;
+        if (id != last) {
+            mass[id] = mass[last];
+            x[id] = x[last];
+            y[id] = y[last];
+            z[id] = z[last];
+            vx[id] = vx[last];
+            vy[id] = vy[last];
+            vz[id] = vz[last];
+            ax[id] = ax[last];
+            ay[id] = ay[last];
+            az[id] = az[last];
+            lengthScale[id] = lengthScale[last];
+            parent[id] = parent[last];
+        }
+        if (loadedStore != null) {
+            loadedVersion = loadedStore.getStateVersion();
+        }
+    }
+
+    // Takes the orbit tree from the store again, after rows were removed from both.
+    public void reloadParents(BodyStore store) {
+        store.copyParents(parent);
+    }
+
+    // Writes the integrated positions back so the rest of the system sees them.
+    public void store(BodyStore store) {
+        store.applyCartesianPositions(x, y);
+        loadedVersion = store.getStateVersion();
+    }
+
+    private void computeAccelerations() {
+        long start = metrics != null ? System.nanoTime() : 0L;
+        forceSolver.computeAccelerations(x, y, z, mass, n, softening, ax, ay, az);
+        if (metrics != null) {
+            metrics.recordPhase(SimulationMetrics.Phase.FORCE, System.nanoTime() - start);
+        }
+    }
+
+    private void computeAccelerations(int[] targets, int targetCount) {
+        long start = metrics != null ? System.nanoTime() : 0L;
+        forceSolver.computeAccelerations(x, y, z, mass, n, softening, targets, targetCount, ax, ay, az);
+        if (metrics != null) {
+            metrics.recordPhase(SimulationMetrics.Phase.FORCE, System.nanoTime() - start);
+        }
+    }
+
+    // Total kinetic plus potential energy; a leapfrog run should keep this nearly constant.
+    public double totalEnergy() {
+        double kinetic = 0.0;
+        double potential = 0.0;
+        double eps2 = softening * softening;
+        for (int i = 0; i < n; i++) {
+            kinetic += 0.5 * mass[i] * (vx[i] * vx[i] + vy[i] * vy[i] + vz[i] * vz[i]);
+            for (int j = i + 1; j < n; j++) {
+                double dx = x[j] - x[i];
+                double dy = y[j] - y[i];
+                double dz = z[j] - z[i];
+                double r = Math.sqrt(dx * dx + dy * dy + dz * dz + eps2);
+                if (r > 0) {
+                    potential -= G * mass[i] * mass[j] / r;
+                }
+            }
+        }
+        return kinetic + potential;
+    }
+}
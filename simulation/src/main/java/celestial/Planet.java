@@ -0,0 +1,65 @@
+package celestial;
+
+// Child Class: Represents a Planet.
+class Planet extends CelestialBody {
+    private int numberOfMoons;
+    private boolean hasRings;
+    private boolean supportsLife;
+
+    // Constructor for Planet.
+    public Planet(String name, double mass, double radius, double orbitalRadius,
+                  double orbitalPeriod, int moons, boolean rings, boolean supportsLife) {
+        super(name, mass, radius);
+        setCategory("planet");
+        setOrbitalRadius(orbitalRadius);
+        setOrbitalPeriod(orbitalPeriod);
+        this.numberOfMoons = moons;
+        this.hasRings = rings;
+        this.supportsLife = supportsLife;
+    }
+
+    // Getters and Setters for Planet-specific properties
+    public int getNumberOfMoons() {
+        return numberOfMoons;
+    }
+
+    public void setNumberOfMoons(int numberOfMoons) {
+        this.numberOfMoons = numberOfMoons;
+    }
+
+    public boolean hasRings() {
+        return hasRings;
+    }
+
+    public void setHasRings(boolean hasRings) {
+        this.hasRings = hasRings;
+    }
+
+    public boolean supportsLife() {
+        return supportsLife;
+    }
+
+    public void setSupportsLife(boolean supportsLife) {
+        this.supportsLife = supportsLife;
+    }
+
+    // Describes the planet's moons.
+    public void describeMoons() {
+        System.out.println(getName() + " has " + numberOfMoons + " known moon(s).");
+    }
+
+    // Checks for presence of rings.
+    public void checkRings() {
+        System.out.println(getName() + (hasRings ? " has a visible ring system." : " does not have rings."));
+    }
+
+    // Assesses if the planet supports life.
+    public void assessLifeSupport() {
+        System.out.println(getName() + (supportsLife ? " is capable of supporting life." : " is not known to support life."));
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " with " + numberOfMoons + " moon(s) and " + (hasRings ? "rings" : "no rings") + " at " + getCoordinates();
+    }
+}
@@ -0,0 +1,37 @@
+package celestial;
+
+// One sample of the subscribed bodies, as published by PositionPublisher; x[k], y[k] belong to ids[k].
+class PositionFrame {
+    private final double time;
+    private final int[] ids;
+    private final double[] x;
+    private final double[] y;
+
+    // Constructor for PositionFrame.
+    public PositionFrame(double time, int[] ids, double[] x, double[] y) {
+        this.time = time;
+        this.ids = ids;
+        this.x = x;
+        this.y = y;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int getId(int k) {
+        return ids[k];
+    }
+
+    public double getX(int k) {
+        return x[k];
+    }
+
+    public double getY(int k) {
+        return y[k];
+    }
+}
@@ -0,0 +1,10 @@
+package celestial;
+
+// Receives sampled positions while a simulation runs, on the simulation thread. Positions are passed as
+// primitives, one call per subscribed body, followed by one onSampleEnd per sample.
+interface PositionObserver {
+    void onPosition(int id, double time, double x, double y);
+
+    default void onSampleEnd(double time) {
+    }
+}
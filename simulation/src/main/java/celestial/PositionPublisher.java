@@ -0,0 +1,70 @@
+package celestial;
+
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+// Flow.Publisher view of a position subscription. Each subscriber gets a bounded buffer; when a slow subscriber's
+// buffer is full the simulation thread waits, so consumers throttle the run instead of frames piling up.
+class PositionPublisher implements Flow.Publisher<PositionFrame>, PositionObserver, AutoCloseable {
+    private final SubmissionPublisher<PositionFrame> publisher;
+    private final int[] ids;
+    private PositionSubscription subscription;
+    private int[] frameIds;
+    private double[] x;
+    private double[] y;
+    private int filled;
+
+    // Constructor for PositionPublisher.
+    public PositionPublisher(int[] ids, int bufferCapacity) {
+        this.publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), bufferCapacity);
+        this.ids = ids.clone();
+        this.filled = 0;
+    }
+
+    void setSubscription(PositionSubscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super PositionFrame> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void onPosition(int id, double time, double x, double y) {
+        if (filled == 0) {
+            this.frameIds = new int[ids.length];
+            this.x = new double[ids.length];
+            this.y = new double[ids.length];
+        }
+        this.frameIds[filled] = id;
+        this.x[filled] = x;
+        this.y[filled] = y;
+        filled++;
+    }
+
+    @Override
+    public void onSampleEnd(double time) {
+        // Frames shrink if subscribed bodies were removed in a collision.
+        if (filled > 0 && publisher.hasSubscribers()) {
+            if (filled < ids.length) {
+                frameIds = Arrays.copyOf(frameIds, filled);
+                x = Arrays.copyOf(x, filled);
+                y = Arrays.copyOf(y, filled);
+            }
+            publisher.submit(new PositionFrame(time, frameIds, x, y));
+        }
+        filled = 0;
+    }
+
+    // Cancels the underlying subscription and completes every subscriber.
+    @Override
+    public void close() {
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        publisher.close();
+    }
+}
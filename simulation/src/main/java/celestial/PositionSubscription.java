@@ -0,0 +1,78 @@
+package celestial;
+
+import java.util.Arrays;
+
+// A registration made with SolarSystem.subscribe: the bodies to report and how often.
+class PositionSubscription {
+    private int[] ids;
+    private final double sampleInterval;
+    private final PositionObserver observer;
+    private double nextSampleTime;
+    private volatile boolean cancelled;
+
+    // Constructor for PositionSubscription.
+    public PositionSubscription(int[] ids, double sampleInterval, PositionObserver observer, double startTime) {
+        this.ids = ids.clone();
+        this.sampleInterval = sampleInterval;
+        this.observer = observer;
+        this.nextSampleTime = startTime;
+        this.cancelled = false;
+    }
+
+    public int[] getIds() {
+        return ids.clone();
+    }
+
+    public double getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Stops delivery; safe to call from any thread, including from inside the observer.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // True when a sample is due at `time`; moves the next sample time past it.
+    boolean isDue(double time) {
+        if (cancelled || time < nextSampleTime) {
+            return false;
+        }
+        nextSampleTime = sampleInterval > 0 ? Math.max(nextSampleTime + sampleInterval, time) : time;
+        return true;
+    }
+
+    // Same test as isDue, without moving the next sample time.
+    boolean isDueAt(double time) {
+        return !cancelled && time >= nextSampleTime;
+    }
+
+    void deliver(int[] ids, double time, double[] x, double[] y) {
+        for (int k = 0; k < ids.length && !cancelled; k++) {
+            observer.onPosition(ids[k], time, x[k], y[k]);
+        }
+        observer.onSampleEnd(time);
+    }
+
+    int[] ids() {
+        return ids;
+    }
+
+    // Follows a swap-remove in the store: samples of the removed body stop and the moved body keeps its place.
+    void onRowRemoved(int id, int movedFrom) {
+        int kept = 0;
+        for (int k = 0; k < ids.length; k++) {
+            int current = ids[k];
+            if (current == id) {
+                continue;
+            }
+            ids[kept++] = current == movedFrom ? id : current;
+        }
+        if (kept < ids.length) {
+            ids = Arrays.copyOf(ids, kept);
+        }
+    }
+}
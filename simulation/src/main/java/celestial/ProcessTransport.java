@@ -0,0 +1,56 @@
+package celestial;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Transport to a worker process started by this JVM. Closing it closes the connection and then ends the
+// process, forcibly if it has not exited within EXIT_WAIT_MILLIS.
+class ProcessTransport implements Transport {
+    static final long EXIT_WAIT_MILLIS = 5_000;
+
+    private final Transport transport;
+    private final Process process;
+
+    // Constructor for ProcessTransport.
+    public ProcessTransport(Transport transport, Process process) {
+        this.transport = transport;
+        this.process = process;
+    }
+
+    public Process getProcess() {
+        return process;
+    }
+
+    @Override
+    public void send(ByteBuffer message) throws IOException {
+        transport.send(message);
+    }
+
+    @Override
+    public ByteBuffer receive() throws IOException {
+        return transport.receive();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            transport.close();
+        } finally {
+            destroy(process);
+        }
+    }
+
+    // Asks the process to exit, then kills it if it is still running after EXIT_WAIT_MILLIS.
+    static void destroy(Process process) {
+        process.destroy();
+        try {
+            if (!process.waitFor(EXIT_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
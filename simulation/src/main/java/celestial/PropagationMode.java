@@ -0,0 +1,8 @@
+package celestial;
+
+// Selects how SolarSystem.runSimulation advances orbits.
+enum PropagationMode {
+    STEPPED,  // Integrates theta one timeStep at a time.
+    ANALYTIC, // Evaluates theta(t) = theta0 + 2*PI*t/period directly for the target time.
+    NBODY     // Integrates mutual gravity between all bodies with a leapfrog integrator.
+}
@@ -0,0 +1,19 @@
+package celestial;
+
+// Moves one kind of orbit. SolarSystem sorts its rows into one group per propagator and calls each
+// propagator once per range of its group, so the per-row loops inside stay monomorphic.
+interface Propagator {
+    Propagator CIRCULAR_BY_PERIOD = new CircularPeriodPropagator();
+    Propagator CIRCULAR_BY_MASS = new CircularMassPropagator();
+    Propagator KEPLER = new KeplerPropagator();
+
+    // Called when a row joins this propagator's group, to precompute per-row constants.
+    default void register(BodyStore store, int id) {
+    }
+
+    // Advances rows ids[from, to) by deltaTime.
+    void advance(BodyStore store, int[] ids, int from, int to, double deltaTime);
+
+    // Sets rows ids[from, to) to their closed-form position at targetTime.
+    void advanceTo(BodyStore store, int[] ids, int from, int to, double targetTime);
+}
@@ -0,0 +1,23 @@
+package celestial;
+
+// The rows of a SolarSystem moved by one propagator, in id order.
+class PropagatorGroup extends IdList {
+    private final Propagator propagator;
+
+    // Constructor for PropagatorGroup.
+    public PropagatorGroup(Propagator propagator) {
+        this.propagator = propagator;
+    }
+
+    public Propagator getPropagator() {
+        return propagator;
+    }
+
+    void advance(BodyStore store, int from, int to, double deltaTime) {
+        propagator.advance(store, ids, from, to, deltaTime);
+    }
+
+    void advanceTo(BodyStore store, int from, int to, double targetTime) {
+        propagator.advanceTo(store, ids, from, to, targetTime);
+    }
+}
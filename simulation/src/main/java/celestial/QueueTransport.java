@@ -0,0 +1,64 @@
+package celestial;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// In-memory transport between threads of one JVM. Each message is copied, so the sender may reuse its buffer.
+class QueueTransport implements Transport {
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+    private final BlockingQueue<ByteBuffer> inbox;
+    private final BlockingQueue<ByteBuffer> outbox;
+    private volatile boolean closed;
+
+    private QueueTransport(BlockingQueue<ByteBuffer> inbox, BlockingQueue<ByteBuffer> outbox) {
+        this.inbox = inbox;
+        this.outbox = outbox;
+        this.closed = false;
+    }
+
+    // Returns two connected ends: what one sends, the other receives.
+    public static QueueTransport[] pair() {
+        BlockingQueue<ByteBuffer> first = new LinkedBlockingQueue<>();
+        BlockingQueue<ByteBuffer> second = new LinkedBlockingQueue<>();
+        return new QueueTransport[] {new QueueTransport(first, second), new QueueTransport(second, first)};
+    }
+
+    @Override
+    public void send(ByteBuffer message) throws IOException {
+        if (closed) {
+            throw new IOException("Transport is closed");
+        }
+        ByteBuffer copy = ByteBuffer.allocate(message.remaining());
+        copy.put(message);
+        copy.flip();
+        outbox.add(copy);
+    }
+
+    @Override
+    public ByteBuffer receive() throws IOException {
+        try {
+            ByteBuffer message = inbox.take();
+            if (message == END_OF_STREAM) {
+                inbox.add(END_OF_STREAM);
+                throw new EOFException("Peer closed the transport");
+            }
+            return message;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a message");
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            outbox.add(END_OF_STREAM);
+        }
+    }
+}
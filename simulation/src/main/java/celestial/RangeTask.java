@@ -0,0 +1,36 @@
+package celestial;
+
+import java.util.concurrent.RecursiveAction;
+
+// Splits an index range in half until it is below the sequential cutoff, then runs each piece.
+class RangeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    // Work applied to one contiguous piece [from, to) of the range.
+    interface RangeBody {
+        void apply(int from, int to);
+    }
+
+    private final transient RangeBody body;
+    private final int from;
+    private final int to;
+    private final int sequentialCutoff;
+
+    public RangeTask(RangeBody body, int from, int to, int sequentialCutoff) {
+        this.body = body;
+        this.from = from;
+        this.to = to;
+        this.sequentialCutoff = Math.max(sequentialCutoff, 1);
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= sequentialCutoff) {
+            body.apply(from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        invokeAll(new RangeTask(body, from, mid, sequentialCutoff),
+                  new RangeTask(body, mid, to, sequentialCutoff));
+    }
+}
@@ -0,0 +1,246 @@
+package celestial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+// Runs many what-if variants of one base system in a single JVM. Each scenario forks the base (body data is
+// shared copy-on-write), applies its changes, runs, and is summarised by the registered columns. Scenarios run
+// on virtual threads, with a semaphore capping how many simulate at once.
+class ScenarioRunner {
+    // One variant: a name and the changes made to a fork of the base system before it runs.
+    static class Scenario {
+        private final String name;
+        private final Consumer<SolarSystem> changes;
+
+        // Constructor for Scenario.
+        public Scenario(String name, Consumer<SolarSystem> changes) {
+            this.name = name;
+            this.changes = changes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        void apply(SolarSystem system) {
+            changes.accept(system);
+        }
+
+        // Multiplies the mass of the named body.
+        public static Scenario scaleMass(String name, String bodyName, double factor) {
+            return new Scenario(name, system -> {
+                CelestialBody body = requireBody(system, bodyName);
+                body.setMass(body.getMass() * factor);
+            });
+        }
+
+        // Starts the run from a different epoch: every body first jumps analytically to the given time.
+        public static Scenario startAt(String name, double time) {
+            return new Scenario(name, system -> system.propagateTo(time));
+        }
+
+        // Monte Carlo variants of one comet's orbit: eccentricity and perihelion distance each drawn from
+        // a normal distribution around the base values (eccentricity clamped to [0, 0.999]).
+        public static List<Scenario> cometVariants(String cometName, int count, long seed,
+                                                   double eccentricitySigma, double perihelionSigma) {
+            java.util.Random random = new java.util.Random(seed);
+            List<Scenario> scenarios = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                double eccentricityNoise = random.nextGaussian() * eccentricitySigma;
+                double perihelionNoise = random.nextGaussian() * perihelionSigma;
+                scenarios.add(new Scenario(cometName + " #" + i, system -> {
+                    BodyStore store = system.getStore();
+                    int id = requireBody(system, cometName).getId();
+                    double eccentricity = Math.min(Math.max(store.getEccentricity(id) + eccentricityNoise, 0.0), 0.999);
+                    double perihelion = Math.max(store.getPerihelionDistance(id) + perihelionNoise, 1.0);
+                    store.setOrbitShape(id, eccentricity, perihelion);
+                }));
+            }
+            return scenarios;
+        }
+
+        private static CelestialBody requireBody(SolarSystem system, String bodyName) {
+            CelestialBody body = system.findBody(bodyName);
+            if (body == null) {
+                throw new IllegalArgumentException("No body named " + bodyName);
+            }
+            return body;
+        }
+    }
+
+    // Outcome of one scenario: its column values, or the exception that stopped it.
+    static class ScenarioResult {
+        private final String name;
+        private final double[] values;
+        private final long elapsedNanos;
+        private final Throwable failure;
+
+        // Constructor for ScenarioResult.
+        public ScenarioResult(String name, double[] values, long elapsedNanos, Throwable failure) {
+            this.name = name;
+            this.values = values;
+            this.elapsedNanos = elapsedNanos;
+            this.failure = failure;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getValue(int column) {
+            return values[column];
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public boolean isFailed() {
+            return failure != null;
+        }
+
+        public Throwable getFailure() {
+            return failure;
+        }
+    }
+
+    private final SolarSystem base;
+    private final int maxConcurrency;
+    private final List<String> columnNames;
+    private final List<ToDoubleFunction<SolarSystem>> columns;
+
+    // Constructor for ScenarioRunner.
+    public ScenarioRunner(SolarSystem base, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.base = base;
+        this.maxConcurrency = maxConcurrency;
+        this.columnNames = new ArrayList<>();
+        this.columns = new ArrayList<>();
+    }
+
+    // Adds a summary column, evaluated on each scenario's system after its run.
+    public ScenarioRunner addColumn(String name, ToDoubleFunction<SolarSystem> column) {
+        columnNames.add(name);
+        columns.add(column);
+        return this;
+    }
+
+    // Summary column with the named body's absolute distance from the origin.
+    public ScenarioRunner addDistanceColumn(String bodyName) {
+        return addColumn(bodyName + " r", system -> {
+            CelestialBody body = system.findBody(bodyName);
+            return body != null ? Math.hypot(body.getX(), body.getY()) : Double.NaN;
+        });
+    }
+
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(columnNames);
+    }
+
+    // Runs every scenario for totalTime in steps of timeStep and returns the results in scenario order.
+    // A failing scenario is reported in its result and does not stop the others.
+    public List<ScenarioResult> run(List<Scenario> scenarios, double totalTime, double timeStep) throws InterruptedException {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<ScenarioResult>> futures = new ArrayList<>(scenarios.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Scenario scenario : scenarios) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return runOne(scenario, totalTime, timeStep);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<ScenarioResult> results = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new ScenarioResult(scenarios.get(i).getName(), new double[0], 0L, e.getCause()));
+                }
+            }
+            return results;
+        }
+    }
+
+    private ScenarioResult runOne(Scenario scenario, double totalTime, double timeStep) {
+        long start = System.nanoTime();
+        double[] values = new double[columns.size()];
+        try {
+            SolarSystem system = base.fork();
+            system.setQuiet(true);
+            scenario.apply(system);
+            system.runSimulation(totalTime, timeStep);
+            system.updatePositions();
+            for (int c = 0; c < values.length; c++) {
+                values[c] = columns.get(c).applyAsDouble(system);
+            }
+            return new ScenarioResult(scenario.getName(), values, System.nanoTime() - start, null);
+        } catch (RuntimeException e) {
+            return new ScenarioResult(scenario.getName(), values, System.nanoTime() - start, e);
+        }
+    }
+
+    // Formats the results as a fixed-width table: one row per scenario, then min, mean and max per column.
+    public String formatTable(List<ScenarioResult> results) {
+        StringBuilder out = new StringBuilder();
+        int nameWidth = 8;
+        for (ScenarioResult result : results) {
+            nameWidth = Math.max(nameWidth, result.getName().length());
+        }
+        out.append(String.format("%-" + nameWidth + "s %10s", "scenario", "ms"));
+        for (String columnName : columnNames) {
+            out.append(String.format(" %14s", columnName));
+        }
+        out.append('\n');
+        double[] min = new double[columns.size()];
+        double[] max = new double[columns.size()];
+        double[] sum = new double[columns.size()];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        int succeeded = 0;
+        for (ScenarioResult result : results) {
+            out.append(String.format("%-" + nameWidth + "s %10.1f", result.getName(), result.getElapsedNanos() / 1e6));
+            if (result.isFailed()) {
+                out.append("  FAILED: ").append(result.getFailure()).append('\n');
+                continue;
+            }
+            succeeded++;
+            for (int c = 0; c < columns.size(); c++) {
+                double value = result.getValue(c);
+                out.append(String.format(" %14.6g", value));
+                min[c] = Math.min(min[c], value);
+                max[c] = Math.max(max[c], value);
+                sum[c] += value;
+            }
+            out.append('\n');
+        }
+        if (succeeded > 0) {
+            appendSummaryRow(out, "min", nameWidth, min, 1);
+            appendSummaryRow(out, "mean", nameWidth, sum, succeeded);
+            appendSummaryRow(out, "max", nameWidth, max, 1);
+        }
+        return out.toString();
+    }
+
+    private static void appendSummaryRow(StringBuilder out, String label, int nameWidth, double[] values, int divisor) {
+        out.append(String.format("%-" + nameWidth + "s %10s", label, ""));
+        for (double value : values) {
+            out.append(String.format(" %14.6g", value / divisor));
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,204 @@
+package celestial;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+// Counters for the simulation loop: steps, body updates, time per phase, a per-step latency histogram and
+// bytes allocated by the simulation thread. SolarSystem only records when metrics are installed, so a run
+// without them pays one null check per step. Written by the simulation thread, read by JMX or the reporter
+// without locking, so a reading may be a step behind.
+class SimulationMetrics implements SimulationMetricsMBean {
+    enum Phase { PROPAGATE, FORCE, INDEX, OUTPUT }
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final long[] phaseNanos;
+    private final LatencyHistogram stepLatency;
+    private long steps;
+    private long bodyUpdates;
+    private long stepNanos;
+    private long allocatedBytes;
+    private long stepForceNanos;
+    private long stepAllocationStart;
+    private ScheduledExecutorService reporter;
+
+    // Constructor for SimulationMetrics.
+    public SimulationMetrics() {
+        this.phaseNanos = new long[Phase.values().length];
+        this.stepLatency = new LatencyHistogram();
+    }
+
+    // The HotSpot extension that reports per-thread allocation, or null where it is unavailable.
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                return counter;
+            }
+        }
+        return null;
+    }
+
+    private static long threadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0L;
+    }
+
+    // Marks the start of a step; returns the start time to pass to endStep.
+    public long beginStep() {
+        stepForceNanos = 0;
+        stepAllocationStart = threadAllocatedBytes();
+        return System.nanoTime();
+    }
+
+    // Closes a step begun at stepStart. Propagation ran until propagateEnd (less any force time recorded
+    // meanwhile), the spatial index until indexEnd, and output from there to now.
+    public void endStep(long stepStart, long propagateEnd, long indexEnd, long updatedBodies) {
+        long now = System.nanoTime();
+        phaseNanos[Phase.PROPAGATE.ordinal()] += Math.max(propagateEnd - stepStart - stepForceNanos, 0);
+        phaseNanos[Phase.INDEX.ordinal()] += indexEnd - propagateEnd;
+        phaseNanos[Phase.OUTPUT.ordinal()] += now - indexEnd;
+        stepLatency.record(now - stepStart);
+        stepNanos += now - stepStart;
+        allocatedBytes += threadAllocatedBytes() - stepAllocationStart;
+        bodyUpdates += updatedBodies;
+        steps++;
+    }
+
+    // Adds time spent in one phase, e.g. force evaluation inside a step or output outside one.
+    public void recordPhase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+        if (phase == Phase.FORCE) {
+            stepForceNanos += nanos;
+        }
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public LatencyHistogram getStepLatency() {
+        return stepLatency;
+    }
+
+    @Override
+    public long getSteps() {
+        return steps;
+    }
+
+    @Override
+    public long getBodyUpdates() {
+        return bodyUpdates;
+    }
+
+    // Rates are per second of time spent inside steps, not wall time between runs.
+    @Override
+    public double getStepsPerSecond() {
+        return stepNanos > 0 ? steps * 1e9 / stepNanos : 0.0;
+    }
+
+    @Override
+    public double getBodyUpdatesPerSecond() {
+        return stepNanos > 0 ? bodyUpdates * 1e9 / stepNanos : 0.0;
+    }
+
+    @Override
+    public double getPropagateMillis() {
+        return getPhaseNanos(Phase.PROPAGATE) / 1e6;
+    }
+
+    @Override
+    public double getForceMillis() {
+        return getPhaseNanos(Phase.FORCE) / 1e6;
+    }
+
+    @Override
+    public double getIndexMillis() {
+        return getPhaseNanos(Phase.INDEX) / 1e6;
+    }
+
+    @Override
+    public double getOutputMillis() {
+        return getPhaseNanos(Phase.OUTPUT) / 1e6;
+    }
+
+    @Override
+    public double getStepLatencyP50Micros() {
+        return stepLatency.getValueAtPercentile(50.0) / 1e3;
+    }
+
+    @Override
+    public double getStepLatencyP99Micros() {
+        return stepLatency.getValueAtPercentile(99.0) / 1e3;
+    }
+
+    @Override
+    public double getStepLatencyMaxMicros() {
+        return stepLatency.getMaxValue() / 1e3;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public double getAllocatedBytesPerStep() {
+        return steps > 0 ? (double) allocatedBytes / steps : 0.0;
+    }
+
+    @Override
+    public String getSummary() {
+        return String.format("steps=%d (%.1f/s) bodyUpdates=%d (%.3g/s) step p50=%.1fus p99=%.1fus max=%.1fus"
+                        + " propagate=%.1fms force=%.1fms index=%.1fms output=%.1fms alloc=%.0fB/step",
+                steps, getStepsPerSecond(), bodyUpdates, getBodyUpdatesPerSecond(), getStepLatencyP50Micros(),
+                getStepLatencyP99Micros(), getStepLatencyMaxMicros(), getPropagateMillis(), getForceMillis(),
+                getIndexMillis(), getOutputMillis(), getAllocatedBytesPerStep());
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(phaseNanos, 0);
+        stepLatency.reset();
+        steps = 0;
+        bodyUpdates = 0;
+        stepNanos = 0;
+        allocatedBytes = 0;
+    }
+
+    // Registers these metrics with the platform MBean server as celestial:type=SimulationMetrics,name=<name>.
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("celestial:type=SimulationMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(this, SimulationMetricsMBean.class), objectName);
+        return objectName;
+    }
+
+    public void unregisterMBean(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    // Hands getSummary() to the sink every periodMillis from a daemon thread, until stopReporting.
+    public synchronized void startReporting(long periodMillis, Consumer<String> sink) {
+        stopReporting();
+        reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "simulation-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> sink.accept(getSummary()), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+}
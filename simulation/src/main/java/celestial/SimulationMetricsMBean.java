@@ -0,0 +1,34 @@
+package celestial;
+
+// Management interface for SimulationMetrics; times are in milliseconds, latencies in microseconds.
+public interface SimulationMetricsMBean {
+    long getSteps();
+
+    long getBodyUpdates();
+
+    double getStepsPerSecond();
+
+    double getBodyUpdatesPerSecond();
+
+    double getPropagateMillis();
+
+    double getForceMillis();
+
+    double getIndexMillis();
+
+    double getOutputMillis();
+
+    double getStepLatencyP50Micros();
+
+    double getStepLatencyP99Micros();
+
+    double getStepLatencyMaxMicros();
+
+    long getAllocatedBytes();
+
+    double getAllocatedBytesPerStep();
+
+    String getSummary();
+
+    void reset();
+}
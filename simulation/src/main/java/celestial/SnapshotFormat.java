@@ -0,0 +1,35 @@
+package celestial;
+
+// Versioned binary snapshot layout, little-endian:
+//   header (HEADER_BYTES): magic, version, bodyCount, frameCount, bodyTableOffset, firstFrameOffset, frameBytes
+//   body table: per body mass, radius, orbitalPeriod, eccentricity, perihelionDistance, parent, name, category
+//   frames: time, then theta[bodyCount], orbitalRadius[bodyCount], x[bodyCount], y[bodyCount], meanAnomaly[bodyCount]
+// The mean anomaly lets a restored eccentric orbit continue bit for bit instead of re-deriving it from theta.
+// Every frame has the same size, so frame k starts at firstFrameOffset + k * frameBytes.
+class SnapshotFormat {
+    public static final int MAGIC = 0x4342534E; // "CBSN"
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 64;
+    public static final int FRAME_COLUMNS = 5;
+    static final int FRAME_COUNT_OFFSET = 12;
+    // Names and categories carry an unsigned 16-bit length prefix.
+    public static final int MAX_STRING_BYTES = 0xFFFF;
+    // Smallest body table entry: five doubles, the parent and two empty strings.
+    static final int MIN_BODY_BYTES = 5 * Double.BYTES + Integer.BYTES + 2 * Short.BYTES;
+    // A frame is written and restored through one int-indexed buffer, so it must stay under 2 GiB.
+    public static final long MAX_FRAME_BYTES = Integer.MAX_VALUE;
+    public static final int MAX_BODIES = (int) ((MAX_FRAME_BYTES / Double.BYTES - 1) / FRAME_COLUMNS);
+    // Frames are mapped in windows of about this size rather than one mapping per frame.
+    static final long WINDOW_BYTES = 64L << 20;
+
+    private SnapshotFormat() {
+    }
+
+    public static long frameBytes(int bodyCount) {
+        return Double.BYTES * (1L + (long) FRAME_COLUMNS * bodyCount);
+    }
+
+    static int framesPerWindow(long frameBytes) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, WINDOW_BYTES / frameBytes));
+    }
+}
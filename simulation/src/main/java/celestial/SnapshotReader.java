@@ -0,0 +1,228 @@
+package celestial;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads a snapshot file for replay or analysis. Any frame is reached in O(1) by offset arithmetic,
+// through a mapped window that is only remapped when a read falls outside it.
+class SnapshotReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final int bodyCount;
+    private final int frameCount;
+    private final long firstFrameOffset;
+    private final long frameBytes;
+    private final int framesPerWindow;
+    private final double[] mass;
+    private final double[] radius;
+    private final double[] orbitalPeriod;
+    private final double[] eccentricity;
+    private final double[] perihelionDistance;
+    private final int[] parent;
+    private final String[] names;
+    private final String[] categories;
+    private MappedByteBuffer window;
+    private int windowFirstFrame;
+    private int windowFrames;
+
+    // Constructor for SnapshotReader. The header is checked against the file before anything is mapped from it,
+    // and a file that fails any check is closed again and reported as an IOException.
+    public SnapshotReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long fileBytes = channel.size();
+            if (fileBytes < SnapshotFormat.HEADER_BYTES) {
+                throw new IOException(path + " is not a snapshot file: " + fileBytes + " bytes is shorter than the "
+                        + SnapshotFormat.HEADER_BYTES + "-byte header");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SnapshotFormat.HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != SnapshotFormat.MAGIC) {
+                throw new IOException(path + " is not a snapshot file");
+            }
+            int version = header.getInt(4);
+            if (version != SnapshotFormat.VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + path);
+            }
+            this.bodyCount = header.getInt(8);
+            long bodyTableOffset = header.getLong(16);
+            this.firstFrameOffset = header.getLong(24);
+            this.frameBytes = header.getLong(32);
+            if (bodyCount < 0 || bodyCount > SnapshotFormat.MAX_BODIES
+                    || frameBytes != SnapshotFormat.frameBytes(bodyCount)) {
+                throw new IOException("Corrupt snapshot header in " + path + ": " + bodyCount + " bodies with "
+                        + frameBytes + "-byte frames");
+            }
+            long tableBytes = firstFrameOffset - bodyTableOffset;
+            if (bodyTableOffset < SnapshotFormat.HEADER_BYTES || firstFrameOffset > fileBytes
+                    || tableBytes < (long) SnapshotFormat.MIN_BODY_BYTES * bodyCount || tableBytes > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt snapshot header in " + path + ": body table [" + bodyTableOffset + ", "
+                        + firstFrameOffset + ") does not fit " + bodyCount + " bodies in a " + fileBytes + "-byte file");
+            }
+            // The file length bounds the count in case the writer did not close cleanly.
+            long framesOnDisk = (fileBytes - firstFrameOffset) / frameBytes;
+            this.frameCount = (int) Math.max(0, Math.min(header.getInt(SnapshotFormat.FRAME_COUNT_OFFSET), framesOnDisk));
+            this.framesPerWindow = SnapshotFormat.framesPerWindow(frameBytes);
+
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, bodyTableOffset, tableBytes);
+            table.order(ByteOrder.LITTLE_ENDIAN);
+            this.mass = new double[bodyCount];
+            this.radius = new double[bodyCount];
+            this.orbitalPeriod = new double[bodyCount];
+            this.eccentricity = new double[bodyCount];
+            this.perihelionDistance = new double[bodyCount];
+            this.parent = new int[bodyCount];
+            this.names = new String[bodyCount];
+            this.categories = new String[bodyCount];
+            try {
+                for (int i = 0; i < bodyCount; i++) {
+                    mass[i] = table.getDouble();
+                    radius[i] = table.getDouble();
+                    orbitalPeriod[i] = table.getDouble();
+                    eccentricity[i] = table.getDouble();
+                    perihelionDistance[i] = table.getDouble();
+                    parent[i] = table.getInt();
+                    names[i] = getString(table);
+                    categories[i] = getString(table);
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated body table in " + path + " for " + bodyCount + " bodies", e);
+            }
+            this.window = null;
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public String getCategory(int id) {
+        return categories[id];
+    }
+
+    public double getMass(int id) {
+        return mass[id];
+    }
+
+    public double getRadius(int id) {
+        return radius[id];
+    }
+
+    public double getOrbitalPeriod(int id) {
+        return orbitalPeriod[id];
+    }
+
+    public double getEccentricity(int id) {
+        return eccentricity[id];
+    }
+
+    public double getPerihelionDistance(int id) {
+        return perihelionDistance[id];
+    }
+
+    public int getParent(int id) {
+        return parent[id];
+    }
+
+    public double getTime(int frame) throws IOException {
+        return read(frame, -1, 0);
+    }
+
+    public double getTheta(int frame, int id) throws IOException {
+        return read(frame, 0, id);
+    }
+
+    public double getOrbitalRadius(int frame, int id) throws IOException {
+        return read(frame, 1, id);
+    }
+
+    public double getX(int frame, int id) throws IOException {
+        return read(frame, 2, id);
+    }
+
+    public double getY(int frame, int id) throws IOException {
+        return read(frame, 3, id);
+    }
+
+    public double getMeanAnomaly(int frame, int id) throws IOException {
+        return read(frame, 4, id);
+    }
+
+    // Column -1 is the frame time; columns 0..4 are theta, orbitalRadius, x, y, meanAnomaly.
+    private double read(int frame, int column, int id) throws IOException {
+        int position = framePosition(frame);
+        long index = column < 0 ? 0 : 1 + (long) column * bodyCount + id;
+        return window.getDouble(position + (int) (Double.BYTES * index));
+    }
+
+    // Resumes a run: loads the frame's time and per-body state into a system built with the same bodies in the same order.
+    // Each row must match the body table by name, mass and parent; anything else means a different system.
+    // Velocities are not part of the format, so an NBODY run resumes with velocities derived from the orbits.
+    public void restore(int frame, SolarSystem system) throws IOException {
+        BodyStore store = system.getStore();
+        if (store.size() != bodyCount) {
+            throw new IllegalArgumentException("Snapshot has " + bodyCount + " bodies but the system has " + store.size());
+        }
+        for (int id = 0; id < bodyCount; id++) {
+            String name = system.getBody(id).getName();
+            if (!names[id].equals(name) || store.getMass(id) != mass[id] || store.getParent(id) != parent[id]) {
+                throw new IllegalArgumentException("Body " + id + " is " + name + " (mass " + store.getMass(id)
+                        + ", parent " + store.getParent(id) + ") but the snapshot has " + names[id] + " (mass "
+                        + mass[id] + ", parent " + parent[id] + ")");
+            }
+        }
+        int position = framePosition(frame);
+        store.setTime(window.getDouble(position));
+        DoubleBuffer columns = window.slice(position + Double.BYTES, (int) frameBytes - Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        store.getFrameColumns(columns);
+    }
+
+    // Maps the window containing the frame if needed and returns the frame's offset within it.
+    private int framePosition(int frame) throws IOException {
+        if (frame < 0 || frame >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of " + frameCount);
+        }
+        if (window == null || frame < windowFirstFrame || frame >= windowFirstFrame + windowFrames) {
+            windowFirstFrame = frame - frame % framesPerWindow;
+            windowFrames = Math.min(framesPerWindow, frameCount - windowFirstFrame);
+            window = channel.map(FileChannel.MapMode.READ_ONLY,
+                                 firstFrameOffset + windowFirstFrame * frameBytes, windowFrames * frameBytes);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return (int) ((frame - windowFirstFrame) * frameBytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,130 @@
+package celestial;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Appends frames of a system's state to a snapshot file through memory-mapped windows.
+// Columns are bulk-copied from the store's arrays, so there is no per-body serialization.
+class SnapshotWriter implements AutoCloseable {
+    private final FileChannel channel;
+    private final int bodyCount;
+    private final long firstFrameOffset;
+    private final long frameBytes;
+    private final int framesPerWindow;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer window;
+    private int windowFirstFrame;
+    private int frameCount;
+
+    // Creates (or truncates) the file and writes the header and body table for the system's current bodies.
+    // The table is built first, so a name too long for the format or a system too large for one frame
+    // leaves an existing file untouched.
+    public SnapshotWriter(Path path, SolarSystem system) throws IOException {
+        BodyStore store = system.getStore();
+        this.bodyCount = store.size();
+        if (bodyCount > SnapshotFormat.MAX_BODIES) {
+            throw new IllegalArgumentException("A snapshot frame of " + bodyCount + " bodies would be "
+                    + SnapshotFormat.frameBytes(bodyCount) + " bytes; frames are limited to 2 GiB, or "
+                    + SnapshotFormat.MAX_BODIES + " bodies");
+        }
+        ByteBuffer table = ByteBuffer.allocate(bodyTableBytes(system)).order(ByteOrder.LITTLE_ENDIAN);
+        for (CelestialBody body : system.getBodies()) {
+            int id = body.getId();
+            table.putDouble(store.getMass(id));
+            table.putDouble(store.getRadius(id));
+            table.putDouble(store.getOrbitalPeriod(id));
+            table.putDouble(store.getEccentricity(id));
+            table.putDouble(store.getPerihelionDistance(id));
+            table.putInt(store.getParent(id));
+            putString(table, body.getName());
+            putString(table, body.getCategory());
+        }
+        table.flip();
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long bodyTableOffset = SnapshotFormat.HEADER_BYTES;
+        this.firstFrameOffset = bodyTableOffset + table.remaining();
+        this.frameBytes = SnapshotFormat.frameBytes(bodyCount);
+        this.framesPerWindow = SnapshotFormat.framesPerWindow(frameBytes);
+        while (table.hasRemaining()) {
+            channel.write(table, bodyTableOffset + table.position());
+        }
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, SnapshotFormat.HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, SnapshotFormat.MAGIC);
+        header.putInt(4, SnapshotFormat.VERSION);
+        header.putInt(8, bodyCount);
+        header.putInt(SnapshotFormat.FRAME_COUNT_OFFSET, 0);
+        header.putLong(16, bodyTableOffset);
+        header.putLong(24, firstFrameOffset);
+        header.putLong(32, frameBytes);
+        this.window = null;
+        this.frameCount = 0;
+    }
+
+    private static int bodyTableBytes(SolarSystem system) {
+        long bytes = 0;
+        for (CelestialBody body : system.getBodies()) {
+            bytes += SnapshotFormat.MIN_BODY_BYTES + 3L * body.getName().length() + 3L * body.getCategory().length();
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The body table of " + system.getBodies().size() + " bodies could take "
+                    + bytes + " bytes; snapshot body tables are limited to 2 GiB");
+        }
+        return (int) bytes;
+    }
+
+    // Length-prefixed UTF-8; the prefix is an unsigned short.
+    private static void putString(ByteBuffer out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > SnapshotFormat.MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("\"" + text.substring(0, 32) + "...\" is " + bytes.length
+                    + " bytes in UTF-8; snapshot strings are limited to " + SnapshotFormat.MAX_STRING_BYTES);
+        }
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    // Appends the system's current time and per-body columns as the next frame.
+    public void appendFrame(SolarSystem system) throws IOException {
+        BodyStore store = system.getStore();
+        if (store.size() != bodyCount) {
+            throw new IllegalStateException("Snapshot has " + bodyCount + " bodies but the system now has " + store.size());
+        }
+        if (window == null || frameCount - windowFirstFrame >= framesPerWindow) {
+            windowFirstFrame = frameCount;
+            window = channel.map(FileChannel.MapMode.READ_WRITE,
+                                 firstFrameOffset + frameCount * frameBytes, framesPerWindow * frameBytes);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int position = (int) ((frameCount - windowFirstFrame) * frameBytes);
+        window.putDouble(position, store.getTime());
+        DoubleBuffer columns = window.slice(position + Double.BYTES, (int) frameBytes - Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        store.putFrameColumns(columns);
+        frameCount++;
+        header.putInt(SnapshotFormat.FRAME_COUNT_OFFSET, frameCount);
+    }
+
+    // Flushes mapped pages and trims the file to the frames actually written.
+    @Override
+    public void close() throws IOException {
+        if (window != null) {
+            window.force();
+        }
+        header.force();
+        channel.truncate(firstFrameOffset + frameCount * frameBytes);
+        channel.close();
+    }
+}
@@ -0,0 +1,62 @@
+package celestial;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+// Transport over a TCP socket: each message is a 4-byte length followed by its bytes.
+class SocketTransport implements Transport {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private ByteBuffer inbound;
+
+    // Constructor for SocketTransport.
+    public SocketTransport(Socket socket) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        this.inbound = ByteBuffer.allocate(1 << 16);
+    }
+
+    public static SocketTransport connect(String host, int port) throws IOException {
+        return new SocketTransport(new Socket(host, port));
+    }
+
+    @Override
+    public void send(ByteBuffer message) throws IOException {
+        int length = message.remaining();
+        out.writeInt(length);
+        if (message.hasArray()) {
+            out.write(message.array(), message.arrayOffset() + message.position(), length);
+            message.position(message.limit());
+        } else {
+            byte[] bytes = new byte[length];
+            message.get(bytes);
+            out.write(bytes);
+        }
+        out.flush();
+    }
+
+    @Override
+    public ByteBuffer receive() throws IOException {
+        int length = in.readInt();
+        if (inbound.capacity() < length) {
+            inbound = ByteBuffer.allocate(Math.max(length, inbound.capacity() * 2));
+        }
+        inbound.clear();
+        in.readFully(inbound.array(), 0, length);
+        inbound.limit(length);
+        return inbound;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,962 @@
+package celestial;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+
+import static celestial.Main.SECONDS_PER_DAY;
+
+// Client Program / Utility Class: Manages a collection of CelestialBodies.
+class SolarSystem {
+    public static final int DEFAULT_SEQUENTIAL_CUTOFF = 8192;
+    public static final int DEFAULT_PENDING_BATCHES = 16;
+
+    private ArrayList<CelestialBody> bodies;
+    private CelestialBody centralStar;
+    private BodyStore store;
+    private Map<String, IdList> nameIndex;
+    private Map<String, IdList> categoryIndex;
+    // Set when the name and category indexes are shared with a fork; the first add copies them.
+    private boolean indexesShared;
+    // Set by removals, which would shift ids inside the category lists; the next lookup rebuilds them.
+    private boolean categoryIndexStale;
+    private Map<String, List<Moon>> unresolvedMoons;
+    private PropagationMode propagationMode;
+    private List<PropagatorGroup> propagatorGroups;
+    private Map<Integer, Propagator> propagatorOverrides;
+    private long groupsLayoutVersion;
+    private ForkJoinPool forkJoinPool;
+    private int sequentialCutoff;
+    private NBodyIntegrator nBodyIntegrator;
+    private BlockTimestepScheduler blockTimestepScheduler;
+    private PropagatorGroup[][] levelGroups;
+    private StateWriter stateWriter;
+    private boolean quiet;
+    private BlockingQueue<CelestialBody[]> pendingBatches;
+    private List<PositionSubscription> subscriptions;
+    private SpatialGrid spatialIndex;
+    private SimulationMetrics metrics;
+    private CollisionDetector collisionDetector;
+    // Rows the collision stage will remove once the current sweep is done.
+    private BitSet removing;
+    private IdList pendingRemovals;
+    private double[] sampleX;
+    private double[] sampleY;
+
+    // Constructor for SolarSystem.
+    public SolarSystem(CelestialBody centralStar) {
+        this(centralStar, ColumnStorage.HEAP);
+    }
+
+    // Keeps the body columns in the given storage; with OFF_HEAP the caller must close the store when done.
+    public SolarSystem(CelestialBody centralStar, ColumnStorage storage) {
+        this.bodies = new ArrayList<>();
+        this.store = new BodyStore(storage);
+        this.nameIndex = new HashMap<>();
+        this.categoryIndex = new HashMap<>();
+        this.indexesShared = false;
+        this.categoryIndexStale = false;
+        this.unresolvedMoons = new HashMap<>();
+        this.propagationMode = PropagationMode.STEPPED;
+        this.propagatorGroups = new ArrayList<>();
+        this.propagatorOverrides = new HashMap<>();
+        this.groupsLayoutVersion = -1;
+        this.forkJoinPool = null;
+        this.sequentialCutoff = DEFAULT_SEQUENTIAL_CUTOFF;
+        this.nBodyIntegrator = null;
+        this.blockTimestepScheduler = null;
+        this.levelGroups = null;
+        this.stateWriter = new StateWriter();
+        this.quiet = false;
+        this.pendingBatches = new ArrayBlockingQueue<>(DEFAULT_PENDING_BATCHES);
+        this.subscriptions = new CopyOnWriteArrayList<>();
+        this.spatialIndex = null;
+        this.metrics = null;
+        this.collisionDetector = null;
+        this.removing = new BitSet();
+        this.pendingRemovals = new IdList();
+        this.sampleX = new double[0];
+        this.sampleY = new double[0];
+        this.centralStar = centralStar;
+        if (centralStar != null) {
+            centralStar.bind(store);
+            this.bodies.add(centralStar);
+            index(centralStar);
+        }
+    }
+
+    // Constructor used by fork and copyToOffHeap, over a store holding the same rows as base's.
+    private SolarSystem(SolarSystem base, BodyStore store) {
+        this.store = store;
+        this.bodies = new ArrayList<>(base.bodies.size());
+        for (CelestialBody body : base.bodies) {
+            this.bodies.add(CelestialBody.viewOf(body, store));
+        }
+        this.centralStar = base.centralStar != null ? bodies.get(base.centralStar.getId()) : null;
+        this.nameIndex = base.nameIndex;
+        this.categoryIndex = base.categoryIndex;
+        this.indexesShared = true;
+        this.categoryIndexStale = false;
+        this.unresolvedMoons = new HashMap<>();
+        this.propagationMode = base.propagationMode;
+        this.propagatorGroups = new ArrayList<>();
+        for (PropagatorGroup group : base.propagatorGroups) {
+            PropagatorGroup copy = new PropagatorGroup(group.getPropagator());
+            copy.copyFrom(group);
+            this.propagatorGroups.add(copy);
+        }
+        this.propagatorOverrides = new HashMap<>(base.propagatorOverrides);
+        this.groupsLayoutVersion = base.groupsLayoutVersion;
+        this.forkJoinPool = null;
+        this.sequentialCutoff = base.sequentialCutoff;
+        this.nBodyIntegrator = null;
+        this.blockTimestepScheduler = null;
+        this.levelGroups = null;
+        this.stateWriter = new StateWriter();
+        this.quiet = base.quiet;
+        this.pendingBatches = new ArrayBlockingQueue<>(DEFAULT_PENDING_BATCHES);
+        this.subscriptions = new CopyOnWriteArrayList<>();
+        this.spatialIndex = null;
+        this.metrics = null;
+        this.collisionDetector = null;
+        this.removing = new BitSet();
+        this.pendingRemovals = new IdList();
+        this.sampleX = new double[0];
+        this.sampleY = new double[0];
+    }
+
+    // Returns an independent copy of this system for what-if runs. Body data is shared copy-on-write with
+    // this system, and the fork's bodies are plain CelestialBody views (name and category only, no subclass
+    // fields). Moons still waiting for their planet, the fork-join pool, N-body integrator, block scheduler,
+    // spatial index, collision detector, metrics, subscriptions and queued batches are not carried over.
+    // This system must not change while forking; forking itself is safe from several threads.
+    public synchronized SolarSystem fork() {
+        ensurePropagatorGroups();
+        categoryIndex();
+        indexesShared = true;
+        return new SolarSystem(this, store.fork());
+    }
+
+    // Returns the bodies in id order, central star first.
+    public List<CelestialBody> getBodies() {
+        return Collections.unmodifiableList(bodies);
+    }
+
+    public CelestialBody getCentralStar() {
+        return centralStar;
+    }
+
+    // Returns the columnar store backing every body in the system.
+    public BodyStore getStore() {
+        return store;
+    }
+
+    // Returns a copy of this system whose body columns live off-heap, for runs too large for the heap. Like a
+    // fork, the copy's bodies are plain views and the same settings are left behind; unlike one, nothing is
+    // shared, and it propagates bit for bit like this system. The columns are direct buffers, limited by
+    // -XX:MaxDirectMemorySize (by default the maximum heap size). The caller must close the copy's store.
+    public synchronized SolarSystem copyToOffHeap() {
+        drainPendingBatches();
+        ensurePropagatorGroups();
+        categoryIndex();
+        indexesShared = true;
+        return new SolarSystem(this, store.copyTo(ColumnStorage.OFF_HEAP));
+    }
+
+    public PropagationMode getPropagationMode() {
+        return propagationMode;
+    }
+
+    public void setPropagationMode(PropagationMode propagationMode) {
+        this.propagationMode = propagationMode;
+    }
+
+    // Returns the integrator used in NBODY mode, creating a direct-summation one on first use.
+    public NBodyIntegrator getNBodyIntegrator() {
+        if (nBodyIntegrator == null) {
+            nBodyIntegrator = new NBodyIntegrator(new DirectForceSolver(), 0.0);
+        }
+        return nBodyIntegrator;
+    }
+
+    public void setNBodyIntegrator(NBodyIntegrator nBodyIntegrator) {
+        this.nBodyIntegrator = nBodyIntegrator;
+    }
+
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Instruments runSimulation and writeState with the given metrics; null (the default) turns it off.
+    public void setMetrics(SimulationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Suppresses the start and end banners printed by runSimulation.
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    public StateWriter getStateWriter() {
+        return stateWriter;
+    }
+
+    public BlockTimestepScheduler getBlockTimestepScheduler() {
+        return blockTimestepScheduler;
+    }
+
+    // Enables per-body block timesteps in STEPPED and NBODY modes; null restores one global step.
+    // With a scheduler, runSimulation's timeStep is the coarsest block step, refined per body as needed.
+    public void setBlockTimestepScheduler(BlockTimestepScheduler blockTimestepScheduler) {
+        this.blockTimestepScheduler = blockTimestepScheduler;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    // Runs propagation in parallel on the given pool; null restores sequential execution.
+    // Each body is updated by exactly the same arithmetic either way, so results are bit-identical.
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public int getSequentialCutoff() {
+        return sequentialCutoff;
+    }
+
+    // Ranges with at most this many bodies are updated inline rather than forked.
+    public void setSequentialCutoff(int sequentialCutoff) {
+        this.sequentialCutoff = sequentialCutoff;
+    }
+
+    // Applies body to [from, to), split across the pool when parallel execution is enabled.
+    private void forEachRange(int from, int to, RangeTask.RangeBody body) {
+        if (forkJoinPool == null || to - from <= sequentialCutoff) {
+            if (from < to) {
+                body.apply(from, to);
+            }
+        } else {
+            forkJoinPool.invoke(new RangeTask(body, from, to, sequentialCutoff));
+        }
+    }
+
+    // Returns the simulated time elapsed so far, in seconds.
+    public double getElapsedTime() {
+        return store.getTime();
+    }
+
+    // Jumps every orbiting body straight to its position at targetTime.
+    public void propagateTo(double targetTime) {
+        ensurePropagatorGroups();
+        for (PropagatorGroup group : propagatorGroups) {
+            forEachRange(0, group.size(), (from, to) -> group.advanceTo(store, from, to, targetTime));
+        }
+        store.setTime(targetTime);
+    }
+
+    // The propagator a row gets unless overridden: Kepler for eccentric orbits, circular-by-mass for rows
+    // with a central mass, circular-by-period for rows with a period, none (the row stays put) otherwise.
+    public static Propagator defaultPropagator(BodyStore store, int id) {
+        if (store.getEccentricity(id) > 0) {
+            return Propagator.KEPLER;
+        } else if (store.getCentralMass(id) > 0) {
+            return Propagator.CIRCULAR_BY_MASS;
+        } else if (store.getOrbitalPeriod(id) > 0) {
+            return Propagator.CIRCULAR_BY_PERIOD;
+        }
+        return null;
+    }
+
+    // Moves the body with a custom propagator instead of its default one; null restores the default.
+    public void setPropagator(CelestialBody body, Propagator propagator) {
+        if (propagator != null) {
+            propagatorOverrides.put(body.getId(), propagator);
+        } else {
+            propagatorOverrides.remove(body.getId());
+        }
+        groupsLayoutVersion = -1;
+    }
+
+    // Returns the current groups, one per propagator in use.
+    public List<PropagatorGroup> getPropagatorGroups() {
+        ensurePropagatorGroups();
+        return Collections.unmodifiableList(propagatorGroups);
+    }
+
+    // Regroups the orbiting rows by propagator and registers them, if rows were added or changed kind since the last time.
+    // Registration derives the periods of circular-by-mass rows, so anything reading orbital velocities from the
+    // store outside runSimulation (e.g. DistributedSimulation.start) calls this first.
+    void ensurePropagatorGroups() {
+        if (groupsLayoutVersion == store.getLayoutVersion()) {
+            return;
+        }
+        for (PropagatorGroup group : propagatorGroups) {
+            group.clear();
+        }
+        for (int id = firstOrbitingId(); id < store.size(); id++) {
+            Propagator propagator = propagatorOverrides.getOrDefault(id, defaultPropagator(store, id));
+            if (propagator == null) {
+                continue;
+            }
+            PropagatorGroup group = null;
+            for (PropagatorGroup candidate : propagatorGroups) {
+                if (candidate.getPropagator() == propagator) {
+                    group = candidate;
+                    break;
+                }
+            }
+            if (group == null) {
+                group = new PropagatorGroup(propagator);
+                propagatorGroups.add(group);
+            }
+            group.add(id);
+            propagator.register(store, id);
+        }
+        propagatorGroups.removeIf(group -> group.size() == 0);
+        groupsLayoutVersion = store.getLayoutVersion();
+    }
+
+    // The central star is always row 0, so the orbiting bodies are one contiguous range.
+    private int firstOrbitingId() {
+        return centralStar != null ? 1 : 0;
+    }
+
+    // Adds a celestial body to the system. A body already bound to this system's store is a duplicate and is ignored;
+    // the check is by identity and O(1).
+    public void addBody(CelestialBody body) {
+        if (body != null && body.getStore() != store) {
+            if (body.getStore() != null) {
+                throw new IllegalArgumentException(body.getName() + " already belongs to another system");
+            }
+            body.bind(store);
+            bodies.add(body);
+            index(body);
+            attachToOrbitTree(body);
+            // System.out.println("Added " + body.getName() + " to the system."); // Removed for reduced output
+        }
+    }
+
+    // Adds batch[0, count) in one go, growing the store once for the whole batch.
+    public void addBatch(CelestialBody[] batch, int count) {
+        store.ensureCapacity(store.size() + count);
+        bodies.ensureCapacity(bodies.size() + count);
+        for (int i = 0; i < count; i++) {
+            addBody(batch[i]);
+        }
+    }
+
+    // Queues a batch from another thread (e.g. a background catalog loader). Blocks while the queue is full,
+    // which bounds the memory held by parsed-but-not-yet-added bodies.
+    public void enqueueBatch(CelestialBody[] batch) throws InterruptedException {
+        pendingBatches.put(batch);
+    }
+
+    // Adds every queued batch; returns the number of bodies added. runSimulation calls this between steps.
+    public int drainPendingBatches() {
+        int added = 0;
+        CelestialBody[] batch;
+        while ((batch = pendingBatches.poll()) != null) {
+            addBatch(batch, batch.length);
+            added += batch.length;
+        }
+        return added;
+    }
+
+    // Removes a body in O(1): the last row of the store takes its id, and the body keeps its final values as a
+    // detached object. Moons orbiting it move to its parent. Bodies not in this system are ignored.
+    public void removeBody(CelestialBody body) {
+        if (body == null || body.getStore() != store) {
+            return;
+        }
+        if (body == centralStar) {
+            throw new IllegalArgumentException("The central star cannot be removed");
+        }
+        removeRow(body.getId(), null);
+    }
+
+    // Swap-removes one row and renames the moved row everywhere ids are held: the body list, name index,
+    // propagator overrides, spatial index, subscriptions and, during an NBODY run, the integrator.
+    // Category lists and propagator groups are rebuilt lazily, once per batch of removals.
+    private void removeRow(int id, NBodyIntegrator integrator) {
+        CelestialBody body = bodies.get(id);
+        ownIndexes();
+        if (store.getChildCount(id) > 0) {
+            int parentId = store.getParent(id);
+            store.reparentChildren(id);
+            for (CelestialBody other : bodies) {
+                if (other instanceof Moon && ((Moon) other).getPlanetOrbiting() == body) {
+                    ((Moon) other).setPlanetOrbiting(parentId >= 0 ? bodies.get(parentId) : null);
+                }
+            }
+        }
+        int oldSize = store.size();
+        body.unbind();
+        int movedFrom = store.swapRemove(id);
+        CelestialBody moved = bodies.remove(bodies.size() - 1);
+        if (movedFrom >= 0) {
+            bodies.set(id, moved);
+            moved.relocate(id);
+        }
+        unindexName(body.getName(), id);
+        if (movedFrom >= 0) {
+            nameIndex.get(moved.getName()).replace(movedFrom, id);
+        }
+        categoryIndexStale = true;
+        propagatorOverrides.remove(id);
+        Propagator movedPropagator = movedFrom >= 0 ? propagatorOverrides.remove(movedFrom) : null;
+        if (movedPropagator != null) {
+            propagatorOverrides.put(id, movedPropagator);
+        }
+        if (spatialIndex != null && spatialIndex.size() == oldSize) {
+            spatialIndex.swapRemove(id);
+        }
+        for (PositionSubscription subscription : subscriptions) {
+            subscription.onRowRemoved(id, movedFrom);
+        }
+        if (integrator != null) {
+            integrator.swapRemove(id);
+        }
+    }
+
+    // Records the body under its name (the first body added with a name that is still here holds it) and its category,
+    // as they are when the body is added.
+    private void index(CelestialBody body) {
+        ownIndexes();
+        indexName(body.getName(), body.getId());
+        if (!categoryIndexStale) {
+            categoryIndex.computeIfAbsent(body.getCategory(), category -> new IdList()).add(body.getId());
+        }
+    }
+
+    // Bodies sharing a name keep it in the order they took it; the first one still here is the one found.
+    private void indexName(String name, int id) {
+        nameIndex.computeIfAbsent(name, key -> new IdList(1)).add(id);
+    }
+
+    private void unindexName(String name, int id) {
+        IdList ids = nameIndex.get(name);
+        if (ids != null && ids.remove(id) && ids.size() == 0) {
+            nameIndex.remove(name);
+        }
+    }
+
+    // Copies the indexes if they are still shared with a fork, before they are changed.
+    private void ownIndexes() {
+        if (indexesShared) {
+            Map<String, IdList> names = new HashMap<>();
+            for (Map.Entry<String, IdList> entry : nameIndex.entrySet()) {
+                IdList ids = new IdList(1);
+                ids.copyFrom(entry.getValue());
+                names.put(entry.getKey(), ids);
+            }
+            nameIndex = names;
+            Map<String, IdList> categories = new HashMap<>();
+            for (Map.Entry<String, IdList> entry : categoryIndex.entrySet()) {
+                IdList ids = new IdList();
+                ids.copyFrom(entry.getValue());
+                categories.put(entry.getKey(), ids);
+            }
+            categoryIndex = categories;
+            indexesShared = false;
+        }
+    }
+
+    // The category lists, rebuilt in id order if removals have made them stale.
+    private Map<String, IdList> categoryIndex() {
+        if (categoryIndexStale) {
+            Map<String, IdList> categories = new HashMap<>();
+            for (CelestialBody body : bodies) {
+                categories.computeIfAbsent(body.getCategory(), category -> new IdList()).add(body.getId());
+            }
+            categoryIndex = categories;
+            categoryIndexStale = false;
+        }
+        return categoryIndex;
+    }
+
+    // Moons orbit the body named by planetOrbitingName (resolved now or once it is added); everything else orbits the central star.
+    private void attachToOrbitTree(CelestialBody body) {
+        if (body instanceof Moon) {
+            Moon moon = (Moon) body;
+            CelestialBody planet = findBody(moon.getPlanetOrbitingName());
+            if (planet != null) {
+                moon.setPlanetOrbiting(planet);
+            } else {
+                unresolvedMoons.computeIfAbsent(moon.getPlanetOrbitingName(), name -> new ArrayList<>()).add(moon);
+            }
+        } else if (centralStar != null) {
+            store.setParent(body.getId(), centralStar.getId());
+        }
+        if (!unresolvedMoons.isEmpty()) {
+            List<Moon> waiting = unresolvedMoons.remove(body.getName());
+            if (waiting != null) {
+                for (Moon moon : waiting) {
+                    moon.setPlanetOrbiting(body);
+                }
+            }
+        }
+    }
+
+    // Renames a body of this system and updates the name index. If another body shares the old name,
+    // it becomes the one findBody returns; the new name is only indexed if no body holds it yet.
+    // Its moons follow the new name, and moons still waiting for a planet of that name attach to it.
+    public void renameBody(CelestialBody body, String name) {
+        checkMember(body);
+        String oldName = body.getName();
+        if (oldName.equals(name)) {
+            return;
+        }
+        ownIndexes();
+        int id = body.getId();
+        body.assignName(name);
+        unindexName(oldName, id);
+        indexName(name, id);
+        for (CelestialBody other : bodies) {
+            if (other instanceof Moon && ((Moon) other).getPlanetOrbiting() == body) {
+                ((Moon) other).setPlanetOrbitingName(name);
+            }
+        }
+        List<Moon> waiting = unresolvedMoons.remove(name);
+        if (waiting != null) {
+            for (Moon moon : waiting) {
+                moon.setPlanetOrbiting(body);
+            }
+        }
+    }
+
+    // Moves a body of this system to another category; the category index is rebuilt on its next use.
+    public void setBodyCategory(CelestialBody body, String category) {
+        checkMember(body);
+        if (!body.getCategory().equals(category)) {
+            body.assignCategory(category);
+            categoryIndexStale = true;
+        }
+    }
+
+    private void checkMember(CelestialBody body) {
+        if (body == null || body.getStore() != store || bodies.get(body.getId()) != body) {
+            throw new IllegalArgumentException((body != null ? body.getName() : "null") + " is not a body of this system");
+        }
+    }
+
+    // Returns the body with the given name, or null if there is none.
+    public CelestialBody findBody(String name) {
+        int id = findBodyId(name);
+        return id >= 0 ? bodies.get(id) : null;
+    }
+
+    // Returns the id of the body with the given name, or -1 if there is none.
+    public int findBodyId(String name) {
+        IdList ids = nameIndex.get(name);
+        return ids != null ? ids.getId(0) : -1;
+    }
+
+    // Returns the body with the given id.
+    public CelestialBody getBody(int id) {
+        return bodies.get(id);
+    }
+
+    // Returns the bodies added with the given category, in id order; empty if there are none.
+    public List<CelestialBody> findByCategory(String category) {
+        IdList matches = categoryIndex().get(category);
+        if (matches == null) {
+            return Collections.emptyList();
+        }
+        return new AbstractList<CelestialBody>() {
+            @Override
+            public CelestialBody get(int k) {
+                return bodies.get(matches.getId(k));
+            }
+
+            @Override
+            public int size() {
+                return matches.size();
+            }
+        };
+    }
+
+    public SpatialGrid getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    // Installs a spatial index that runSimulation keeps current after every step; null turns it off.
+    public void setSpatialIndex(SpatialGrid spatialIndex) {
+        this.spatialIndex = spatialIndex;
+        updateSpatialIndex();
+    }
+
+    // Brings the spatial index up to date with the store, e.g. after moving bodies outside runSimulation.
+    public void updateSpatialIndex() {
+        if (spatialIndex != null) {
+            spatialIndex.update(store);
+        }
+    }
+
+    public CollisionDetector getCollisionDetector() {
+        return collisionDetector;
+    }
+
+    // Installs a collision stage that runSimulation runs after every step (after the jump in ANALYTIC mode);
+    // null turns it off. Its time is recorded as part of the INDEX phase.
+    public void setCollisionDetector(CollisionDetector collisionDetector) {
+        this.collisionDetector = collisionDetector;
+    }
+
+    // Detects contacts on the current positions (the integrator's in NBODY mode) and applies each one's
+    // policy. A body already merged or removed in this sweep takes no further part in it. Removals wait
+    // until the sweep is done and then run highest id first, so no pending id is moved by an earlier
+    // swap-remove. Returns the number of bodies removed.
+    private int resolveCollisions(double time, NBodyIntegrator integrator) {
+        CollisionDetector detector = collisionDetector;
+        SpatialGrid.PairVisitor resolve = (i, j, distance) -> resolveContact(detector, time, i, j, distance, integrator);
+        if (integrator != null) {
+            detector.detect(integrator, store, resolve);
+        } else {
+            detector.detect(store, resolve);
+        }
+        int count = pendingRemovals.size();
+        if (count == 0) {
+            return 0;
+        }
+        int[] ids = pendingRemovals.toArray();
+        Arrays.sort(ids);
+        for (int k = ids.length - 1; k >= 0; k--) {
+            removing.clear(ids[k]);
+            removeRow(ids[k], integrator);
+        }
+        pendingRemovals.clear();
+        if (integrator != null) {
+            integrator.reloadParents(store);
+        }
+        return count;
+    }
+
+    // The heavier body survives (the central star always does); the policy comes from the lighter one's category.
+    private void resolveContact(CollisionDetector detector, double time, int i, int j, double distance,
+                                NBodyIntegrator integrator) {
+        if (removing.get(i) || removing.get(j)) {
+            return;
+        }
+        boolean iSurvives = centralStar != null && i == centralStar.getId()
+                || !(centralStar != null && j == centralStar.getId()) && store.getMass(i) >= store.getMass(j);
+        int survivor = iSurvives ? i : j;
+        int other = iSurvives ? j : i;
+        CelestialBody survivorBody = bodies.get(survivor);
+        CelestialBody otherBody = bodies.get(other);
+        double survivorMass = store.getMass(survivor);
+        double otherMass = store.getMass(other);
+        CollisionPolicy policy = detector.getPolicy(otherBody.getCategory());
+        if (policy == CollisionPolicy.MERGE) {
+            double r1 = store.getRadius(survivor);
+            double r2 = store.getRadius(other);
+            store.setMass(survivor, survivorMass + otherMass);
+            store.setRadius(survivor, Math.cbrt(r1 * r1 * r1 + r2 * r2 * r2));
+            if (integrator != null) {
+                integrator.merge(survivor, other);
+            }
+        }
+        if (policy != CollisionPolicy.RECORD) {
+            removing.set(other);
+            pendingRemovals.add(other);
+        }
+        detector.countResolution(policy);
+        detector.fire(new CollisionEvent(time, survivorBody.getName(), otherBody.getName(), survivor, other,
+                                         survivorMass, otherMass, distance, policy));
+    }
+
+    // Returns the ids of the bodies added with the given category.
+    public int[] idsInCategory(String category) {
+        IdList matches = categoryIndex().get(category);
+        return matches != null ? matches.toArray() : new int[0];
+    }
+
+    // Reports the positions of the given bodies to the observer during runSimulation: at the first step and
+    // then every sampleInterval seconds of simulated time (every step if sampleInterval is 0). Only the
+    // subscribed bodies are resolved, so bodies nobody watches cost nothing.
+    public PositionSubscription subscribe(int[] ids, double sampleInterval, PositionObserver observer) {
+        for (int id : ids) {
+            if (id < 0 || id >= bodies.size()) {
+                throw new IllegalArgumentException("No body with id " + id);
+            }
+        }
+        PositionSubscription subscription = new PositionSubscription(ids, sampleInterval, observer, store.getTime());
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    // Subscribes to every body added so far with the given category.
+    public PositionSubscription subscribe(String category, double sampleInterval, PositionObserver observer) {
+        return subscribe(idsInCategory(category), sampleInterval, observer);
+    }
+
+    // Like subscribe, but delivers one PositionFrame per sample through a Flow.Publisher with bounded buffers.
+    public PositionPublisher publish(int[] ids, double sampleInterval, int bufferCapacity) {
+        PositionPublisher publisher = new PositionPublisher(ids, bufferCapacity);
+        publisher.setSubscription(subscribe(ids, sampleInterval, publisher));
+        return publisher;
+    }
+
+    // Samples every due subscription at `time`, reading positions from the integrator in NBODY mode.
+    private void notifySubscribers(double time, NBodyIntegrator integrator) {
+        for (PositionSubscription subscription : subscriptions) {
+            if (subscription.isCancelled()) {
+                subscriptions.remove(subscription);
+                continue;
+            }
+            if (!subscription.isDue(time)) {
+                continue;
+            }
+            int[] ids = subscription.ids();
+            if (sampleX.length < ids.length) {
+                sampleX = new double[ids.length];
+                sampleY = new double[ids.length];
+            }
+            for (int k = 0; k < ids.length; k++) {
+                sampleX[k] = integrator != null ? integrator.getX(ids[k]) : store.resolveX(ids[k]);
+                sampleY[k] = integrator != null ? integrator.getY(ids[k]) : store.resolveY(ids[k]);
+            }
+            subscription.deliver(ids, time, sampleX, sampleY);
+        }
+    }
+
+    // True if some subscription would take a sample at `time`, without consuming it.
+    private boolean anySubscriptionDue(double time) {
+        for (PositionSubscription subscription : subscriptions) {
+            if (subscription.isDueAt(time)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Computes absolute positions for every body in one parent-first pass; a no-op until something moves.
+    public void updatePositions() {
+        store.updatePositions();
+    }
+
+    // Displays the current state of all bodies.
+    public void displaySystemState() {
+        System.out.println("\n--- Current System State ---");
+        for (CelestialBody body : bodies) {
+            System.out.println(body);
+        }
+        System.out.println("----------------------------");
+    }
+
+    // Appends one CSV line per body (name,x,y,orbitalRadius,theta) to a caller-owned, reusable builder.
+    public void writeState(StringBuilder out) {
+        long start = metrics != null ? System.nanoTime() : 0L;
+        store.updatePositions();
+        for (CelestialBody body : bodies) {
+            stateWriter.appendRow(out, body.getName(), store, body.getId());
+        }
+        if (metrics != null) {
+            metrics.recordPhase(SimulationMetrics.Phase.OUTPUT, System.nanoTime() - start);
+        }
+    }
+
+    // Streams the same lines through buffer into channel, draining it whenever the next line might not fit.
+    public void writeState(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        long start = metrics != null ? System.nanoTime() : 0L;
+        store.updatePositions();
+        for (CelestialBody body : bodies) {
+            if (buffer.remaining() < stateWriter.maxRowBytes(body.getName().length())) {
+                drain(channel, buffer);
+            }
+            stateWriter.putRow(buffer, body.getName(), store, body.getId());
+        }
+        drain(channel, buffer);
+        if (metrics != null) {
+            metrics.recordPhase(SimulationMetrics.Phase.OUTPUT, System.nanoTime() - start);
+        }
+    }
+
+    private static void drain(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // One range body per propagator group, built once per run rather than once per step.
+    private RangeTask.RangeBody[] groupSteps(double timeStep) {
+        RangeTask.RangeBody[] steps = new RangeTask.RangeBody[propagatorGroups.size()];
+        for (int g = 0; g < steps.length; g++) {
+            PropagatorGroup group = propagatorGroups.get(g);
+            steps[g] = (from, to) -> group.advance(store, from, to, timeStep);
+        }
+        return steps;
+    }
+
+    // Advances one coarse step on block timesteps: at each tick only the levels whose step ends there move.
+    private void runBlockStep(BlockTimestepScheduler scheduler) {
+        int finestLevel = scheduler.getFinestLevel();
+        int ticks = 1 << finestLevel;
+        for (int tick = 1; tick <= ticks; tick++) {
+            int coarsestDue = Math.max(finestLevel - Integer.numberOfTrailingZeros(tick), 0);
+            for (int level = coarsestDue; level <= finestLevel; level++) {
+                double levelStep = scheduler.getTimeStep(level);
+                for (PropagatorGroup group : levelGroups[level]) {
+                    forEachRange(0, group.size(), (from, to) -> group.advance(store, from, to, levelStep));
+                }
+            }
+            scheduler.countUpdates(scheduler.countAtOrFinerThan(coarsestDue));
+        }
+    }
+
+    // Assigns block levels and splits each propagator group by level, so a due level advances every row
+    // through its own propagator, overrides included.
+    private void assignBlockLevels(BlockTimestepScheduler scheduler, int first, double timeStep) {
+        scheduler.assignByPeriod(store, first, store.size(), timeStep);
+        int finestLevel = scheduler.getFinestLevel();
+        levelGroups = new PropagatorGroup[finestLevel + 1][propagatorGroups.size()];
+        for (int g = 0; g < propagatorGroups.size(); g++) {
+            PropagatorGroup group = propagatorGroups.get(g);
+            for (int level = 0; level <= finestLevel; level++) {
+                levelGroups[level][g] = new PropagatorGroup(group.getPropagator());
+            }
+            for (int k = 0; k < group.size(); k++) {
+                int id = group.getId(k);
+                levelGroups[scheduler.getLevel(id)][g].add(id);
+            }
+        }
+    }
+
+    // Runs the simulation for a given duration.
+    public void runSimulation(double totalTime, double timeStep) {
+        if (!quiet) {
+            System.out.println("\n--- Starting Simulation for " + (totalTime / SECONDS_PER_DAY) + " days ---");
+        }
+        drainPendingBatches();
+        ensurePropagatorGroups();
+        double startTime = store.getTime();
+        SimulationMetrics metrics = this.metrics;
+        if (propagationMode == PropagationMode.ANALYTIC) {
+            // The whole jump counts as one step.
+            long stepStart = metrics != null ? metrics.beginStep() : 0L;
+            if (!subscriptions.isEmpty()) {
+                // Only jump to the step boundaries where someone wants a sample.
+                int steps = 0;
+                for (double t = 0; t < totalTime; t += timeStep) {
+                    steps++;
+                    double time = startTime + steps * timeStep;
+                    if (anySubscriptionDue(time)) {
+                        propagateTo(time);
+                        notifySubscribers(time, null);
+                    }
+                }
+            }
+            propagateTo(startTime + totalTime);
+            long propagateEnd = metrics != null ? System.nanoTime() : 0L;
+            if (collisionDetector != null) {
+                resolveCollisions(startTime + totalTime, null);
+            }
+            updateSpatialIndex();
+            if (metrics != null) {
+                metrics.endStep(stepStart, propagateEnd, System.nanoTime(), store.size());
+            }
+        } else if (propagationMode == PropagationMode.NBODY) {
+            NBodyIntegrator integrator = getNBodyIntegrator();
+            integrator.setMetrics(metrics);
+            integrator.load(store);
+            int steps = 0;
+            for (double t = 0; t < totalTime; t += timeStep) {
+                long stepStart = metrics != null ? metrics.beginStep() : 0L;
+                long updatesBefore = blockTimestepScheduler != null ? blockTimestepScheduler.getBodyUpdates() : 0L;
+                if (blockTimestepScheduler != null) {
+                    integrator.stepBlocks(timeStep, blockTimestepScheduler);
+                } else {
+                    integrator.step(timeStep);
+                }
+                steps++;
+                long propagateEnd = metrics != null ? System.nanoTime() : 0L;
+                if (collisionDetector != null) {
+                    resolveCollisions(startTime + steps * timeStep, integrator);
+                }
+                if (spatialIndex != null) {
+                    spatialIndex.update(integrator);
+                }
+                long indexEnd = metrics != null ? System.nanoTime() : 0L;
+                if (!subscriptions.isEmpty()) {
+                    notifySubscribers(startTime + steps * timeStep, integrator);
+                }
+                if (metrics != null) {
+                    metrics.endStep(stepStart, propagateEnd, indexEnd, blockTimestepScheduler != null
+                            ? blockTimestepScheduler.getBodyUpdates() - updatesBefore : integrator.getBodyCount());
+                }
+            }
+            integrator.store(store);
+            store.setTime(store.getTime() + steps * timeStep);
+            store.rebaseEpochs(0, store.size());
+        } else {
+            int first = firstOrbitingId();
+            RangeTask.RangeBody[] groupSteps = groupSteps(timeStep);
+            int steps = 0;
+            if (blockTimestepScheduler != null) {
+                assignBlockLevels(blockTimestepScheduler, first, timeStep);
+            }
+            for (double t = 0; t < totalTime; t += timeStep) {
+                // Bodies still arriving from a background loader join at the next step boundary.
+                if (!pendingBatches.isEmpty() && drainPendingBatches() > 0) {
+                    ensurePropagatorGroups();
+                    groupSteps = groupSteps(timeStep);
+                    if (blockTimestepScheduler != null) {
+                        assignBlockLevels(blockTimestepScheduler, first, timeStep);
+                    }
+                }
+                long stepStart = metrics != null ? metrics.beginStep() : 0L;
+                long updatesBefore = blockTimestepScheduler != null ? blockTimestepScheduler.getBodyUpdates() : 0L;
+                if (blockTimestepScheduler != null) {
+                    runBlockStep(blockTimestepScheduler);
+                } else {
+                    for (int g = 0; g < groupSteps.length; g++) {
+                        forEachRange(0, propagatorGroups.get(g).size(), groupSteps[g]);
+                    }
+                }
+                steps++;
+                long propagateEnd = metrics != null ? System.nanoTime() : 0L;
+                // Removed bodies change the groups and ids, so the step bodies are rebuilt like after a batch.
+                if (collisionDetector != null && resolveCollisions(startTime + steps * timeStep, null) > 0) {
+                    ensurePropagatorGroups();
+                    groupSteps = groupSteps(timeStep);
+                    if (blockTimestepScheduler != null) {
+                        assignBlockLevels(blockTimestepScheduler, first, timeStep);
+                    }
+                }
+                updateSpatialIndex();
+                long indexEnd = metrics != null ? System.nanoTime() : 0L;
+                if (!subscriptions.isEmpty()) {
+                    notifySubscribers(startTime + steps * timeStep, null);
+                }
+                if (metrics != null) {
+                    metrics.endStep(stepStart, propagateEnd, indexEnd, blockTimestepScheduler != null
+                            ? blockTimestepScheduler.getBodyUpdates() - updatesBefore : store.size() - first);
+                }
+            }
+            store.setTime(store.getTime() + steps * timeStep);
+            store.rebaseEpochs(first, store.size());
+        }
+        if (!quiet) {
+            System.out.println("\n--- Simulation Ended ---");
+        }
+    }
+}
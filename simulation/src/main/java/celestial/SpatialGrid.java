@@ -0,0 +1,339 @@
+package celestial;
+
+import java.util.Arrays;
+
+// Uniform grid over absolute (x, y) positions for proximity queries. Cells are hashed into a power-of-two
+// table of intrusive linked lists, so memory is O(N) however spread out the bodies are, and update moves a
+// body between lists only when it changes cell. Queries check real distances, so hash collisions only cost time.
+// Works best with cellSize near the typical query radius or threshold.
+class SpatialGrid {
+    // Receives one body found by a query.
+    interface BodyVisitor {
+        void visit(int id, double distance);
+    }
+
+    // Receives one pair i < j found by allPairsWithin.
+    interface PairVisitor {
+        void visit(int i, int j, double distance);
+    }
+
+    private final double cellSize;
+    private final double inverseCellSize;
+    private int n;
+    private double[] x;
+    private double[] y;
+    private int[] bucketOf;
+    private int[] next;
+    private int[] previous;
+    private int[] head;
+    private int[] visitedStamp;
+    private int stamp;
+    private int mask;
+
+    // Constructor for SpatialGrid.
+    public SpatialGrid(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0 / cellSize;
+        this.n = 0;
+        this.x = new double[0];
+        this.y = new double[0];
+        this.bucketOf = new int[0];
+        this.next = new int[0];
+        this.previous = new int[0];
+        this.head = new int[0];
+        this.visitedStamp = new int[0];
+        this.stamp = 0;
+        this.mask = -1;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public double getX(int id) {
+        return x[id];
+    }
+
+    public double getY(int id) {
+        return y[id];
+    }
+
+    // Refreshes every row of the store; rows that stayed in their cell are not relinked.
+    public void update(BodyStore store) {
+        store.updatePositions();
+        int count = store.size();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            move(i, store.getX(i), store.getY(i));
+        }
+    }
+
+    // Same, from an N-body integrator's live positions.
+    public void update(NBodyIntegrator integrator) {
+        int count = integrator.getBodyCount();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            move(i, integrator.getX(i), integrator.getY(i));
+        }
+    }
+
+    // Sets the position of one body, moving it to its new cell if needed.
+    public void move(int id, double px, double py) {
+        x[id] = px;
+        y[id] = py;
+        int bucket = bucket(cell(px), cell(py));
+        if (bucket != bucketOf[id]) {
+            unlink(id);
+            link(id, bucket);
+        }
+    }
+
+    // Mirrors BodyStore.swapRemove: drops body id and gives the last body its id.
+    public void swapRemove(int id) {
+        unlink(id);
+        int last = --n;
+        if (id != last) {
+            boolean placed = bucketOf[last] >= 0;
+            unlink(last);
+            x[id] = x[last];
+            y[id] = y[last];
+            if (placed) {
+                link(id, bucket(cell(x[id]), cell(y[id])));
+            }
+        }
+    }
+
+    // Grows the per-body arrays to `count` rows; the hash table is kept at least twice the body count.
+    private void ensureCapacity(int count) {
+        if (count <= n) {
+            return;
+        }
+        if (x.length < count) {
+            int capacity = Math.max(count, x.length * 2);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            bucketOf = Arrays.copyOf(bucketOf, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+        }
+        Arrays.fill(bucketOf, n, count, -1);
+        n = count;
+        if (head.length < 2 * count) {
+            head = new int[Integer.highestOneBit(Math.max(2 * count - 1, 8)) << 1];
+            visitedStamp = new int[head.length];
+            stamp = 0;
+            mask = head.length - 1;
+            Arrays.fill(head, -1);
+            // Relink the bodies already placed; new rows are linked by the next move.
+            for (int i = 0; i < count; i++) {
+                if (bucketOf[i] >= 0) {
+                    link(i, bucket(cell(x[i]), cell(y[i])));
+                }
+            }
+        }
+    }
+
+    private long cell(double coordinate) {
+        return (long) Math.floor(coordinate * inverseCellSize);
+    }
+
+    private int bucket(long cellX, long cellY) {
+        long h = cellX * 0x9E3779B97F4A7C15L + cellY * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ (h >>> 29)) & mask;
+    }
+
+    private void link(int id, int bucket) {
+        int first = head[bucket];
+        next[id] = first;
+        previous[id] = -1;
+        if (first >= 0) {
+            previous[first] = id;
+        }
+        head[bucket] = id;
+        bucketOf[id] = bucket;
+    }
+
+    private void unlink(int id) {
+        int bucket = bucketOf[id];
+        if (bucket < 0) {
+            return;
+        }
+        if (previous[id] >= 0) {
+            next[previous[id]] = next[id];
+        } else {
+            head[bucket] = next[id];
+        }
+        if (next[id] >= 0) {
+            previous[next[id]] = previous[id];
+        }
+        bucketOf[id] = -1;
+    }
+
+    // Starts a query: buckets stamped with the returned value have already been scanned.
+    private int nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitedStamp, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    // Visits every body within `radius` of (qx, qy); returns how many were visited.
+    public int rangeQuery(double qx, double qy, double radius, BodyVisitor visitor) {
+        long minX = cell(qx - radius);
+        long maxX = cell(qx + radius);
+        long minY = cell(qy - radius);
+        long maxY = cell(qy + radius);
+        double radiusSquared = radius * radius;
+        int found = 0;
+        if ((double) (maxX - minX + 1) * (maxY - minY + 1) > n) {
+            // More cells than bodies: a plain scan is cheaper.
+            for (int j = 0; j < n; j++) {
+                found += visitIfWithin(j, qx, qy, radiusSquared, visitor);
+            }
+            return found;
+        }
+        int current = nextStamp();
+        for (long cx = minX; cx <= maxX; cx++) {
+            for (long cy = minY; cy <= maxY; cy++) {
+                int bucket = bucket(cx, cy);
+                if (visitedStamp[bucket] == current) {
+                    continue;
+                }
+                visitedStamp[bucket] = current;
+                for (int j = head[bucket]; j >= 0; j = next[j]) {
+                    found += visitIfWithin(j, qx, qy, radiusSquared, visitor);
+                }
+            }
+        }
+        return found;
+    }
+
+    private int visitIfWithin(int j, double qx, double qy, double radiusSquared, BodyVisitor visitor) {
+        double dx = x[j] - qx;
+        double dy = y[j] - qy;
+        double d2 = dx * dx + dy * dy;
+        if (d2 <= radiusSquared) {
+            visitor.visit(j, Math.sqrt(d2));
+            return 1;
+        }
+        return 0;
+    }
+
+    // Fills ids/distances with the k bodies nearest (qx, qy), closest first; returns how many were found
+    // (fewer than k only if the grid holds fewer bodies). Searches rings of cells outward and stops once
+    // no unvisited cell can hold anything closer than the current k-th distance.
+    public int nearest(double qx, double qy, int k, int[] ids, double[] distances) {
+        k = Math.min(k, n);
+        if (k <= 0) {
+            return 0;
+        }
+        long centerX = cell(qx);
+        long centerY = cell(qy);
+        int current = nextStamp();
+        int found = 0;
+        long cellsVisited = 0;
+        for (long ring = 0; ; ring++) {
+            for (long cx = centerX - ring; cx <= centerX + ring; cx++) {
+                // Interior rows of the ring only contribute their two edge cells.
+                long step = (cx == centerX - ring || cx == centerX + ring) ? 1 : Math.max(2 * ring, 1);
+                for (long cy = centerY - ring; cy <= centerY + ring; cy += step) {
+                    cellsVisited++;
+                    int bucket = bucket(cx, cy);
+                    if (visitedStamp[bucket] == current) {
+                        continue;
+                    }
+                    visitedStamp[bucket] = current;
+                    for (int j = head[bucket]; j >= 0; j = next[j]) {
+                        found = offer(j, qx, qy, k, found, ids, distances);
+                    }
+                }
+            }
+            if (found == k && distances[k - 1] <= ring * cellSize) {
+                return found;
+            }
+            if (cellsVisited > 4L * n + 64) {
+                // Sparse neighbourhood: finish with one linear pass over everything.
+                found = 0;
+                for (int j = 0; j < n; j++) {
+                    found = offer(j, qx, qy, k, found, ids, distances);
+                }
+                return found;
+            }
+        }
+    }
+
+    // Inserts body j into the sorted top-k arrays if it is close enough; returns the new fill count.
+    private int offer(int j, double qx, double qy, int k, int found, int[] ids, double[] distances) {
+        double dx = x[j] - qx;
+        double dy = y[j] - qy;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (found == k && distance >= distances[k - 1]) {
+            return found;
+        }
+        int position = found < k ? found++ : k - 1;
+        while (position > 0 && distances[position - 1] > distance) {
+            distances[position] = distances[position - 1];
+            ids[position] = ids[position - 1];
+            position--;
+        }
+        distances[position] = distance;
+        ids[position] = j;
+        return found;
+    }
+
+    // Visits every pair of bodies closer than `threshold` once, as (i, j) with i < j; returns the pair count.
+    // Each body only looks at the cells within threshold of its own, so the cost is O(N + pairs) when
+    // cellSize is close to threshold.
+    public long allPairsWithin(double threshold, PairVisitor visitor) {
+        long reach = (long) Math.ceil(threshold * inverseCellSize);
+        double thresholdSquared = threshold * threshold;
+        long pairs = 0;
+        if ((double) (2 * reach + 1) * (2 * reach + 1) > n) {
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    pairs += visitPairIfWithin(i, j, thresholdSquared, visitor);
+                }
+            }
+            return pairs;
+        }
+        for (int i = 0; i < n; i++) {
+            long centerX = cell(x[i]);
+            long centerY = cell(y[i]);
+            int current = nextStamp();
+            for (long cx = centerX - reach; cx <= centerX + reach; cx++) {
+                for (long cy = centerY - reach; cy <= centerY + reach; cy++) {
+                    int bucket = bucket(cx, cy);
+                    if (visitedStamp[bucket] == current) {
+                        continue;
+                    }
+                    visitedStamp[bucket] = current;
+                    for (int j = head[bucket]; j >= 0; j = next[j]) {
+                        if (j > i) {
+                            pairs += visitPairIfWithin(i, j, thresholdSquared, visitor);
+                        }
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private int visitPairIfWithin(int i, int j, double thresholdSquared, PairVisitor visitor) {
+        double dx = x[j] - x[i];
+        double dy = y[j] - y[i];
+        double d2 = dx * dx + dy * dy;
+        if (d2 <= thresholdSquared) {
+            visitor.visit(i, j, Math.sqrt(d2));
+            return 1;
+        }
+        return 0;
+    }
+}
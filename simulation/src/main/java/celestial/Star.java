@@ -0,0 +1,49 @@
+package celestial;
+
+// Child Class: Represents a Star.
+class Star extends CelestialBody {
+    private double surfaceTemperature;
+    private String spectralType;
+
+    // Constructor for Star.
+    public Star(String name, double mass, double radius, double surfaceTemperature, String spectralType) {
+        super(name, mass, radius);
+        setCategory("star");
+        this.surfaceTemperature = surfaceTemperature;
+        this.spectralType = spectralType;
+        setOrbitalRadius(0.0);
+        setOrbitalPeriod(0.0);
+    }
+
+    // Getters and Setters for Star-specific properties
+    public double getSurfaceTemperature() {
+        return surfaceTemperature;
+    }
+
+    public void setSurfaceTemperature(double surfaceTemperature) {
+        this.surfaceTemperature = surfaceTemperature;
+    }
+
+    public String getSpectralType() {
+        return spectralType;
+    }
+
+    public void setSpectralType(String spectralType) {
+        this.spectralType = spectralType;
+    }
+
+    // Simulates energy emission.
+    public void emitLightAndHeat() {
+        System.out.println(getName() + " is emitting light and heat from its surface at " + String.format("%,.0f", surfaceTemperature) + " Kelvin.");
+    }
+
+    // Describes the star's spectral type.
+    public void describeSpectralType() {
+        System.out.println(getName() + " is a " + spectralType + " star.");
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " (" + spectralType + ") at " + String.format("%,.0f", surfaceTemperature) + " K";
+    }
+}
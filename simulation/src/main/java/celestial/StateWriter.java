@@ -0,0 +1,212 @@
+package celestial;
+
+import java.nio.ByteBuffer;
+
+// Writes body state as text straight into a reusable StringBuilder or ByteBuffer.
+// Numbers are rendered digit by digit at fixed precision, so nothing is allocated per value or per body.
+// Not thread-safe: each writing thread needs its own instance.
+class StateWriter {
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+        10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+        1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+    public static final int MAX_DIGITS = 15;
+
+    // Longest number: -d.<MAX_DIGITS>E-324, or a fixed value of up to 19 digits with sign and point.
+    private final byte[] digits = new byte[MAX_DIGITS + 12];
+    private int thetaDecimals;
+    private int distanceDigits;
+
+    // Constructor for StateWriter.
+    public StateWriter() {
+        this.thetaDecimals = 6;
+        this.distanceDigits = 6;
+    }
+
+    public int getThetaDecimals() {
+        return thetaDecimals;
+    }
+
+    // Digits after the decimal point for angles, in radians.
+    public void setThetaDecimals(int thetaDecimals) {
+        this.thetaDecimals = Math.max(0, Math.min(thetaDecimals, MAX_DIGITS));
+    }
+
+    public int getDistanceDigits() {
+        return distanceDigits;
+    }
+
+    // Digits after the decimal point of the mantissa for distances, which are written as d.dddE+n meters.
+    public void setDistanceDigits(int distanceDigits) {
+        this.distanceDigits = Math.max(0, Math.min(distanceDigits, MAX_DIGITS));
+    }
+
+    // Appends one CSV line: name,x,y,orbitalRadius,theta.
+    public void appendRow(StringBuilder out, CharSequence name, BodyStore store, int id) {
+        out.append(name).append(',');
+        appendScientific(out, store.getX(id), distanceDigits);
+        out.append(',');
+        appendScientific(out, store.getY(id), distanceDigits);
+        out.append(',');
+        appendScientific(out, store.getOrbitalRadius(id), distanceDigits);
+        out.append(',');
+        appendFixed(out, store.getCurrentTheta(id), thetaDecimals);
+        out.append('\n');
+    }
+
+    // Same line as appendRow, encoded as UTF-8 into the buffer.
+    public void putRow(ByteBuffer out, CharSequence name, BodyStore store, int id) {
+        putText(out, name);
+        out.put((byte) ',');
+        putScientific(out, store.getX(id), distanceDigits);
+        out.put((byte) ',');
+        putScientific(out, store.getY(id), distanceDigits);
+        out.put((byte) ',');
+        putScientific(out, store.getOrbitalRadius(id), distanceDigits);
+        out.put((byte) ',');
+        putFixed(out, store.getCurrentTheta(id), thetaDecimals);
+        out.put((byte) '\n');
+    }
+
+    // Upper bound on the bytes putRow writes for a name of the given length.
+    public int maxRowBytes(int nameLength) {
+        return nameLength * 3 + 4 * (MAX_DIGITS + 12) + 8;
+    }
+
+    public void appendFixed(StringBuilder out, double value, int decimals) {
+        int length = fixedDigits(value, decimals);
+        for (int i = 0; i < length; i++) {
+            out.append((char) digits[i]);
+        }
+    }
+
+    public void appendScientific(StringBuilder out, double value, int fractionDigits) {
+        int length = scientificDigits(value, fractionDigits);
+        for (int i = 0; i < length; i++) {
+            out.append((char) digits[i]);
+        }
+    }
+
+    public void putFixed(ByteBuffer out, double value, int decimals) {
+        out.put(digits, 0, fixedDigits(value, decimals));
+    }
+
+    public void putScientific(ByteBuffer out, double value, int fractionDigits) {
+        out.put(digits, 0, scientificDigits(value, fractionDigits));
+    }
+
+    // Encodes text as UTF-8 without going through String.getBytes.
+    public void putText(ByteBuffer out, CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    // Renders value with exactly `decimals` digits after the point into the scratch buffer; returns its length.
+    private int fixedDigits(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return special(value);
+        }
+        double abs = Math.abs(value);
+        long scale = POWERS_OF_TEN[decimals];
+        if (abs * scale >= 9.0e18) {
+            return scientificDigits(value, decimals);
+        }
+        long scaled = Math.round(abs * scale);
+        int length = 0;
+        if (value < 0 && scaled != 0) {
+            digits[length++] = '-';
+        }
+        length = putLong(scaled / scale, length);
+        if (decimals > 0) {
+            digits[length++] = '.';
+            length = putPadded(scaled % scale, decimals, length);
+        }
+        return length;
+    }
+
+    // Renders value as d.ddd...E[-]n with `fractionDigits` mantissa digits after the point.
+    private int scientificDigits(double value, int fractionDigits) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return special(value);
+        }
+        int length = 0;
+        double abs = Math.abs(value);
+        long scale = POWERS_OF_TEN[fractionDigits];
+        int exponent = 0;
+        long scaled = 0;
+        if (abs > 0) {
+            if (value < 0) {
+                digits[length++] = '-';
+            }
+            exponent = (int) Math.floor(Math.log10(abs));
+            scaled = Math.round(mantissa(abs, exponent) * scale);
+            if (scaled >= 10 * scale) {
+                exponent++;
+                scaled = Math.round(mantissa(abs, exponent) * scale);
+            } else if (scaled < scale) {
+                exponent--;
+                scaled = Math.round(mantissa(abs, exponent) * scale);
+            }
+        }
+        length = putLong(scaled / scale, length);
+        if (fractionDigits > 0) {
+            digits[length++] = '.';
+            length = putPadded(scaled % scale, fractionDigits, length);
+        }
+        digits[length++] = 'E';
+        if (exponent < 0) {
+            digits[length++] = '-';
+        }
+        return putLong(Math.abs(exponent), length);
+    }
+
+    // abs / 10^exponent, split in two for subnormal magnitudes where 10^exponent underflows.
+    private static double mantissa(double abs, int exponent) {
+        if (exponent < -290) {
+            return (abs * 1e300) / Math.pow(10, exponent + 300);
+        }
+        return abs / Math.pow(10, exponent);
+    }
+
+    private int special(double value) {
+        String text = Double.isNaN(value) ? "NaN" : value > 0 ? "Infinity" : "-Infinity";
+        for (int i = 0; i < text.length(); i++) {
+            digits[i] = (byte) text.charAt(i);
+        }
+        return text.length();
+    }
+
+    private int putLong(long value, int offset) {
+        int width = 1;
+        while (width < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[width]) {
+            width++;
+        }
+        return putPadded(value, width, offset);
+    }
+
+    private int putPadded(long value, int width, int offset) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            digits[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        return offset + width;
+    }
+}
@@ -0,0 +1,17 @@
+package celestial;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Carries framed messages between a DistributedSimulation coordinator and one of its workers. send transmits
+// the buffer's bytes from position to limit as one message; receive blocks for the next message and returns
+// it ready to read, valid until the next receive. Closing one end makes the other end's receive throw EOFException.
+interface Transport extends AutoCloseable {
+    void send(ByteBuffer message) throws IOException;
+
+    ByteBuffer receive() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,145 @@
+package celestial;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+// Starts the workers of a DistributedSimulation and returns the coordinator's end of each worker's transport.
+interface WorkerLauncher {
+    int DEFAULT_ACCEPT_TIMEOUT_MILLIS = 60_000;
+    // How long the coordinator waits for one reply from a socket worker before giving up on it.
+    int DEFAULT_READ_TIMEOUT_MILLIS = 600_000;
+
+    Transport[] launch(int workerCount) throws IOException;
+
+    // Workers on daemon threads of this JVM, connected by in-memory queues.
+    static WorkerLauncher threads() {
+        return workerCount -> {
+            Transport[] transports = new Transport[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                QueueTransport[] ends = QueueTransport.pair();
+                transports[i] = ends[0];
+                startWorkerThread(ends[1], i);
+            }
+            return transports;
+        };
+    }
+
+    // Workers on threads of this JVM that talk to the coordinator over loopback sockets, so the wire
+    // protocol is exercised without starting processes.
+    static WorkerLauncher localSockets() {
+        return workerCount -> {
+            try (ServerSocket server = new ServerSocket(0, workerCount, InetAddress.getLoopbackAddress())) {
+                for (int i = 0; i < workerCount; i++) {
+                    int index = i;
+                    Thread thread = new Thread(() -> {
+                        try {
+                            startWorkerThread(SocketTransport.connect(server.getInetAddress().getHostAddress(),
+                                                                      server.getLocalPort()), index);
+                        } catch (IOException e) {
+                            System.err.println("Worker " + index + " could not connect: " + e.getMessage());
+                        }
+                    }, "domain-worker-connect-" + i);
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                return accept(server, workerCount);
+            }
+        };
+    }
+
+    // One worker process per domain on this machine, each started as
+    // `java -cp <this JVM's class path> celestial.Main --worker <host> <port>`. Each process is accepted before
+    // the next one starts, so every transport owns its own process and closing the transport ends it.
+    static WorkerLauncher localProcesses() {
+        return workerCount -> {
+            String java = ProcessHandle.current().info().command().orElse("java");
+            String classPath = System.getProperty("java.class.path");
+            Transport[] transports = new Transport[workerCount];
+            try (ServerSocket server = new ServerSocket(0, workerCount, InetAddress.getLoopbackAddress())) {
+                server.setSoTimeout(DEFAULT_ACCEPT_TIMEOUT_MILLIS);
+                for (int i = 0; i < workerCount; i++) {
+                    Process process = new ProcessBuilder(java, "-cp", classPath, Main.class.getName(), "--worker",
+                                                         server.getInetAddress().getHostAddress(),
+                                                         Integer.toString(server.getLocalPort()))
+                            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                            .redirectError(ProcessBuilder.Redirect.INHERIT)
+                            .start();
+                    try {
+                        transports[i] = new ProcessTransport(acceptWorker(server), process);
+                    } catch (IOException e) {
+                        ProcessTransport.destroy(process);
+                        throw e;
+                    }
+                }
+                return transports;
+            } catch (IOException e) {
+                closeAll(transports, e);
+                throw e;
+            }
+        };
+    }
+
+    // Waits on the given port for workers started elsewhere, e.g. on other nodes, with
+    // `java -cp <class path> celestial.Main --worker <host> <port>`.
+    static WorkerLauncher listen(int port) {
+        return workerCount -> {
+            try (ServerSocket server = new ServerSocket(port, workerCount)) {
+                return accept(server, workerCount);
+            }
+        };
+    }
+
+    // Accepts workerCount workers; if one fails to arrive, the ones already accepted are closed.
+    private static Transport[] accept(ServerSocket server, int workerCount) throws IOException {
+        server.setSoTimeout(DEFAULT_ACCEPT_TIMEOUT_MILLIS);
+        Transport[] transports = new Transport[workerCount];
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                transports[i] = acceptWorker(server);
+            }
+        } catch (IOException e) {
+            closeAll(transports, e);
+            throw e;
+        }
+        return transports;
+    }
+
+    // A stuck worker makes the coordinator's receive throw SocketTimeoutException instead of blocking forever.
+    private static SocketTransport acceptWorker(ServerSocket server) throws IOException {
+        Socket socket = server.accept();
+        try {
+            socket.setSoTimeout(DEFAULT_READ_TIMEOUT_MILLIS);
+            return new SocketTransport(socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private static void closeAll(Transport[] transports, IOException failure) {
+        for (Transport transport : transports) {
+            if (transport == null) {
+                continue;
+            }
+            try {
+                transport.close();
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private static void startWorkerThread(Transport transport, int index) {
+        Thread thread = new Thread(() -> {
+            try (Transport worker = transport) {
+                DomainWorker.serve(worker);
+            } catch (IOException e) {
+                System.err.println("Worker " + index + " stopped: " + e.getMessage());
+            }
+        }, "domain-worker-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,58 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AnalyticPropagationTest {
+
+    @Test
+    void analyticJumpMatchesSteppedRun() {
+        SolarSystem stepped = TestSystems.randomSystem(200, 3);
+        SolarSystem analytic = TestSystems.randomSystem(200, 3);
+        analytic.setPropagationMode(PropagationMode.ANALYTIC);
+
+        double step = 3600.0;
+        stepped.runSimulation(24 * 365 * step, step);
+        analytic.runSimulation(24 * 365 * step, step);
+
+        List<CelestialBody> expected = stepped.getBodies();
+        List<CelestialBody> actual = analytic.getBodies();
+        for (int id = 1; id < expected.size(); id++) {
+            assertEquals(0.0, TestSystems.angleBetween(expected.get(id).getCurrentTheta(), actual.get(id).getCurrentTheta()),
+                         1e-8, expected.get(id).getName());
+            assertEquals(expected.get(id).getOrbitalRadius(), actual.get(id).getOrbitalRadius(),
+                         1e-8 * expected.get(id).getOrbitalRadius(), expected.get(id).getName());
+        }
+        assertEquals(stepped.getElapsedTime(), analytic.getElapsedTime());
+    }
+
+    @Test
+    void jumpsDoNotDependOnThePathTaken() {
+        SolarSystem direct = TestSystems.randomSystem(50, 5);
+        SolarSystem hops = TestSystems.randomSystem(50, 5);
+        double target = 123.456 * TestSystems.YEAR;
+
+        direct.propagateTo(target);
+        for (int k = 1; k <= 10; k++) {
+            hops.propagateTo(target * k / 10);
+        }
+
+        for (int id = 1; id < 50; id++) {
+            assertEquals(direct.getBody(id).getCurrentTheta(), hops.getBody(id).getCurrentTheta(), 0.0);
+            assertEquals(direct.getBody(id).getOrbitalRadius(), hops.getBody(id).getOrbitalRadius(), 0.0);
+        }
+    }
+
+    @Test
+    void errorDoesNotGrowWithWholeRevolutions() {
+        SolarSystem system = TestSystems.newSystem();
+        Planet planet = new Planet("Far", 1e20, 1e5, Main.AU_TO_METERS, TestSystems.YEAR, 0, false, false);
+        system.addBody(planet);
+
+        system.propagateTo(1_000_000.25 * TestSystems.YEAR);
+
+        assertEquals(Math.PI / 2, planet.getCurrentTheta(), 1e-9);
+    }
+}
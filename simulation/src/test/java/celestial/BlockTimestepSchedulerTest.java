@@ -0,0 +1,95 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BlockTimestepSchedulerTest {
+
+    @Test
+    void levelsFollowTheOrbitalPeriodAndSortFinestFirst() {
+        SolarSystem system = TestSystems.randomSystem(500, 31);
+        BodyStore store = system.getStore();
+        BlockTimestepScheduler scheduler = new BlockTimestepScheduler();
+        double maxTimeStep = 30 * Main.SECONDS_PER_DAY;
+
+        scheduler.assignByPeriod(store, 1, store.size(), maxTimeStep);
+
+        int[] order = scheduler.getOrder();
+        int previous = Integer.MAX_VALUE;
+        for (int k = 0; k < store.size() - 1; k++) {
+            int id = order[k];
+            int level = scheduler.getLevel(id);
+            assertTrue(level <= previous, "order not finest first at " + k);
+            previous = level;
+            double wanted = store.getOrbitalPeriod(id) / scheduler.getStepsPerOrbit();
+            // Smallest level whose step fits the period criterion.
+            assertTrue(scheduler.getTimeStep(level) <= wanted * (1 + 1e-12) || level == scheduler.getMaxLevel(), "id " + id);
+            assertTrue(level == 0 || scheduler.getTimeStep(level - 1) > wanted, "id " + id);
+        }
+        assertEquals(store.size() - 1, scheduler.countAtOrFinerThan(0));
+    }
+
+    @Test
+    void blockStepsMatchAGlobalStepForSteppedOrbits() {
+        SolarSystem global = TestSystems.randomSystem(300, 32);
+        SolarSystem blocks = TestSystems.randomSystem(300, 32);
+        BlockTimestepScheduler scheduler = new BlockTimestepScheduler();
+        blocks.setBlockTimestepScheduler(scheduler);
+        double step = 32 * Main.SECONDS_PER_DAY;
+
+        global.runSimulation(64 * step, step);
+        blocks.runSimulation(64 * step, step);
+
+        BodyStore expected = global.getStore();
+        BodyStore actual = blocks.getStore();
+        for (int i = 1; i < expected.size(); i++) {
+            assertEquals(0.0, TestSystems.angleBetween(expected.getCurrentTheta(i), actual.getCurrentTheta(i)), 1e-9,
+                         "body " + i);
+        }
+        assertEquals(global.getElapsedTime(), blocks.getElapsedTime());
+    }
+
+    @Test
+    void slowBodiesAreUpdatedLessOften() {
+        SolarSystem system = TestSystems.randomSystem(300, 33);
+        BlockTimestepScheduler scheduler = new BlockTimestepScheduler();
+        system.setBlockTimestepScheduler(scheduler);
+        double step = 32 * Main.SECONDS_PER_DAY;
+        int steps = 16;
+
+        system.runSimulation(steps * step, step);
+
+        int finest = scheduler.getFinestLevel();
+        long globalUpdates = (long) (system.getStore().size() - 1) * steps * (1L << finest);
+        assertTrue(finest > 0, "expected some bodies on finer levels");
+        assertTrue(scheduler.getBodyUpdates() < globalUpdates,
+                   scheduler.getBodyUpdates() + " updates vs " + globalUpdates + " at the finest step");
+    }
+
+    @Test
+    void nBodyBlockStepsKeepCircularOrbitsAndEnergy() {
+        SolarSystem system = TestSystems.keplerianSystem(20, 1e20, 0.3, 30.0, 34);
+        system.setPropagationMode(PropagationMode.NBODY);
+        BlockTimestepScheduler scheduler = new BlockTimestepScheduler();
+        system.setBlockTimestepScheduler(scheduler);
+        double[] radius = new double[system.getStore().size()];
+        for (int i = 1; i < radius.length; i++) {
+            radius[i] = system.getStore().getOrbitalRadius(i);
+        }
+
+        double step = 16 * Main.SECONDS_PER_DAY;
+        system.runSimulation(64 * step, step);
+        NBodyIntegrator integrator = system.getNBodyIntegrator();
+        double initial = integrator.totalEnergy();
+        system.runSimulation(64 * step, step);
+
+        double drift = Math.abs((integrator.totalEnergy() - initial) / initial);
+        assertTrue(drift < 1e-4, "relative energy drift " + drift);
+        assertTrue(scheduler.getFinestLevel() > 0, "inner orbits should need finer levels");
+        for (int i = 1; i < radius.length; i++) {
+            assertEquals(radius[i], system.getStore().getOrbitalRadius(i), 1e-2 * radius[i], "body " + i);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BodyIndexTest {
+
+    private static Planet planet(String name) {
+        return new Planet(name, 1e20, 1e5, Main.AU_TO_METERS, TestSystems.YEAR, 0, false, false);
+    }
+
+    // Ids of the bodies in the given category, found by scanning every body.
+    private static int[] scanCategory(SolarSystem system, String category) {
+        return IntStream.range(0, system.getBodies().size())
+                .filter(id -> system.getBody(id).getCategory().equals(category)).toArray();
+    }
+
+    @Test
+    void indexesMatchAScanThroughRandomRemovals() {
+        SolarSystem system = TestSystems.randomSystem(2_000, 71);
+        Random random = new Random(71);
+        for (int k = 0; k < 700; k++) {
+            system.removeBody(system.getBody(1 + random.nextInt(system.getBodies().size() - 1)));
+        }
+
+        for (int id = 0; id < system.getBodies().size(); id++) {
+            CelestialBody body = system.getBody(id);
+            assertEquals(id, body.getId());
+            assertSame(body, system.findBody(body.getName()));
+        }
+        for (String category : new String[] {"planet", "comet", "star"}) {
+            assertArrayEquals(scanCategory(system, category), system.idsInCategory(category), category);
+        }
+        assertNull(system.findBody("Body 0"));
+    }
+
+    @Test
+    void theFirstBodyAddedKeepsADuplicateName() {
+        SolarSystem system = TestSystems.newSystem();
+        Planet first = planet("Twin");
+        Planet second = planet("Twin");
+        system.addBody(first);
+        system.addBody(second);
+
+        assertSame(first, system.findBody("Twin"));
+        system.removeBody(first);
+        assertSame(second, system.findBody("Twin"));
+        system.removeBody(second);
+        assertEquals(-1, system.findBodyId("Twin"));
+    }
+
+    @Test
+    void aRemovedBodyHandsItsNameToATwinThatWasMoved() {
+        SolarSystem system = TestSystems.newSystem();
+        Planet first = planet("Twin");
+        system.addBody(first);
+        system.addBody(planet("Other"));
+        Planet second = planet("Twin");
+        system.addBody(second);
+
+        // Removing first moves second into its row.
+        system.removeBody(first);
+        assertSame(second, system.findBody("Twin"));
+        assertEquals(second.getId(), system.findBodyId("Twin"));
+    }
+
+    @Test
+    void aBodyOfAnotherSystemIsRejected() {
+        SolarSystem owner = TestSystems.newSystem();
+        SolarSystem other = TestSystems.newSystem();
+        Planet earth = planet("Earth");
+        owner.addBody(earth);
+
+        assertThrows(IllegalArgumentException.class, () -> other.addBody(earth));
+        assertSame(earth, owner.findBody("Earth"));
+        assertNull(other.findBody("Earth"));
+        owner.addBody(earth);
+        assertEquals(owner.getBodies().size(), owner.getStore().size());
+    }
+
+    @Test
+    void renamingThroughTheSystemKeepsTheIndexCurrent() {
+        SolarSystem system = TestSystems.newSystem();
+        Planet earth = planet("Earth");
+        Planet twin = planet("Earth");
+        system.addBody(earth);
+        system.addBody(twin);
+        system.addBody(new Moon("Luna", 7e22, 1.7e6, 3.8e8, 2.36e6, "Earth", false));
+        Moon waiting = new Moon("Deimos", 1e15, 6e3, 2.3e7, 1.1e5, "Terra", false);
+        system.addBody(waiting);
+
+        system.renameBody(earth, "Terra");
+
+        assertSame(earth, system.findBody("Terra"));
+        assertSame(twin, system.findBody("Earth"));
+        assertEquals("Terra", ((Moon) system.findBody("Luna")).getPlanetOrbitingName());
+        assertSame(earth, waiting.getPlanetOrbiting());
+        assertEquals(earth.getId(), system.getStore().getParent(waiting.getId()));
+    }
+
+    @Test
+    void registeredBodiesRefuseDirectRenames() {
+        SolarSystem system = TestSystems.newSystem();
+        Planet earth = planet("Earth");
+        earth.setName("Gaia");
+        earth.setCategory("dwarf planet");
+        system.addBody(earth);
+
+        assertThrows(IllegalStateException.class, () -> earth.setName("Terra"));
+        assertThrows(IllegalStateException.class, () -> earth.setCategory("planet"));
+        assertThrows(IllegalArgumentException.class, () -> system.renameBody(planet("Mars"), "Ares"));
+        assertSame(earth, system.findBody("Gaia"));
+        assertEquals(1, system.findByCategory("dwarf planet").size());
+    }
+
+    @Test
+    void categoryChangesMoveTheBodyBetweenLists() {
+        SolarSystem system = TestSystems.randomSystem(100, 72);
+        CelestialBody body = system.findByCategory("planet").get(3);
+
+        system.setBodyCategory(body, "asteroid");
+
+        assertArrayEquals(new int[] {body.getId()}, system.idsInCategory("asteroid"));
+        assertArrayEquals(scanCategory(system, "planet"), system.idsInCategory("planet"));
+    }
+
+    @Test
+    void renamesInAForkStayInTheFork() {
+        SolarSystem system = TestSystems.randomSystem(50, 73);
+        SolarSystem fork = system.fork();
+
+        fork.renameBody(fork.findBody("Body 7"), "Renamed");
+        fork.setBodyCategory(fork.findBody("Body 8"), "asteroid");
+
+        assertNull(system.findBody("Renamed"));
+        assertEquals(7, system.findBodyId("Body 7"));
+        assertEquals(7, fork.findBodyId("Renamed"));
+        assertEquals(-1, fork.findBodyId("Body 7"));
+        assertEquals(0, system.idsInCategory("asteroid").length);
+        assertEquals(1, fork.idsInCategory("asteroid").length);
+    }
+}
@@ -0,0 +1,105 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BodyStoreTest {
+
+    @Test
+    void bodiesBecomeViewsOverTheirRow() {
+        SolarSystem system = TestSystems.newSystem();
+        Planet earth = new Planet("Earth", 5.972e24, 6.371e6, Main.AU_TO_METERS, 365.25 * Main.SECONDS_PER_DAY, 1, false, true);
+        system.addBody(earth);
+        BodyStore store = system.getStore();
+        int id = earth.getId();
+
+        assertSame(store, earth.getStore());
+        assertEquals(1, id);
+        assertEquals(5.972e24, store.getMass(id));
+
+        earth.setMass(6e24);
+        assertEquals(6e24, store.getMass(id));
+        store.setOrbitalRadius(id, 2 * Main.AU_TO_METERS);
+        assertEquals(2 * Main.AU_TO_METERS, earth.getOrbitalRadius());
+    }
+
+    @Test
+    void steppedRunMatchesRevolveBitForBit() {
+        Random random = new Random(1);
+        SolarSystem system = TestSystems.newSystem();
+        List<Planet> views = new ArrayList<>();
+        List<Planet> detached = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            double radius = (0.3 + 40 * random.nextDouble()) * Main.AU_TO_METERS;
+            double period = (0.1 + 100 * random.nextDouble()) * 365.25 * Main.SECONDS_PER_DAY;
+            Planet view = new Planet("Body " + i, 1e18, 1e5, radius, period, 0, false, false);
+            Planet copy = new Planet("Body " + i, 1e18, 1e5, radius, period, 0, false, false);
+            double theta = 2 * Math.PI * random.nextDouble();
+            view.setCurrentTheta(theta);
+            copy.setCurrentTheta(theta);
+            system.addBody(view);
+            views.add(view);
+            detached.add(copy);
+        }
+
+        double step = 3600.0;
+        system.runSimulation(50 * step, step);
+        for (int s = 0; s < 50; s++) {
+            for (Planet copy : detached) {
+                copy.revolve(step);
+            }
+        }
+
+        for (int i = 0; i < views.size(); i++) {
+            assertEquals(detached.get(i).getCurrentTheta(), views.get(i).getCurrentTheta(), 0.0, "body " + i);
+        }
+        assertEquals(50 * step, system.getElapsedTime());
+    }
+
+    @Test
+    void growingKeepsEveryRow() {
+        BodyStore store = new BodyStore(2);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, store.add(i, 2.0 * i, 3.0 * i, 0.001 * i, 10.0 + i));
+        }
+        assertEquals(1000, store.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, store.getMass(i));
+            assertEquals(2.0 * i, store.getRadius(i));
+            assertEquals(3.0 * i, store.getOrbitalRadius(i));
+            assertEquals(0.001 * i, store.getCurrentTheta(i));
+            assertEquals(2 * Math.PI / (10.0 + i), store.getAngularVelocity(i));
+        }
+    }
+
+    @Test
+    void positionsComposeAlongTheOrbitTree() {
+        BodyStore store = new BodyStore();
+        int star = store.add(1e30, 1e8, 0.0, 0.0, 0.0);
+        int planet = store.add(1e24, 1e6, 1e11, 0.5, 1e7);
+        int moon = store.add(1e22, 1e5, 4e8, 2.0, 1e6);
+        store.setParent(planet, star);
+        store.setParent(moon, planet);
+
+        assertEquals(1e11 * Math.cos(0.5), store.getX(planet), 1e-3);
+        assertEquals(1e11 * Math.cos(0.5) + 4e8 * Math.cos(2.0), store.getX(moon), 1e-3);
+        assertEquals(1e11 * Math.sin(0.5) + 4e8 * Math.sin(2.0), store.getY(moon), 1e-3);
+        assertEquals(store.getX(moon), store.resolveX(moon), 1e-3);
+        assertEquals(1, store.getChildCount(planet));
+    }
+
+    @Test
+    void rejectsOrbitCycles() {
+        BodyStore store = new BodyStore();
+        int a = store.add(1, 1, 1, 0, 0);
+        int b = store.add(1, 1, 1, 0, 0);
+        store.setParent(b, a);
+        assertThrows(IllegalArgumentException.class, () -> store.setParent(a, b));
+    }
+}
@@ -0,0 +1,180 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CatalogLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    private static void assertSameBodies(SolarSystem expected, SolarSystem actual) {
+        assertEquals(expected.getBodies().size(), actual.getBodies().size());
+        for (int i = 1; i < expected.getBodies().size(); i++) {
+            CelestialBody e = expected.getBody(i);
+            CelestialBody a = actual.getBody(i);
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getCategory(), a.getCategory());
+            assertEquals(e.getClass(), a.getClass(), e.getName());
+            assertEquals(e.getMass(), a.getMass());
+            assertEquals(e.getRadius(), a.getRadius());
+            assertEquals(e.getOrbitalPeriod(), a.getOrbitalPeriod());
+            assertEquals(expected.getStore().getParent(i), actual.getStore().getParent(i), e.getName());
+        }
+    }
+
+    @Test
+    void csvFieldsQuotesCommentsAndMoons() throws IOException {
+        Path file = dir.resolve("bodies.csv");
+        Files.writeString(file, String.join("\r\n",
+                "name,category,mass,radius,orbitalRadius,orbitalPeriod,eccentricity,perihelionDistance,parent",
+                "# a comment",
+                "Earth,planet,5.972e24,6.371e6,1.496e11,3.15576e7,,,",
+                "\"Moon, the\",moon,7.342e22,1.7374e6,3.844e8,2.3606e6,,,Earth",
+                "Halley,comet,2.2e14,5500,,2.379e9,0.967,8.766e10,",
+                "\"Rock \"\"A\"\"\",asteroid,1E15,+1.5e3,4.2e11,-0.0,0,0",
+                ""), StandardCharsets.UTF_8);
+        SolarSystem system = TestSystems.newSystem();
+
+        assertEquals(4, new CatalogLoader(2, 4096).load(file, system));
+
+        assertEquals(5, system.getBodies().size());
+        assertTrue(system.findBody("Earth") instanceof Planet);
+        CelestialBody moon = system.findBody("Moon, the");
+        assertTrue(moon instanceof Moon);
+        assertSame(system.findBody("Earth"), ((Moon) moon).getPlanetOrbiting());
+        Comet halley = (Comet) system.findBody("Halley");
+        assertEquals(0.967, halley.getEccentricity());
+        assertEquals("comet", halley.getCategory());
+        CelestialBody rock = system.findBody("Rock \"A\"");
+        assertEquals("asteroid", rock.getCategory());
+        assertEquals(1e15, rock.getMass());
+        assertEquals(1.5e3, rock.getRadius());
+    }
+
+    @Test
+    void csvErrorsNameTheLine() throws IOException {
+        Path file = dir.resolve("bad.csv");
+        Files.writeString(file, "A,planet,1,2,3,4\nB,planet,1,x,3,4\n");
+        IOException e = assertThrows(IOException.class, () -> new CatalogLoader().load(file, TestSystems.newSystem()));
+        assertTrue(e.getMessage().startsWith("Line 2"), e.getMessage());
+    }
+
+    @Test
+    void parseDoubleAgreesWithTheJdk() {
+        Random random = new Random(61);
+        for (int k = 0; k < 20_000; k++) {
+            double value = random.nextGaussian() * Math.pow(10, random.nextInt(60) - 30);
+            for (String text : new String[] {Double.toString(value), String.format("%.9e", value), String.format("%.4f", value)}) {
+                byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+                assertEquals(Double.parseDouble(text), CatalogLoader.parseDouble(bytes, 0, bytes.length), 0.0, text);
+            }
+        }
+    }
+
+    @Test
+    void binaryRoundTripKeepsEveryBody() throws IOException {
+        SolarSystem original = TestSystems.randomSystem(3_000, 62);
+        original.addBody(new Moon("Satellite", 1e16, 1e4, 1e7, 86_400, original.getBody(1).getName(), false));
+        Path file = dir.resolve("bodies.cbct");
+        CatalogLoader.writeBinary(file, original);
+
+        SolarSystem loaded = TestSystems.newSystem();
+        assertEquals(3_000, new CatalogLoader(100, 4096).load(file, loaded));
+
+        assertSameBodies(original, loaded);
+    }
+
+    @Test
+    void fieldsAtTheLengthLimitRoundTripThroughASmallBuffer() throws IOException {
+        SolarSystem original = TestSystems.newSystem();
+        String name = "ж".repeat(CatalogLoader.MAX_FIELD_BYTES / 2) + "x";
+        original.addBody(new Planet(name, 1e20, 1e5, Main.AU_TO_METERS, TestSystems.YEAR, 0, false, false));
+        original.addBody(new Planet("After", 2e20, 1e5, Main.AU_TO_METERS, TestSystems.YEAR, 0, false, false));
+        Path file = dir.resolve("long.cbct");
+        CatalogLoader.writeBinary(file, original);
+
+        SolarSystem loaded = TestSystems.newSystem();
+        new CatalogLoader(1, 4096).load(file, loaded);
+
+        assertSameBodies(original, loaded);
+    }
+
+    @Test
+    void overlongFieldsAreRejectedBeforeTheFileIsTouched() throws IOException {
+        Path file = dir.resolve("keep.cbct");
+        Files.write(file, new byte[] {9, 8, 7});
+        SolarSystem system = TestSystems.newSystem();
+        system.addBody(new Planet("y".repeat(CatalogLoader.MAX_FIELD_BYTES + 1), 1e20, 1e5,
+                                  Main.AU_TO_METERS, TestSystems.YEAR, 0, false, false));
+
+        assertThrows(IllegalArgumentException.class, () -> CatalogLoader.writeBinary(file, system));
+        assertArrayEquals(new byte[] {9, 8, 7}, Files.readAllBytes(file));
+    }
+
+    @Test
+    void truncatedBinaryFilesFailNamingTheRecord() throws IOException {
+        Path full = dir.resolve("full.cbct");
+        CatalogLoader.writeBinary(full, TestSystems.randomSystem(20, 63));
+        byte[] bytes = Files.readAllBytes(full);
+
+        Path truncated = dir.resolve("truncated.cbct");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 3));
+        IOException inRecord = assertThrows(IOException.class,
+                () -> new CatalogLoader().load(truncated, TestSystems.newSystem()));
+        assertTrue(inRecord.getMessage().contains("record 18"), inRecord.getMessage());
+
+        Path header = dir.resolve("header.cbct");
+        Files.write(header, Arrays.copyOf(bytes, 8));
+        IOException inHeader = assertThrows(IOException.class,
+                () -> new CatalogLoader().load(header, TestSystems.newSystem()));
+        assertTrue(inHeader.getMessage().contains("header"), inHeader.getMessage());
+    }
+
+    @Test
+    void oneLoaderServesConcurrentLoads() throws Exception {
+        CatalogLoader loader = new CatalogLoader(50, 4096);
+        List<Path> files = new ArrayList<>();
+        List<SolarSystem> originals = new ArrayList<>();
+        for (int k = 0; k < 6; k++) {
+            SolarSystem original = TestSystems.randomSystem(1_000 + 37 * k, 64 + k);
+            Path file = dir.resolve("concurrent" + k + ".cbct");
+            CatalogLoader.writeBinary(file, original);
+            files.add(file);
+            originals.add(original);
+        }
+
+        List<SolarSystem> loaded = new ArrayList<>();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (Path file : files) {
+            SolarSystem system = TestSystems.newSystem();
+            loaded.add(system);
+            futures.add(loader.loadAsync(file, system));
+        }
+        for (int k = 0; k < files.size(); k++) {
+            // More batches than the pending queue holds: drain while the loader is still producing.
+            while (!futures.get(k).isDone()) {
+                loaded.get(k).drainPendingBatches();
+                Thread.sleep(1);
+            }
+            assertEquals(originals.get(k).getBodies().size() - 1, futures.get(k).get());
+            loaded.get(k).drainPendingBatches();
+            assertSameBodies(originals.get(k), loaded.get(k));
+        }
+    }
+}
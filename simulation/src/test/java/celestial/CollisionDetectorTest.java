@@ -0,0 +1,154 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class CollisionDetectorTest {
+
+    // A crowded store: rows on a few narrow rings with radii large enough that neighbours touch.
+    private static BodyStore crowdedStore(int count, long seed) {
+        Random random = new Random(seed);
+        BodyStore store = new BodyStore();
+        for (int i = 0; i < count; i++) {
+            double orbitalRadius = (1.0 + random.nextInt(4) * 0.01) * Main.AU_TO_METERS;
+            double period = (0.5 + random.nextDouble()) * TestSystems.YEAR;
+            store.add(1e18, 2e7 + 2e8 * random.nextDouble(), orbitalRadius, 2 * Math.PI * random.nextDouble(), period);
+        }
+        return store;
+    }
+
+    private static Set<Long> sweep(CollisionDetector detector, BodyStore store) {
+        Set<Long> pairs = new TreeSet<>();
+        int found = detector.detect(store, (i, j, distance) -> pairs.add((long) i << 32 | j));
+        assertEquals(pairs.size(), found);
+        return pairs;
+    }
+
+    private static Set<Long> bruteForce(BodyStore store) {
+        Set<Long> pairs = new TreeSet<>();
+        for (int i = 0; i < store.size(); i++) {
+            for (int j = i + 1; j < store.size(); j++) {
+                double dx = store.getX(j) - store.getX(i);
+                double dy = store.getY(j) - store.getY(i);
+                double reach = store.getRadius(i) + store.getRadius(j);
+                if (dx * dx + dy * dy <= reach * reach) {
+                    pairs.add((long) i << 32 | j);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    @Test
+    void sweepAndPruneFindsExactlyTheBruteForcePairsAsBodiesMove() {
+        BodyStore store = crowdedStore(2000, 31);
+        CollisionDetector detector = new CollisionDetector(CollisionPolicy.RECORD);
+        int total = 0;
+        for (int step = 0; step < 20; step++) {
+            Set<Long> expected = bruteForce(store);
+            assertEquals(expected, sweep(detector, store), "step " + step);
+            total += expected.size();
+            store.propagate(step < 10 ? 3600.0 : 40 * Main.SECONDS_PER_DAY, 0, store.size());
+        }
+        assertTrue(total > 0, "the store should have touching pairs");
+    }
+
+    @Test
+    void sweepAndPruneKeepsMatchingAfterRowsAreRemoved() {
+        BodyStore store = crowdedStore(1000, 32);
+        CollisionDetector detector = new CollisionDetector(CollisionPolicy.RECORD);
+        sweep(detector, store);
+        Random random = new Random(33);
+        for (int round = 0; round < 5; round++) {
+            for (int k = 0; k < 100; k++) {
+                store.swapRemove(random.nextInt(store.size()));
+            }
+            store.propagate(Main.SECONDS_PER_DAY, 0, store.size());
+            assertEquals(bruteForce(store), sweep(detector, store), "round " + round);
+        }
+    }
+
+    // Two planets overlapping on the same orbit, a little apart in phase.
+    private static SolarSystem touchingPair(double heavyMass, double lightMass) {
+        SolarSystem system = TestSystems.newSystem();
+        double a = Main.AU_TO_METERS;
+        double period = TestSystems.keplerPeriod(a, TestSystems.SUN_MASS);
+        Planet heavy = new Planet("Heavy", heavyMass, 7e7, a, period, 0, false, false);
+        Planet light = new Planet("Light", lightMass, 3e7, a, period, 0, false, false);
+        light.setCurrentTheta(5e7 / a);
+        system.addBody(heavy);
+        system.addBody(light);
+        return system;
+    }
+
+    @Test
+    void mergeConservesMassAndVolume() {
+        SolarSystem system = touchingPair(2e27, 5e26);
+        List<CollisionEvent> events = new ArrayList<>();
+        CollisionDetector detector = new CollisionDetector(CollisionPolicy.MERGE);
+        detector.addListener(events::add);
+        system.setCollisionDetector(detector);
+        BodyStore store = system.getStore();
+        double totalMass = 0.0;
+        for (int id = 0; id < store.size(); id++) {
+            totalMass += store.getMass(id);
+        }
+
+        system.runSimulation(Main.SECONDS_PER_DAY, Main.SECONDS_PER_DAY);
+
+        assertEquals(2, store.size());
+        assertEquals(1, events.size());
+        assertEquals("Heavy", events.get(0).getSurvivorName());
+        assertEquals("Light", events.get(0).getOtherName());
+        assertEquals(totalMass, store.getMass(0) + store.getMass(1), 0.0);
+        CelestialBody survivor = system.findBody("Heavy");
+        assertEquals(2e27 + 5e26, survivor.getMass(), 0.0);
+        assertEquals(Math.cbrt(7e7 * 7e7 * 7e7 + 3e7 * 3e7 * 3e7), survivor.getRadius(), 1e-6);
+        assertEquals(1, detector.getMerged());
+    }
+
+    @Test
+    void nbodyMergeConservesMassAndMomentum() {
+        SolarSystem system = touchingPair(2e27, 5e26);
+        system.setPropagationMode(PropagationMode.NBODY);
+        system.setCollisionDetector(new CollisionDetector(CollisionPolicy.MERGE));
+        BodyStore store = system.getStore();
+        NBodyIntegrator integrator = system.getNBodyIntegrator();
+        integrator.load(store);
+        double totalMass = 0.0;
+        double px = 0.0;
+        double py = 0.0;
+        double scale = 0.0;
+        for (int i = 0; i < integrator.getBodyCount(); i++) {
+            double m = store.getMass(i);
+            totalMass += m;
+            px += m * integrator.getVx(i);
+            py += m * integrator.getVy(i);
+            scale += m * Math.hypot(integrator.getVx(i), integrator.getVy(i));
+        }
+
+        system.runSimulation(60.0, 60.0);
+
+        assertEquals(2, integrator.getBodyCount());
+        double massAfter = 0.0;
+        double pxAfter = 0.0;
+        double pyAfter = 0.0;
+        for (int i = 0; i < integrator.getBodyCount(); i++) {
+            double m = store.getMass(i);
+            massAfter += m;
+            pxAfter += m * integrator.getVx(i);
+            pyAfter += m * integrator.getVy(i);
+        }
+        assertEquals(totalMass, massAfter, 0.0);
+        // Dropping the light body's momentum instead would be off by about a fifth of scale.
+        assertEquals(px, pxAfter, 1e-9 * scale);
+        assertEquals(py, pyAfter, 1e-9 * scale);
+    }
+}
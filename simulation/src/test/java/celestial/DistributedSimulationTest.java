@@ -0,0 +1,165 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DistributedSimulationTest {
+
+    // Light planets on Keplerian orbits, so the star barely moves in an NBODY run, plus a few circular-by-mass
+    // bodies whose periods only exist once the system has registered its propagators.
+    private static SolarSystem system() {
+        SolarSystem system = TestSystems.keplerianSystem(60, 1e20, 1.0, 5.0, 41);
+        Random random = new Random(42);
+        for (int i = 0; i < 5; i++) {
+            CelestialBody body = new CelestialBody("By mass " + i, 1e20, 1e5);
+            body.setOrbitalRadius((1.0 + 4.0 * random.nextDouble()) * Main.AU_TO_METERS);
+            body.setCurrentTheta(2 * Math.PI * random.nextDouble());
+            body.setOrbitCenterMass(TestSystems.SUN_MASS);
+            system.addBody(body);
+        }
+        return system;
+    }
+
+    // Comets from 0.8 AU out past 4 AU, so over a year they cross between the bands of a few workers.
+    private static SolarSystem eccentricSystem() {
+        SolarSystem system = system();
+        Random random = new Random(43);
+        for (int i = 0; i < 20; i++) {
+            double e = 0.6 + 0.2 * random.nextDouble();
+            double perihelion = 0.8 * Main.AU_TO_METERS;
+            double period = TestSystems.keplerPeriod(perihelion / (1 - e), TestSystems.SUN_MASS);
+            Comet comet = new Comet("Comet " + i, 1e15, 1e4, e, period, perihelion);
+            comet.setCurrentTheta(2 * Math.PI * random.nextDouble());
+            system.addBody(comet);
+        }
+        return system;
+    }
+
+    private static void assertSamePositions(SolarSystem expected, SolarSystem actual, double tolerance) {
+        BodyStore a = expected.getStore();
+        BodyStore b = actual.getStore();
+        assertEquals(a.size(), b.size());
+        assertEquals(a.getTime(), b.getTime(), 0.0);
+        for (int id = 1; id < a.size(); id++) {
+            double error = Math.hypot(a.getX(id) - b.getX(id), a.getY(id) - b.getY(id));
+            assertTrue(error <= tolerance * a.getOrbitalRadius(id), "body " + id + " is off by " + error + " m");
+        }
+    }
+
+    private static void assertSamePositions(SolarSystem expected, SolarSystem actual) {
+        assertSamePositions(expected, actual, 1e-9);
+    }
+
+    private static int bodiesInBands(DistributedSimulation simulation) {
+        int bodies = 0;
+        for (DistributedSimulation.WorkerLoad load : simulation.getLoads()) {
+            bodies += load.getBodies();
+        }
+        return bodies;
+    }
+
+    private static void assertOneWorkerMatchesNBody(WorkerLauncher launcher) throws IOException {
+        SolarSystem reference = system();
+        reference.setPropagationMode(PropagationMode.NBODY);
+        SolarSystem distributed = system();
+        double step = 3600.0;
+        reference.runSimulation(256 * step, step);
+        try (DistributedSimulation simulation = new DistributedSimulation(distributed, 1, 0.0, 0.0, 0.0)) {
+            simulation.start(launcher);
+            simulation.run(256 * step, step);
+            assertEquals(distributed.getStore().size() - 1, simulation.getLoads().get(0).getBodies());
+            assertEquals(256, simulation.getLoads().get(0).getSteps());
+            assertEquals(1, simulation.getLoads().get(0).getFinishes());
+        }
+        assertSamePositions(reference, distributed);
+    }
+
+    @Test
+    void oneWorkerMatchesAnNBodyRun() throws IOException {
+        assertOneWorkerMatchesNBody(WorkerLauncher.threads());
+    }
+
+    @Test
+    void oneSocketWorkerMatchesAnNBodyRun() throws IOException {
+        assertOneWorkerMatchesNBody(WorkerLauncher.localSockets());
+    }
+
+    @Test
+    void startRegistersPropagatorsBeforeReadingVelocities() throws IOException {
+        SolarSystem distributed = system();
+        try (DistributedSimulation simulation = new DistributedSimulation(distributed, 1, 0.0, 0.0, 0.0)) {
+            simulation.start(WorkerLauncher.threads());
+        }
+        for (CelestialBody body : distributed.findByCategory("unspecified")) {
+            assertTrue(body.getOrbitalPeriod() > 0, body.getName());
+        }
+    }
+
+    // Leaving out the bands further out is an approximation, so several workers only come close to NBODY.
+    @Test
+    void fourWorkersStayCloseToAnNBodyRun() throws IOException {
+        SolarSystem reference = system();
+        reference.setPropagationMode(PropagationMode.NBODY);
+        SolarSystem distributed = system();
+        double step = 3600.0;
+        reference.runSimulation(400 * step, step);
+        try (DistributedSimulation simulation = new DistributedSimulation(distributed, 4, 0.05 * Main.AU_TO_METERS,
+                                                                          0.0, 0.0)) {
+            simulation.start(WorkerLauncher.threads());
+            simulation.run(400 * step, step);
+            assertEquals(distributed.getStore().size() - 1, bodiesInBands(simulation));
+            for (DistributedSimulation.WorkerLoad load : simulation.getLoads()) {
+                assertTrue(load.getBodies() > 0, "worker " + load.getIndex());
+                assertEquals(400, load.getSteps());
+            }
+        }
+        assertSamePositions(reference, distributed, 1e-7);
+    }
+
+    @Test
+    void bodiesCrossingBandsAreNeitherLostNorDuplicated() throws IOException {
+        SolarSystem reference = eccentricSystem();
+        reference.setPropagationMode(PropagationMode.NBODY);
+        SolarSystem distributed = eccentricSystem();
+        double step = Main.SECONDS_PER_DAY;
+        reference.runSimulation(365 * step, step);
+        try (DistributedSimulation simulation = new DistributedSimulation(distributed, 3, 0.05 * Main.AU_TO_METERS,
+                                                                          0.0, 0.0)) {
+            simulation.start(WorkerLauncher.threads());
+            int[] before = new int[3];
+            for (int k = 0; k < 3; k++) {
+                before[k] = simulation.getLoads().get(k).getBodies();
+            }
+            simulation.run(365 * step, step);
+            assertEquals(distributed.getStore().size() - 1, bodiesInBands(simulation));
+            boolean moved = false;
+            for (int k = 0; k < 3; k++) {
+                moved |= simulation.getLoads().get(k).getBodies() != before[k];
+            }
+            assertTrue(moved, "no body changed band");
+        }
+        assertSamePositions(reference, distributed, 1e-7);
+    }
+
+    @Test
+    void localProcessesMatchThreadWorkers() throws IOException {
+        SolarSystem threads = system();
+        SolarSystem processes = system();
+        double step = 3600.0;
+        try (DistributedSimulation simulation = new DistributedSimulation(threads, 2, 0.05 * Main.AU_TO_METERS, 0.0, 0.0)) {
+            simulation.start(WorkerLauncher.threads());
+            simulation.run(50 * step, step);
+        }
+        try (DistributedSimulation simulation = new DistributedSimulation(processes, 2, 0.05 * Main.AU_TO_METERS,
+                                                                          0.0, 0.0)) {
+            simulation.start(WorkerLauncher.localProcesses());
+            simulation.run(50 * step, step);
+            assertEquals(processes.getStore().size() - 1, bodiesInBands(simulation));
+        }
+        assertSamePositions(threads, processes, 0.0);
+    }
+}
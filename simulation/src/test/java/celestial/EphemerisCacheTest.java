@@ -0,0 +1,141 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EphemerisCacheTest {
+
+    private static double error(BodyStore store, EphemerisCache cache, int id, double t) {
+        double[] cached = new double[2];
+        double[] exact = new double[2];
+        cache.position(id, t, cached);
+        store.positionAt(id, t, exact);
+        return Math.hypot(cached[0] - exact[0], cached[1] - exact[1]);
+    }
+
+    @Test
+    void interpolatedPositionsStayNearTheTolerance() {
+        SolarSystem system = TestSystems.randomSystem(200, 101);
+        system.addBody(new Moon("Moonlet", 1e16, 1e4, 4e8, 27 * Main.SECONDS_PER_DAY, "Body 1", false));
+        BodyStore store = system.getStore();
+        double tolerance = 1e3;
+        EphemerisCache cache = new EphemerisCache(store, 4096, tolerance);
+        Random random = new Random(101);
+
+        double worst = 0.0;
+        for (int q = 0; q < 20_000; q++) {
+            int id = random.nextInt(store.size());
+            worst = Math.max(worst, error(store, cache, id, random.nextDouble() * 50 * TestSystems.YEAR));
+        }
+
+        // Fits are checked between their nodes; anywhere else the error stays within a small multiple.
+        assertTrue(worst < 10 * tolerance, "worst error " + worst + " m");
+        assertEquals(0, cache.getExactFallbacks());
+    }
+
+    @Test
+    void repeatedQueriesHitTheCache() {
+        SolarSystem system = TestSystems.randomSystem(20, 102);
+        EphemerisCache cache = new EphemerisCache(system.getStore(), 1024, 1e3);
+        double[] out = new double[2];
+        for (int id = 0; id < 20; id++) {
+            cache.position(id, 1e6, out);
+        }
+        long misses = cache.getMisses();
+
+        for (int round = 0; round < 10; round++) {
+            for (int id = 0; id < 20; id++) {
+                cache.position(id, 1e6 + round, out);
+            }
+        }
+
+        assertEquals(misses, cache.getMisses());
+        assertEquals(200, cache.getHits());
+    }
+
+    @Test
+    void editsToTheStoreEmptyTheCache() {
+        SolarSystem system = TestSystems.randomSystem(20, 103);
+        BodyStore store = system.getStore();
+        EphemerisCache cache = new EphemerisCache(store, 1024, 1e3);
+        double[] before = new double[2];
+        cache.position(3, 1e7, before);
+
+        system.getBody(3).setOrbitalPeriod(system.getBody(3).getOrbitalPeriod() / 2);
+
+        assertTrue(error(store, cache, 3, 1e7) < 1e4);
+    }
+
+    @Test
+    void nbodyRunsEmptyTheCache() {
+        SolarSystem system = TestSystems.keplerianSystem(10, 1e26, 0.5, 3.0, 105);
+        BodyStore store = system.getStore();
+        EphemerisCache cache = new EphemerisCache(store, 1024, 1.0);
+        double t = store.getTime() + 60 * Main.SECONDS_PER_DAY;
+        for (int id = 1; id < store.size(); id++) {
+            assertTrue(error(store, cache, id, t) < 10.0);
+        }
+
+        // The run re-derives every orbit from the integrated positions, which leaves the state version alone.
+        system.setPropagationMode(PropagationMode.NBODY);
+        system.runSimulation(30 * Main.SECONDS_PER_DAY, 3600.0);
+
+        for (int id = 1; id < store.size(); id++) {
+            assertTrue(error(store, cache, id, t) < 10.0, "body " + id + " off by " + error(store, cache, id, t) + " m");
+        }
+    }
+
+    @Test
+    void evictionKeepsAnswersCorrect() {
+        SolarSystem system = TestSystems.randomSystem(500, 104);
+        BodyStore store = system.getStore();
+        EphemerisCache cache = new EphemerisCache(store, 16, 1e3);
+        Random random = new Random(104);
+        for (int q = 0; q < 5_000; q++) {
+            int id = random.nextInt(store.size());
+            assertTrue(error(store, cache, id, random.nextDouble() * TestSystems.YEAR) < 1e4, "query " + q);
+        }
+        assertEquals(16, cache.getSegmentCount());
+    }
+
+    @Test
+    void unfittableSegmentsFallBackToExactPropagation() {
+        SolarSystem system = TestSystems.newSystem();
+        system.addBody(new Comet("Sungrazer", 1e12, 1e3, 0.9995, 80 * TestSystems.YEAR, 1e9));
+        BodyStore store = system.getStore();
+        // Far below the rounding noise of positions around 1e12 m, so no fit can pass.
+        EphemerisCache cache = new EphemerisCache(store, 64, 1e-9);
+        double[] cached = new double[2];
+        double[] exact = new double[2];
+
+        int queries = 0;
+        for (double t = 0; t < 80 * TestSystems.YEAR; t += 7.3 * TestSystems.YEAR) {
+            cache.position(1, t, cached);
+            store.positionAt(1, t, exact);
+            assertArrayEquals(exact, cached, 0.0);
+            queries++;
+        }
+        assertEquals(queries, cache.getExactFallbacks());
+    }
+
+    @Test
+    void distantSegmentsDoNotAliasNearOnes() {
+        SolarSystem system = TestSystems.newSystem();
+        double radius = 1e7;
+        double period = Main.SECONDS_PER_DAY;
+        system.addBody(new Planet("Fast", 1e10, 1e3, radius, period, 0, false, false));
+        BodyStore store = system.getStore();
+        EphemerisCache cache = new EphemerisCache(store, 64, 1.0);
+        double length = period / EphemerisCache.DEFAULT_SEGMENTS_PER_ORBIT;
+        double near = 0.3 * length;
+        // A segment index 2^34 further on, which a 34-bit packed index would wrap onto the near one.
+        double far = near + Math.scalb(length, 34);
+
+        assertTrue(error(store, cache, 1, near) < 10.0);
+        assertTrue(error(store, cache, 1, far) < 1e-3 * radius, "far error " + error(store, cache, 1, far));
+    }
+}
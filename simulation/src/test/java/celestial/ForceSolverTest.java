@@ -0,0 +1,141 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ForceSolverTest {
+    private static final double SOFTENING = 1e6;
+
+    // Bodies scattered over a few AU in the plane.
+    private static double[][] scatter(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] state = new double[4][n];
+        for (int i = 0; i < n; i++) {
+            state[0][i] = random.nextGaussian() * Main.AU_TO_METERS;
+            state[1][i] = random.nextGaussian() * Main.AU_TO_METERS;
+            state[3][i] = 1e20 * (1 + random.nextDouble());
+        }
+        return state;
+    }
+
+    private static double[][] accelerations(ForceSolver solver, double[][] state, int n, double softening) {
+        double[][] a = new double[3][n];
+        solver.computeAccelerations(state[0], state[1], state[2], state[3], n, softening, a[0], a[1], a[2]);
+        return a;
+    }
+
+    private static void assertClose(double[][] expected, double[][] actual, int n, double relative) {
+        for (int i = 0; i < n; i++) {
+            double scale = Math.hypot(expected[0][i], expected[1][i]);
+            assertEquals(expected[0][i], actual[0][i], relative * scale, "ax " + i);
+            assertEquals(expected[1][i], actual[1][i], relative * scale, "ay " + i);
+            assertEquals(expected[2][i], actual[2][i], relative * scale, "az " + i);
+        }
+    }
+
+    @Test
+    void directSummationObeysNewtonsThirdLaw() {
+        int n = 700;
+        double[][] state = scatter(n, 1);
+        double[][] a = accelerations(new DirectForceSolver(64), state, n, SOFTENING);
+
+        double px = 0.0;
+        double py = 0.0;
+        double scale = 0.0;
+        for (int i = 0; i < n; i++) {
+            px += state[3][i] * a[0][i];
+            py += state[3][i] * a[1][i];
+            scale += state[3][i] * Math.hypot(a[0][i], a[1][i]);
+        }
+        assertEquals(0.0, px, 1e-12 * scale);
+        assertEquals(0.0, py, 1e-12 * scale);
+    }
+
+    @Test
+    void tilingDoesNotChangeTheResult() {
+        int n = 700;
+        double[][] state = scatter(n, 2);
+        assertClose(accelerations(new DirectForceSolver(1 << 20), state, n, SOFTENING),
+                    accelerations(new DirectForceSolver(64), state, n, SOFTENING), n, 1e-12);
+    }
+
+    @Test
+    void barnesHutWithZeroAngleIsDirectSummation() {
+        int n = 500;
+        double[][] state = scatter(n, 3);
+        assertClose(accelerations(new DirectForceSolver(), state, n, SOFTENING),
+                    accelerations(new BarnesHutForceSolver(0.0), state, n, SOFTENING), n, 1e-10);
+    }
+
+    @Test
+    void barnesHutErrorStaysSmallAtTheDefaultAngle() {
+        int n = 5_000;
+        double[][] state = scatter(n, 4);
+        BarnesHutForceSolver solver = new BarnesHutForceSolver(BarnesHutForceSolver.DEFAULT_OPENING_ANGLE);
+
+        BarnesHutForceSolver.AccuracyReport report =
+                solver.compareWithDirectSummation(state[0], state[1], state[2], state[3], n, SOFTENING, 200);
+
+        assertTrue(report.getMeanRelativeError() < 3e-2, report.toString());
+        assertTrue(report.getMaxRelativeError() < 0.25, report.toString());
+        // Monopole-only cells at theta 0.5 land around a percent on average.
+        // A quadtree has at most 4 children per split.
+        assertTrue(solver.getNodeCount() < 4 * 2 * n, "nodes " + solver.getNodeCount());
+    }
+
+    @Test
+    void targetsGetTheSameAccelerationsAsAFullEvaluation() {
+        int n = 2_000;
+        double[][] state = scatter(n, 5);
+        BarnesHutForceSolver solver = new BarnesHutForceSolver(0.5);
+        double[][] full = accelerations(solver, state, n, SOFTENING);
+        int[] targets = {0, 17, 999, 1999};
+        double[][] some = new double[3][n];
+
+        solver.computeAccelerations(state[0], state[1], state[2], state[3], n, SOFTENING, targets, targets.length,
+                                    some[0], some[1], some[2]);
+
+        for (int i : targets) {
+            assertEquals(full[0][i], some[0][i], 0.0);
+            assertEquals(full[1][i], some[1][i], 0.0);
+        }
+    }
+
+    @Test
+    void bodiesSharingADeepLeafDoNotPullOnThemselves() {
+        // Two bodies 1e-9 m apart near the origin and two far away: the pair ends up in one leaf at maximum depth.
+        double[][] state = {
+            {0.5, 0.5 + 1e-9, 1e12, -1e12},
+            {0.5, 0.5, 1e12, 1e12},
+            {0.0, 0.0, 0.0, 0.0},
+            {1e20, 3e20, 1e24, 1e24},
+        };
+        double softening = 1e-9;
+
+        double[][] exact = accelerations(new DirectForceSolver(), state, 4, softening);
+        double[][] tree = accelerations(new BarnesHutForceSolver(0.0), state, 4, softening);
+
+        assertClose(exact, tree, 4, 1e-9);
+    }
+
+    @Test
+    void wideAnglesNeverUseANodeHoldingTheBodyItself() {
+        // With theta = 2 every far node is accepted whole; a lone body must still feel only the others.
+        double[][] state = {
+            {0.0, 1e11, 1.1e11, 1.2e11},
+            {0.0, 0.0, 1e10, -1e10},
+            {0.0, 0.0, 0.0, 0.0},
+            {1e30, 1e24, 1e24, 1e24},
+        };
+        double[][] exact = accelerations(new DirectForceSolver(), state, 4, 0.0);
+        double[][] tree = accelerations(new BarnesHutForceSolver(2.0), state, 4, 0.0);
+
+        assertClose(exact, tree, 1, 0.1);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(Double.isFinite(tree[0][i]) && Double.isFinite(tree[1][i]), "body " + i);
+        }
+    }
+}
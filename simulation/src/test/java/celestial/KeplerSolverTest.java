@@ -0,0 +1,82 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class KeplerSolverTest {
+
+    @Test
+    void solvesKeplersEquationAcrossEccentricities() {
+        for (double e = 0.0; e < 0.995; e += 0.05) {
+            for (double m = 0.0; m < 2 * Math.PI; m += 0.01) {
+                double eccentricAnomaly = KeplerSolver.solve(m, e);
+                assertEquals(m, eccentricAnomaly - e * Math.sin(eccentricAnomaly), 1e-12, "e=" + e + " M=" + m);
+            }
+        }
+    }
+
+    @Test
+    void batchMatchesSingleSolves() {
+        Random random = new Random(7);
+        int n = 10_000;
+        double[] meanAnomaly = new double[n];
+        double[] eccentricity = new double[n];
+        double[] eccentricAnomaly = new double[n];
+        for (int i = 0; i < n; i++) {
+            meanAnomaly[i] = 2 * Math.PI * random.nextDouble();
+            eccentricity[i] = 0.99 * random.nextDouble();
+        }
+
+        KeplerSolver.solveBatch(meanAnomaly, eccentricity, eccentricAnomaly, 0, n, KeplerSolver.DEFAULT_TOLERANCE);
+
+        for (int i = 0; i < n; i++) {
+            assertEquals(KeplerSolver.solve(meanAnomaly[i], eccentricity[i]), eccentricAnomaly[i], 1e-12);
+        }
+    }
+
+    @Test
+    void batchLeavesItsInputsAlone() {
+        double[] meanAnomaly = {-1.0, 0.5, 7.0, 100.0, 1e4};
+        double[] eccentricity = {0.3, 0.5, 0.7, 0.9, 0.2};
+        double[] before = meanAnomaly.clone();
+        double[] eccentricAnomaly = new double[meanAnomaly.length];
+
+        KeplerSolver.solveBatch(meanAnomaly, eccentricity, eccentricAnomaly, 0, meanAnomaly.length,
+                                KeplerSolver.DEFAULT_TOLERANCE);
+
+        assertArrayEquals(before, meanAnomaly, 0.0);
+        for (int i = 0; i < meanAnomaly.length; i++) {
+            assertEquals(KeplerSolver.solve(meanAnomaly[i], eccentricity[i]), eccentricAnomaly[i], 1e-9, "M=" + meanAnomaly[i]);
+        }
+    }
+
+    @Test
+    void anomalyConversionsRoundTrip() {
+        for (double e = 0.0; e < 0.995; e += 0.1) {
+            for (double m = 0.05; m < Math.PI; m += 0.1) {
+                double nu = KeplerSolver.trueAnomaly(KeplerSolver.solve(m, e), e);
+                assertEquals(m, KeplerSolver.meanAnomalyFromTrueAnomaly(nu, e), 1e-10, "e=" + e + " M=" + m);
+            }
+        }
+    }
+
+    @Test
+    void cometReturnsToPerihelionAfterOnePeriod() {
+        double period = 76.0 * TestSystems.YEAR;
+        double perihelion = 0.587 * Main.AU_TO_METERS;
+        Comet halley = new Comet("Halley's Comet", 2.2e14, 5.5e3, 0.967, period, perihelion);
+        double aphelion = perihelion * (1 + 0.967) / (1 - 0.967);
+
+        for (int k = 0; k < 2; k++) {
+            halley.revolve(period / 4);
+        }
+        assertEquals(aphelion, halley.getOrbitalRadius(), 1e-9 * aphelion);
+        for (int k = 0; k < 2; k++) {
+            halley.revolve(period / 4);
+        }
+        assertEquals(perihelion, halley.getOrbitalRadius(), 1e-6 * perihelion);
+    }
+}
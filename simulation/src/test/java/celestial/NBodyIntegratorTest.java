@@ -0,0 +1,91 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class NBodyIntegratorTest {
+
+    @Test
+    void circularOrbitStaysCircularAndKeepsItsPeriod() {
+        // A step of 2^12 s and a period of 2000 steps keep runSimulation's time sums exact.
+        double step = 4096.0;
+        double period = 2000 * step;
+        double a = Math.cbrt(Main.G * TestSystems.SUN_MASS * period * period / (4 * Math.PI * Math.PI));
+        SolarSystem system = TestSystems.newSystem();
+        Planet planet = new Planet("Inner", 1e20, 1e6, a, period, 0, false, false);
+        system.addBody(planet);
+        system.setPropagationMode(PropagationMode.NBODY);
+
+        system.runSimulation(period / 2, step);
+        assertEquals(a, planet.getOrbitalRadius(), 1e-5 * a);
+        assertEquals(Math.PI, Math.abs(planet.getCurrentTheta()), 1e-4);
+
+        system.runSimulation(period / 2, step);
+        assertEquals(a, planet.getOrbitalRadius(), 1e-5 * a);
+        assertEquals(0.0, TestSystems.angleBetween(0.0, planet.getCurrentTheta()), 1e-4);
+        assertEquals(period, system.getElapsedTime());
+    }
+
+    @Test
+    void leapfrogConservesEnergy() {
+        SolarSystem system = TestSystems.keplerianSystem(30, 1e26, 0.5, 10.0, 21);
+        NBodyIntegrator integrator = new NBodyIntegrator(new DirectForceSolver(), 1e6);
+        integrator.load(system.getStore());
+        double initial = integrator.totalEnergy();
+
+        double step = Main.SECONDS_PER_DAY / 4;
+        for (int s = 0; s < 4 * 365; s++) {
+            integrator.step(step);
+        }
+
+        double drift = Math.abs((integrator.totalEnergy() - initial) / initial);
+        assertTrue(drift < 1e-6, "relative energy drift " + drift);
+    }
+
+    @Test
+    void leapfrogIsTimeReversible() {
+        SolarSystem system = TestSystems.keplerianSystem(20, 1e25, 0.5, 5.0, 22);
+        NBodyIntegrator integrator = new NBodyIntegrator(new DirectForceSolver(), 1e6);
+        integrator.load(system.getStore());
+        int n = integrator.getBodyCount();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = integrator.getX(i);
+            y[i] = integrator.getY(i);
+        }
+
+        double step = Main.SECONDS_PER_DAY;
+        for (int s = 0; s < 200; s++) {
+            integrator.step(step);
+        }
+        for (int s = 0; s < 200; s++) {
+            integrator.step(-step);
+        }
+
+        for (int i = 1; i < n; i++) {
+            assertEquals(x[i], integrator.getX(i), 1e-6 * Main.AU_TO_METERS, "x " + i);
+            assertEquals(y[i], integrator.getY(i), 1e-6 * Main.AU_TO_METERS, "y " + i);
+        }
+    }
+
+    @Test
+    void mergeMovesTheSurvivorToTheCentreOfMass() {
+        SolarSystem system = TestSystems.keplerianSystem(3, 1e24, 1.0, 2.0, 23);
+        NBodyIntegrator integrator = new NBodyIntegrator(new DirectForceSolver(), 0.0);
+        integrator.load(system.getStore());
+        double m1 = system.getStore().getMass(1);
+        double m2 = system.getStore().getMass(2);
+        double centerX = (m1 * integrator.getX(1) + m2 * integrator.getX(2)) / (m1 + m2);
+        double centerY = (m1 * integrator.getY(1) + m2 * integrator.getY(2)) / (m1 + m2);
+
+        integrator.merge(1, 2);
+        integrator.swapRemove(2);
+
+        assertEquals(2, integrator.getBodyCount());
+        assertEquals(centerX, integrator.getX(1), 1e-6 * Math.abs(centerX) + 1e-3);
+        assertEquals(centerY, integrator.getY(1), 1e-6 * Math.abs(centerY) + 1e-3);
+    }
+}
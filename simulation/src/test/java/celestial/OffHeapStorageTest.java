@@ -0,0 +1,126 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapStorageTest {
+
+    @Test
+    void offHeapCopyPropagatesLikeTheHeapSystem() {
+        for (PropagationMode mode : new PropagationMode[] {PropagationMode.STEPPED, PropagationMode.ANALYTIC}) {
+            SolarSystem heap = TestSystems.randomSystem(300, 21);
+            heap.addBody(new Moon("Moon", 1e15, 1e4, 4e8, 27 * Main.SECONDS_PER_DAY, "Body 1", false));
+            heap.setPropagationMode(mode);
+            SolarSystem offHeap = heap.copyToOffHeap();
+            try {
+                assertSame(ColumnStorage.OFF_HEAP, offHeap.getStore().getStorage());
+                heap.runSimulation(64 * Main.SECONDS_PER_DAY, Main.SECONDS_PER_DAY);
+                offHeap.runSimulation(64 * Main.SECONDS_PER_DAY, Main.SECONDS_PER_DAY);
+
+                BodyStore expected = heap.getStore();
+                BodyStore actual = offHeap.getStore();
+                assertEquals(expected.size(), actual.size());
+                assertEquals(expected.getTime(), actual.getTime(), 0.0);
+                for (int id = 0; id < expected.size(); id++) {
+                    assertEquals(expected.getCurrentTheta(id), actual.getCurrentTheta(id), 0.0, mode + " body " + id);
+                    assertEquals(expected.getOrbitalRadius(id), actual.getOrbitalRadius(id), 0.0, mode + " body " + id);
+                    assertEquals(expected.getX(id), actual.getX(id), 0.0, mode + " body " + id);
+                    assertEquals(expected.getY(id), actual.getY(id), 0.0, mode + " body " + id);
+                }
+            } finally {
+                offHeap.getStore().close();
+            }
+        }
+    }
+
+    @Test
+    void offHeapBodiesKeepNamesCategoriesAndParents() {
+        SolarSystem heap = TestSystems.randomSystem(20, 3);
+        heap.addBody(new Moon("Moon", 1e15, 1e4, 4e8, 27 * Main.SECONDS_PER_DAY, "Body 1", false));
+        SolarSystem offHeap = heap.copyToOffHeap();
+        try {
+            for (CelestialBody body : heap.getBodies()) {
+                CelestialBody copy = offHeap.getBody(body.getId());
+                assertEquals(body.getName(), copy.getName());
+                assertEquals(body.getCategory(), copy.getCategory());
+                assertEquals(body.getMass(), copy.getMass(), 0.0);
+                assertEquals(body.getRadius(), copy.getRadius(), 0.0);
+            }
+            int moon = offHeap.findBodyId("Moon");
+            assertEquals(offHeap.findBodyId("Body 1"), offHeap.getStore().getParent(moon));
+            assertEquals(heap.idsInCategory("comet").length, offHeap.idsInCategory("comet").length);
+        } finally {
+            offHeap.getStore().close();
+        }
+    }
+
+    @Test
+    void offHeapSystemResolvesMoonsInBatchesLikeTheHeapPath() {
+        SolarSystem system = new SolarSystem(TestSystems.sun(), ColumnStorage.OFF_HEAP);
+        system.setQuiet(true);
+        try {
+            // The moon arrives before its planet, and its planet is named after a plain body, not a Planet.
+            Moon moon = new Moon("Moon", 1e15, 1e4, 4e8, 27 * Main.SECONDS_PER_DAY, "Rock", false);
+            CelestialBody rock = new CelestialBody("Rock", 1e20, 1e5);
+            rock.setOrbitalRadius(Main.AU_TO_METERS);
+            rock.setOrbitalPeriod(TestSystems.YEAR);
+            system.addBatch(new CelestialBody[] {moon}, 1);
+            system.addBatch(new CelestialBody[] {rock}, 1);
+
+            assertEquals(rock.getId(), system.getStore().getParent(moon.getId()));
+            assertSame(rock, moon.getPlanetOrbiting());
+        } finally {
+            system.getStore().close();
+        }
+    }
+
+    @Test
+    void offHeapStoreGrowsAndSwapRemovesLikeTheHeapStore() {
+        BodyStore heap = new BodyStore(ColumnStorage.HEAP, 2);
+        BodyStore offHeap = new BodyStore(ColumnStorage.OFF_HEAP, 2);
+        for (BodyStore store : new BodyStore[] {heap, offHeap}) {
+            for (int i = 0; i < 40; i++) {
+                store.add(1e20 + i, 1e5, (1 + i) * 1e10, 0.1 * i, (i + 1) * 1e6);
+            }
+            store.setParent(7, 3);
+            store.setOrbitShape(11, 0.4, 5e9);
+            store.swapRemove(3);
+            store.swapRemove(10);
+            store.propagate(3600.0, 0, store.size());
+            store.propagateKepler(3600.0, 0, store.getKeplerCount());
+        }
+        assertTrue(offHeap.getCapacity() >= 40);
+        assertEquals(heap.size(), offHeap.size());
+        for (int id = 0; id < heap.size(); id++) {
+            assertEquals(heap.getMass(id), offHeap.getMass(id), 0.0);
+            assertEquals(heap.getParent(id), offHeap.getParent(id));
+            assertEquals(heap.getCurrentTheta(id), offHeap.getCurrentTheta(id), 0.0);
+            assertEquals(heap.getX(id), offHeap.getX(id), 0.0);
+        }
+        offHeap.close();
+    }
+
+    @Test
+    void closedStoreAndStaleIdsThrow() {
+        SolarSystem offHeap = TestSystems.randomSystem(10, 5).copyToOffHeap();
+        BodyStore store = offHeap.getStore();
+        CelestialBody body = offHeap.getBody(4);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> store.getMass(store.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.getX(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.setMass(store.size(), 1.0));
+
+        store.close();
+        assertTrue(store.isClosed());
+        assertThrows(IllegalStateException.class, () -> store.getMass(0));
+        assertThrows(IllegalStateException.class, () -> store.setRadius(0, 1.0));
+        assertThrows(IllegalStateException.class, () -> store.getParent(0));
+        assertThrows(IllegalStateException.class, body::getMass);
+        assertThrows(IllegalStateException.class, body::getX);
+        assertThrows(IllegalStateException.class, () -> offHeap.runSimulation(Main.SECONDS_PER_DAY, Main.SECONDS_PER_DAY));
+    }
+}
@@ -0,0 +1,88 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class OrbitTreeTest {
+
+    private static Planet earth() {
+        return new Planet("Earth", 5.972e24, 6.371e6, Main.AU_TO_METERS, TestSystems.YEAR, 1, false, true);
+    }
+
+    private static Moon moon(String name, String parent) {
+        return new Moon(name, 7.342e22, 1.7374e6, 3.844e8, 27.32 * Main.SECONDS_PER_DAY, parent, true);
+    }
+
+    private static void assertOrbits(CelestialBody satellite, CelestialBody parent) {
+        double r = satellite.getOrbitalRadius();
+        double theta = satellite.getCurrentTheta();
+        assertEquals(parent.getX() + r * Math.cos(theta), satellite.getX(), 1e-3);
+        assertEquals(parent.getY() + r * Math.sin(theta), satellite.getY(), 1e-3);
+    }
+
+    @Test
+    void moonFollowsItsPlanet() {
+        SolarSystem system = TestSystems.newSystem();
+        Planet earth = earth();
+        Moon moon = moon("Moon", "Earth");
+        system.addBody(earth);
+        system.addBody(moon);
+
+        system.runSimulation(40 * Main.SECONDS_PER_DAY, 3600.0);
+
+        assertSame(earth, moon.getPlanetOrbiting());
+        assertEquals(earth.getId(), system.getStore().getParent(moon.getId()));
+        assertOrbits(moon, earth);
+        assertOrbits(earth, system.getCentralStar());
+    }
+
+    @Test
+    void moonAddedBeforeItsPlanetAttachesWhenThePlanetArrives() {
+        SolarSystem system = TestSystems.newSystem();
+        Moon moon = moon("Moon", "Earth");
+        system.addBody(moon);
+        assertNull(moon.getPlanetOrbiting());
+
+        Planet earth = earth();
+        system.addBody(earth);
+
+        assertSame(earth, moon.getPlanetOrbiting());
+        assertOrbits(moon, earth);
+    }
+
+    @Test
+    void satellitesOfMoonsComposeTwoLevels() {
+        SolarSystem system = TestSystems.newSystem();
+        Planet earth = earth();
+        Moon moon = moon("Moon", "Earth");
+        Moon subMoon = new Moon("Pebble", 1e10, 1e3, 1e6, 2 * Main.SECONDS_PER_DAY, "Moon", false);
+        system.addBody(earth);
+        system.addBody(moon);
+        system.addBody(subMoon);
+
+        system.runSimulation(10 * Main.SECONDS_PER_DAY, 3600.0);
+
+        assertOrbits(subMoon, moon);
+        assertOrbits(moon, earth);
+    }
+
+    @Test
+    void reassigningTheParentMovesTheMoon() {
+        SolarSystem system = TestSystems.newSystem();
+        Planet earth = earth();
+        Planet mars = new Planet("Mars", 6.39e23, 3.3895e6, 1.524 * Main.AU_TO_METERS, 687.0 * Main.SECONDS_PER_DAY,
+                                 2, false, false);
+        Moon moon = moon("Moon", "Earth");
+        system.addBody(earth);
+        system.addBody(mars);
+        system.addBody(moon);
+
+        moon.setPlanetOrbiting(mars);
+
+        assertEquals("Mars", moon.getPlanetOrbitingName());
+        assertOrbits(moon, mars);
+    }
+}
@@ -0,0 +1,70 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelPropagationTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    private static void assertSameState(SolarSystem expected, SolarSystem actual) {
+        for (int id = 0; id < expected.getBodies().size(); id++) {
+            assertEquals(expected.getBody(id).getCurrentTheta(), actual.getBody(id).getCurrentTheta(), 0.0, "theta " + id);
+            assertEquals(expected.getBody(id).getOrbitalRadius(), actual.getBody(id).getOrbitalRadius(), 0.0, "radius " + id);
+        }
+    }
+
+    private static SolarSystem parallel(SolarSystem system) {
+        system.setForkJoinPool(pool);
+        system.setSequentialCutoff(64);
+        return system;
+    }
+
+    @Test
+    void steppedRunIsBitIdenticalToSequential() {
+        SolarSystem sequential = TestSystems.randomSystem(5_000, 11);
+        SolarSystem parallel = parallel(TestSystems.randomSystem(5_000, 11));
+
+        sequential.runSimulation(20 * 3600.0, 3600.0);
+        parallel.runSimulation(20 * 3600.0, 3600.0);
+
+        assertSameState(sequential, parallel);
+    }
+
+    @Test
+    void analyticJumpIsBitIdenticalToSequential() {
+        SolarSystem sequential = TestSystems.randomSystem(5_000, 12);
+        SolarSystem parallel = parallel(TestSystems.randomSystem(5_000, 12));
+
+        sequential.propagateTo(3.7 * TestSystems.YEAR);
+        parallel.propagateTo(3.7 * TestSystems.YEAR);
+
+        assertSameState(sequential, parallel);
+    }
+
+    @Test
+    void blockTimestepsAreBitIdenticalToSequential() {
+        SolarSystem sequential = TestSystems.randomSystem(5_000, 13);
+        SolarSystem parallel = parallel(TestSystems.randomSystem(5_000, 13));
+        sequential.setBlockTimestepScheduler(new BlockTimestepScheduler());
+        parallel.setBlockTimestepScheduler(new BlockTimestepScheduler());
+
+        sequential.runSimulation(90 * Main.SECONDS_PER_DAY, 30 * Main.SECONDS_PER_DAY);
+        parallel.runSimulation(90 * Main.SECONDS_PER_DAY, 30 * Main.SECONDS_PER_DAY);
+
+        assertSameState(sequential, parallel);
+    }
+}
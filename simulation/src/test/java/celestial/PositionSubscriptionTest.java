@@ -0,0 +1,193 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PositionSubscriptionTest {
+    private static final double STEP = Main.SECONDS_PER_DAY;
+
+    // Records every callback as {id, time, x, y}, with id -1 marking the end of a sample.
+    private static final class Recorder implements PositionObserver {
+        final List<double[]> calls = new ArrayList<>();
+
+        @Override
+        public void onPosition(int id, double time, double x, double y) {
+            calls.add(new double[] {id, time, x, y});
+        }
+
+        @Override
+        public void onSampleEnd(double time) {
+            calls.add(new double[] {-1, time, 0, 0});
+        }
+
+        double[] sampleTimes() {
+            return calls.stream().filter(c -> c[0] < 0).mapToDouble(c -> c[1]).toArray();
+        }
+    }
+
+    @Test
+    void samplesArriveAtTheCadenceWithTheStoresPositions() {
+        SolarSystem system = TestSystems.randomSystem(200, 81);
+        SolarSystem reference = TestSystems.randomSystem(200, 81);
+        int[] ids = {3, 50, 199, 10};
+        Recorder recorder = new Recorder();
+        system.subscribe(ids, 3 * STEP, recorder);
+
+        system.runSimulation(10 * STEP, STEP);
+
+        assertArrayEquals(new double[] {STEP, 3 * STEP, 6 * STEP, 9 * STEP}, recorder.sampleTimes());
+        int call = 0;
+        for (int step = 1; step <= 10; step++) {
+            reference.runSimulation(STEP, STEP);
+            if (step != 1 && step % 3 != 0) {
+                continue;
+            }
+            reference.updatePositions();
+            for (int id : ids) {
+                double[] c = recorder.calls.get(call++);
+                assertEquals(id, (int) c[0]);
+                assertEquals(step * STEP, c[1]);
+                assertEquals(reference.getStore().getX(id), c[2], 1e-6 * Main.AU_TO_METERS, "x of " + id);
+                assertEquals(reference.getStore().getY(id), c[3], 1e-6 * Main.AU_TO_METERS, "y of " + id);
+            }
+            assertEquals(-1, (int) recorder.calls.get(call++)[0]);
+        }
+        assertEquals(recorder.calls.size(), call);
+    }
+
+    @Test
+    void categorySubscriptionsOnlySeeThatCategory() {
+        SolarSystem system = TestSystems.randomSystem(100, 82);
+        Recorder recorder = new Recorder();
+        system.subscribe("comet", 0, recorder);
+
+        system.runSimulation(2 * STEP, STEP);
+
+        int[] comets = system.idsInCategory("comet");
+        assertEquals(2 * (comets.length + 1), recorder.calls.size());
+        for (double[] c : recorder.calls) {
+            assertTrue(c[0] < 0 || system.getBody((int) c[0]) instanceof Comet);
+        }
+    }
+
+    @Test
+    void analyticRunsSampleTheSameTimesAsSteppedRuns() {
+        SolarSystem stepped = TestSystems.randomSystem(50, 83);
+        SolarSystem analytic = TestSystems.randomSystem(50, 83);
+        analytic.setPropagationMode(PropagationMode.ANALYTIC);
+        Recorder steppedRecorder = new Recorder();
+        Recorder analyticRecorder = new Recorder();
+        stepped.subscribe(new int[] {7}, 4 * STEP, steppedRecorder);
+        analytic.subscribe(new int[] {7}, 4 * STEP, analyticRecorder);
+
+        stepped.runSimulation(16 * STEP, STEP);
+        analytic.runSimulation(16 * STEP, STEP);
+
+        assertArrayEquals(steppedRecorder.sampleTimes(), analyticRecorder.sampleTimes());
+        for (int k = 0; k < steppedRecorder.calls.size(); k++) {
+            assertEquals(steppedRecorder.calls.get(k)[2], analyticRecorder.calls.get(k)[2], 1e-6 * Main.AU_TO_METERS);
+        }
+    }
+
+    @Test
+    void cancellingFromTheObserverStopsDelivery() {
+        SolarSystem system = TestSystems.randomSystem(20, 84);
+        List<Double> times = new ArrayList<>();
+        PositionSubscription[] subscription = new PositionSubscription[1];
+        subscription[0] = system.subscribe(new int[] {1, 2}, 0, new PositionObserver() {
+            @Override
+            public void onPosition(int id, double time, double x, double y) {
+                times.add(time);
+                if (time >= 3 * STEP) {
+                    subscription[0].cancel();
+                }
+            }
+        });
+
+        system.runSimulation(8 * STEP, STEP);
+
+        assertEquals(List.of(STEP, STEP, 2 * STEP, 2 * STEP, 3 * STEP), times);
+    }
+
+    @Test
+    void removedBodiesLeaveTheFeedAndMovedBodiesStayInIt() {
+        SolarSystem system = TestSystems.randomSystem(30, 85);
+        CelestialBody last = system.getBody(29);
+        Recorder recorder = new Recorder();
+        PositionSubscription subscription = system.subscribe(new int[] {5, 29}, 0, recorder);
+
+        system.removeBody(system.getBody(5));
+
+        // The last row took id 5, so the subscription follows it there.
+        assertEquals(5, last.getId());
+        assertArrayEquals(new int[] {5}, subscription.getIds());
+        system.runSimulation(STEP, STEP);
+        assertEquals(5, (int) recorder.calls.get(0)[0]);
+        assertEquals(2, recorder.calls.size());
+    }
+
+    @Test
+    void publisherDeliversEveryFrameToASlowSubscriber() throws Exception {
+        SolarSystem system = TestSystems.randomSystem(100, 86);
+        int[] ids = {1, 2, 3};
+        Recorder recorder = new Recorder();
+        system.subscribe(ids, 0, recorder);
+        List<PositionFrame> frames = new ArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        PositionPublisher publisher = system.publish(ids, 0, 1);
+        publisher.subscribe(new Flow.Subscriber<PositionFrame>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(PositionFrame frame) {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                frames.add(frame);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+
+        system.runSimulation(40 * STEP, STEP);
+        publisher.close();
+        done.get(10, TimeUnit.SECONDS);
+
+        assertEquals(40, frames.size());
+        for (int f = 0; f < frames.size(); f++) {
+            PositionFrame frame = frames.get(f);
+            assertEquals((f + 1) * STEP, frame.getTime());
+            for (int k = 0; k < ids.length; k++) {
+                double[] c = recorder.calls.get(f * (ids.length + 1) + k);
+                assertEquals(ids[k], frame.getId(k));
+                assertEquals(c[2], frame.getX(k));
+                assertEquals(c[3], frame.getY(k));
+            }
+        }
+    }
+}
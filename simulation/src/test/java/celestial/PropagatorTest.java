@@ -0,0 +1,146 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PropagatorTest {
+    private static final double DAY = Main.SECONDS_PER_DAY;
+
+    // Records which rows it is asked to move, then moves them like the by-period propagator.
+    private static final class RecordingPropagator extends CircularPeriodPropagator {
+        final Set<Integer> registered = new HashSet<>();
+        final Set<Integer> advanced = new HashSet<>();
+
+        @Override
+        public void register(BodyStore store, int id) {
+            registered.add(id);
+        }
+
+        @Override
+        public void advance(BodyStore store, int[] ids, int from, int to, double deltaTime) {
+            for (int k = from; k < to; k++) {
+                advanced.add(ids[k]);
+            }
+            super.advance(store, ids, from, to, deltaTime);
+        }
+    }
+
+    @Test
+    void circularByMassUsesOmegaFromTheCentralMass() {
+        double earthMass = 5.972e24;
+        double earthRadius = 1.496e11;
+        double moonRadius = 3.844e8;
+        SolarSystem system = TestSystems.newSystem();
+        Planet earth = new Planet("Earth", earthMass, 6.371e6, earthRadius, 0.0, 1, false, true);
+        earth.setOrbitCenterMass(TestSystems.SUN_MASS);
+        Moon moon = new Moon("Moon", 7.342e22, 1.7374e6, moonRadius, 0.0, "Earth", true);
+        moon.setOrbitCenterMass(earthMass);
+        system.addBody(earth);
+        system.addBody(moon);
+
+        system.runSimulation(10 * DAY, DAY);
+
+        double earthOmega = Math.sqrt(Main.G * TestSystems.SUN_MASS / earthRadius) / earthRadius;
+        double moonOmega = Math.sqrt(Main.G * earthMass / moonRadius) / moonRadius;
+        assertEquals(10 * DAY * earthOmega, earth.getCurrentTheta(), 1e-12);
+        assertEquals((10 * DAY * moonOmega) % (2 * Math.PI), moon.getCurrentTheta(), 1e-12);
+        assertEquals(2 * Math.PI / moonOmega, moon.getOrbitalPeriod(), 1e-6);
+        assertSame(Propagator.CIRCULAR_BY_MASS, SolarSystem.defaultPropagator(system.getStore(), moon.getId()));
+    }
+
+    @Test
+    void defaultsFollowTheOrbitKind() {
+        SolarSystem system = TestSystems.randomSystem(20, 121);
+        BodyStore store = system.getStore();
+        assertSame(null, SolarSystem.defaultPropagator(store, 0));
+        assertSame(Propagator.CIRCULAR_BY_PERIOD, SolarSystem.defaultPropagator(store, 1));
+        assertSame(Propagator.KEPLER, SolarSystem.defaultPropagator(store, 5));
+    }
+
+    @Test
+    void overridesOnlyReceiveTheirOwnBodies() {
+        SolarSystem system = TestSystems.randomSystem(50, 122);
+        SolarSystem reference = TestSystems.randomSystem(50, 122);
+        RecordingPropagator recording = new RecordingPropagator();
+        system.setPropagator(system.getBody(3), recording);
+        system.setPropagator(system.getBody(4), recording);
+
+        system.runSimulation(5 * DAY, DAY);
+        reference.runSimulation(5 * DAY, DAY);
+
+        assertEquals(Set.of(3, 4), recording.registered);
+        assertEquals(Set.of(3, 4), recording.advanced);
+        for (int id = 1; id < 50; id++) {
+            assertEquals(reference.getStore().getCurrentTheta(id), system.getStore().getCurrentTheta(id), 0.0, "body " + id);
+        }
+
+        system.setPropagator(system.getBody(3), null);
+        recording.advanced.clear();
+        system.runSimulation(DAY, DAY);
+        assertEquals(Set.of(4), recording.advanced);
+    }
+
+    @Test
+    void blockSteppingMovesOverriddenRowsThroughTheirPropagator() {
+        SolarSystem system = TestSystems.randomSystem(50, 124);
+        SolarSystem reference = TestSystems.randomSystem(50, 124);
+        for (SolarSystem each : new SolarSystem[] {system, reference}) {
+            BlockTimestepScheduler scheduler = new BlockTimestepScheduler();
+            scheduler.setStepsPerOrbit(2048);
+            each.setBlockTimestepScheduler(scheduler);
+        }
+        RecordingPropagator recording = new RecordingPropagator();
+        system.setPropagator(system.getBody(4), recording);
+        // Body 5 is a comet; this override leaves it where it is.
+        Propagator still = new Propagator() {
+            @Override
+            public void advance(BodyStore store, int[] ids, int from, int to, double deltaTime) {
+            }
+
+            @Override
+            public void advanceTo(BodyStore store, int[] ids, int from, int to, double targetTime) {
+            }
+        };
+        system.setPropagator(system.getBody(5), still);
+        double theta = system.getStore().getCurrentTheta(5);
+
+        system.runSimulation(60 * DAY, 30 * DAY);
+        reference.runSimulation(60 * DAY, 30 * DAY);
+
+        assertEquals(Set.of(4), recording.advanced);
+        assertEquals(theta, system.getStore().getCurrentTheta(5), 0.0);
+        for (int id = 1; id < 50; id++) {
+            if (id != 5) {
+                assertEquals(reference.getStore().getCurrentTheta(id), system.getStore().getCurrentTheta(id), 0.0, "body " + id);
+            }
+        }
+        assertTrue(system.getBlockTimestepScheduler().getFinestLevel() > 0);
+    }
+
+    @Test
+    void everyPropagatorAgreesWithItsClosedForm() {
+        SolarSystem stepped = TestSystems.randomSystem(300, 123);
+        SolarSystem analytic = TestSystems.randomSystem(300, 123);
+        for (SolarSystem system : new SolarSystem[] {stepped, analytic}) {
+            Planet byMass = new Planet("By mass", 1e20, 1e5, 2 * Main.AU_TO_METERS, 0.0, 0, false, false);
+            byMass.setOrbitCenterMass(TestSystems.SUN_MASS);
+            system.addBody(byMass);
+        }
+        analytic.setPropagationMode(PropagationMode.ANALYTIC);
+
+        stepped.runSimulation(64 * DAY, DAY);
+        analytic.runSimulation(64 * DAY, DAY);
+
+        for (int id = 1; id < 301; id++) {
+            double steppedTheta = stepped.getStore().getCurrentTheta(id);
+            double analyticTheta = analytic.getStore().getCurrentTheta(id);
+            assertTrue(TestSystems.angleBetween(steppedTheta, analyticTheta) < 1e-9,
+                       "body " + id + ": " + steppedTheta + " vs " + analyticTheta);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ScenarioRunnerTest {
+    private static final double DAY = Main.SECONDS_PER_DAY;
+
+    private static double[] thetas(SolarSystem system) {
+        BodyStore store = system.getStore();
+        double[] theta = new double[store.size()];
+        for (int i = 0; i < theta.length; i++) {
+            theta[i] = store.getCurrentTheta(i);
+        }
+        return theta;
+    }
+
+    @Test
+    void forksAndTheBaseDoNotSeeEachOthersChanges() {
+        SolarSystem base = TestSystems.randomSystem(500, 131);
+        double[] before = thetas(base);
+        double mass = base.getBody(7).getMass();
+        double eccentricity = base.getStore().getEccentricity(10);
+
+        SolarSystem fork = base.fork();
+        fork.getBody(7).setMass(mass * 3);
+        fork.getStore().setOrbitShape(10, 0.5, 1e10);
+        fork.runSimulation(30 * DAY, DAY);
+
+        assertArrayEquals(before, thetas(base));
+        assertEquals(mass, base.getBody(7).getMass());
+        assertEquals(eccentricity, base.getStore().getEccentricity(10));
+
+        double[] forked = thetas(fork);
+        base.runSimulation(10 * DAY, DAY);
+        assertArrayEquals(forked, thetas(fork));
+        assertEquals(mass * 3, fork.getBody(7).getMass());
+    }
+
+    @Test
+    void aForkRunsExactlyLikeItsBase() {
+        SolarSystem base = TestSystems.randomSystem(500, 132);
+        SolarSystem fork = base.fork();
+
+        base.runSimulation(40 * DAY, DAY);
+        fork.runSimulation(40 * DAY, DAY);
+
+        assertArrayEquals(thetas(base), thetas(fork));
+        assertEquals(base.getBody(42).getName(), fork.getBody(42).getName());
+        assertEquals(base.findBodyId("Body 42"), fork.findBodyId("Body 42"));
+    }
+
+    @Test
+    void scenariosMatchSerialRunsAndStayInOrder() throws InterruptedException {
+        SolarSystem base = TestSystems.randomSystem(300, 133);
+        double[] before = thetas(base);
+        List<ScenarioRunner.Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new ScenarioRunner.Scenario("baseline", system -> { }));
+        scenarios.add(ScenarioRunner.Scenario.startAt("later", 100 * DAY));
+        scenarios.addAll(ScenarioRunner.Scenario.cometVariants("Comet 10", 20, 133, 0.05, 1e9));
+        ScenarioRunner runner = new ScenarioRunner(base, 4).addDistanceColumn("Comet 10").addDistanceColumn("Body 3");
+
+        List<ScenarioRunner.ScenarioResult> results = runner.run(scenarios, 30 * DAY, DAY);
+
+        assertEquals(scenarios.size(), results.size());
+        for (int i = 0; i < scenarios.size(); i++) {
+            ScenarioRunner.ScenarioResult result = results.get(i);
+            assertEquals(scenarios.get(i).getName(), result.getName());
+            assertFalse(result.isFailed(), String.valueOf(result.getFailure()));
+
+            SolarSystem serial = base.fork();
+            scenarios.get(i).apply(serial);
+            serial.runSimulation(30 * DAY, DAY);
+            serial.updatePositions();
+            CelestialBody comet = serial.findBody("Comet 10");
+            assertEquals(Math.hypot(comet.getX(), comet.getY()), result.getValue(0), 0.0, result.getName());
+        }
+        assertArrayEquals(before, thetas(base));
+    }
+
+    @Test
+    void failuresAreReportedWithoutStoppingTheOthers() throws InterruptedException {
+        SolarSystem base = TestSystems.randomSystem(50, 134);
+        List<ScenarioRunner.Scenario> scenarios = List.of(
+                ScenarioRunner.Scenario.scaleMass("heavy", "Body 1", 10),
+                ScenarioRunner.Scenario.scaleMass("missing", "Nobody", 10),
+                ScenarioRunner.Scenario.scaleMass("light", "Body 1", 0.1));
+        ScenarioRunner runner = new ScenarioRunner(base, 2).addColumn("mass", system -> system.findBody("Body 1").getMass());
+
+        List<ScenarioRunner.ScenarioResult> results = runner.run(scenarios, 2 * DAY, DAY);
+
+        assertEquals(1e19, results.get(0).getValue(0), 1e4);
+        assertTrue(results.get(1).isFailed());
+        assertTrue(results.get(1).getFailure() instanceof IllegalArgumentException);
+        assertEquals(1e17, results.get(2).getValue(0), 1e2);
+        String table = runner.formatTable(results);
+        assertTrue(table.contains("FAILED"), table);
+        assertTrue(table.contains("mean"), table);
+        assertEquals(1e18, base.findBody("Body 1").getMass());
+    }
+
+    @Test
+    void concurrencyStaysWithinTheCap() throws InterruptedException {
+        SolarSystem base = TestSystems.randomSystem(100, 135);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<ScenarioRunner.Scenario> scenarios = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            scenarios.add(new ScenarioRunner.Scenario("s" + i, system -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }));
+        }
+
+        new ScenarioRunner(base, 3).run(scenarios, DAY, DAY);
+
+        assertTrue(peak.get() <= 3, "peak " + peak.get());
+        assertTrue(peak.get() > 1, "scenarios never overlapped");
+    }
+}
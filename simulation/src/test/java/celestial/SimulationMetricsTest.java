@@ -0,0 +1,129 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+class SimulationMetricsTest {
+    private static final double STEP = Main.SECONDS_PER_DAY;
+
+    @Test
+    void histogramPercentilesAreWithinOneSubBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(111);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 30);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[] {1, 10, 50, 90, 99, 99.9, 100}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = histogram.getValueAtPercentile(percentile);
+            assertTrue(reported >= exact && reported <= exact + exact / 32 + 1,
+                       "p" + percentile + ": exact " + exact + ", reported " + reported);
+        }
+        assertEquals(values[values.length - 1], histogram.getMaxValue());
+        assertEquals(values.length, histogram.getTotalCount());
+    }
+
+    @Test
+    void histogramHandlesTheExtremes() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+    }
+
+    @Test
+    void steppedRunsCountStepsAndBodyUpdates() {
+        SolarSystem system = TestSystems.randomSystem(1_000, 112);
+        SimulationMetrics metrics = new SimulationMetrics();
+        system.setMetrics(metrics);
+
+        system.runSimulation(16 * STEP, STEP);
+
+        assertEquals(16, metrics.getSteps());
+        assertEquals(16L * 999, metrics.getBodyUpdates());
+        assertEquals(16, metrics.getStepLatency().getTotalCount());
+        assertTrue(metrics.getPropagateMillis() > 0);
+        assertEquals(0.0, metrics.getForceMillis());
+        assertTrue(metrics.getStepLatencyP50Micros() <= metrics.getStepLatencyMaxMicros());
+    }
+
+    @Test
+    void steppedRunsDoNotAllocatePerBody() {
+        SolarSystem system = TestSystems.randomSystem(20_000, 113);
+        SimulationMetrics metrics = new SimulationMetrics();
+        system.runSimulation(64 * STEP, STEP);
+        system.setMetrics(metrics);
+
+        system.runSimulation(64 * STEP, STEP);
+
+        // A single object per body would be hundreds of kilobytes per step.
+        assertTrue(metrics.getAllocatedBytesPerStep() < 16 * 1024, metrics.getSummary());
+    }
+
+    @Test
+    void nBodyRunsRecordForceTimeAndAnalyticJumpsCountOnce() {
+        SolarSystem nBody = TestSystems.keplerianSystem(200, 1e22, 0.5, 5.0, 114);
+        nBody.setPropagationMode(PropagationMode.NBODY);
+        SimulationMetrics metrics = new SimulationMetrics();
+        nBody.setMetrics(metrics);
+        nBody.runSimulation(8 * STEP, STEP);
+        assertEquals(8, metrics.getSteps());
+        assertTrue(metrics.getForceMillis() > 0, metrics.getSummary());
+
+        SolarSystem analytic = TestSystems.randomSystem(200, 114);
+        analytic.setPropagationMode(PropagationMode.ANALYTIC);
+        SimulationMetrics jumps = new SimulationMetrics();
+        analytic.setMetrics(jumps);
+        analytic.runSimulation(1000 * STEP, STEP);
+        assertEquals(1, jumps.getSteps());
+        assertEquals(200, jumps.getBodyUpdates());
+
+        StringBuilder out = new StringBuilder();
+        analytic.writeState(out);
+        assertTrue(jumps.getOutputMillis() > 0);
+        jumps.reset();
+        assertEquals(0, jumps.getSteps());
+        assertEquals(0.0, jumps.getOutputMillis());
+    }
+
+    @Test
+    void mbeanAndReporterExposeTheCounters() throws Exception {
+        SolarSystem system = TestSystems.randomSystem(100, 115);
+        SimulationMetrics metrics = new SimulationMetrics();
+        system.setMetrics(metrics);
+        system.runSimulation(4 * STEP, STEP);
+
+        ObjectName name = metrics.registerMBean("metrics-test");
+        try {
+            assertEquals(4L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Steps"));
+        } finally {
+            metrics.unregisterMBean(name);
+        }
+
+        BlockingQueue<String> reports = new ArrayBlockingQueue<>(16);
+        metrics.startReporting(10, reports::offer);
+        try {
+            String report = reports.poll(5, TimeUnit.SECONDS);
+            assertTrue(report != null && report.startsWith("steps=4 "), report);
+        } finally {
+            metrics.stopReporting();
+        }
+    }
+}
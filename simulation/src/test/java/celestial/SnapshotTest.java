@@ -0,0 +1,188 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotTest {
+    private static final double STEP = Main.SECONDS_PER_DAY;
+
+    @TempDir
+    Path dir;
+
+    private static double[] thetas(SolarSystem system) {
+        BodyStore store = system.getStore();
+        double[] theta = new double[store.size()];
+        for (int i = 0; i < theta.length; i++) {
+            theta[i] = store.getCurrentTheta(i);
+        }
+        return theta;
+    }
+
+    @Test
+    void framesReadBackBitForBitInAnyOrder() throws IOException {
+        SolarSystem system = TestSystems.randomSystem(400, 51);
+        Path file = dir.resolve("run.snap");
+        double[][] expected = new double[20][];
+        try (SnapshotWriter writer = new SnapshotWriter(file, system)) {
+            for (int frame = 0; frame < expected.length; frame++) {
+                system.runSimulation(STEP, STEP);
+                system.updatePositions();
+                expected[frame] = thetas(system);
+                writer.appendFrame(system);
+            }
+        }
+
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            assertEquals(400, reader.getBodyCount());
+            assertEquals(expected.length, reader.getFrameCount());
+            for (int frame : new int[] {17, 0, 19, 3, 3, 11}) {
+                assertEquals((frame + 1) * STEP, reader.getTime(frame));
+                for (int id = 0; id < 400; id++) {
+                    assertEquals(expected[frame][id], reader.getTheta(frame, id), 0.0);
+                }
+            }
+            BodyStore store = system.getStore();
+            for (int id = 0; id < 400; id++) {
+                assertEquals(system.getBody(id).getName(), reader.getName(id));
+                assertEquals(system.getBody(id).getCategory(), reader.getCategory(id));
+                assertEquals(store.getMass(id), reader.getMass(id));
+                assertEquals(store.getParent(id), reader.getParent(id));
+                assertEquals(store.getEccentricity(id), reader.getEccentricity(id));
+            }
+            assertEquals(store.getX(5), reader.getX(19, 5));
+            assertEquals(store.getY(5), reader.getY(19, 5));
+            assertEquals(store.getOrbitalRadius(5), reader.getOrbitalRadius(19, 5));
+        }
+    }
+
+    @Test
+    void restoredRunContinuesIdentically() throws IOException {
+        SolarSystem original = TestSystems.randomSystem(300, 52);
+        Path file = dir.resolve("resume.snap");
+        try (SnapshotWriter writer = new SnapshotWriter(file, original)) {
+            original.runSimulation(10 * STEP, STEP);
+            writer.appendFrame(original);
+        }
+        original.runSimulation(10 * STEP, STEP);
+
+        SolarSystem resumed = TestSystems.randomSystem(300, 52);
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            reader.restore(0, resumed);
+        }
+        assertEquals(10 * STEP, resumed.getElapsedTime());
+        resumed.runSimulation(10 * STEP, STEP);
+
+        assertArrayEquals(thetas(original), thetas(resumed));
+    }
+
+    @Test
+    void restoreRejectsADifferentSystem() throws IOException {
+        Path file = dir.resolve("other.snap");
+        SolarSystem system = TestSystems.randomSystem(50, 53);
+        try (SnapshotWriter writer = new SnapshotWriter(file, system)) {
+            writer.appendFrame(system);
+        }
+
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            assertThrows(IllegalArgumentException.class, () -> reader.restore(0, TestSystems.randomSystem(49, 53)));
+            SolarSystem heavier = TestSystems.randomSystem(50, 53);
+            heavier.getBody(7).setMass(heavier.getBody(7).getMass() * 2);
+            assertThrows(IllegalArgumentException.class, () -> reader.restore(0, heavier));
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.getTheta(1, 0));
+        }
+    }
+
+    @Test
+    void overlongNamesAreRejectedBeforeTheFileIsTouched() throws IOException {
+        Path file = dir.resolve("keep.snap");
+        Files.write(file, new byte[] {1, 2, 3});
+        SolarSystem system = TestSystems.newSystem();
+        system.addBody(new Planet("x".repeat(SnapshotFormat.MAX_STRING_BYTES + 1), 1e20, 1e5,
+                                  Main.AU_TO_METERS, TestSystems.YEAR, 0, false, false));
+
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotWriter(file, system).close());
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(file));
+    }
+
+    @Test
+    void namesAtTheLimitRoundTrip() throws IOException {
+        Path file = dir.resolve("long.snap");
+        SolarSystem system = TestSystems.newSystem();
+        String name = "é".repeat(SnapshotFormat.MAX_STRING_BYTES / 2) + "x";
+        system.addBody(new Planet(name, 1e20, 1e5, Main.AU_TO_METERS, TestSystems.YEAR, 0, false, false));
+        try (SnapshotWriter writer = new SnapshotWriter(file, system)) {
+            writer.appendFrame(system);
+        }
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            assertEquals(name, reader.getName(1));
+        }
+    }
+
+    private static long openFiles() throws IOException {
+        Path fds = Path.of("/proc/self/fd");
+        if (!Files.isDirectory(fds)) {
+            return 0;
+        }
+        try (Stream<Path> open = Files.list(fds)) {
+            return open.count();
+        }
+    }
+
+    private void assertRejected(String name, byte[] bytes) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, bytes);
+        long openBefore = openFiles();
+        assertThrows(IOException.class, () -> new SnapshotReader(file).close(), name);
+        assertEquals(openBefore, openFiles(), name + " left its channel open");
+    }
+
+    @Test
+    void corruptFilesAreRejectedAndClosed() throws IOException {
+        Path file = dir.resolve("good.snap");
+        SolarSystem system = TestSystems.randomSystem(30, 54);
+        try (SnapshotWriter writer = new SnapshotWriter(file, system)) {
+            writer.appendFrame(system);
+        }
+        byte[] good = Files.readAllBytes(file);
+
+        assertRejected("empty.snap", new byte[0]);
+        assertRejected("short.snap", Arrays.copyOf(good, SnapshotFormat.HEADER_BYTES - 1));
+
+        byte[] zeroFrames = good.clone();
+        ByteBuffer.wrap(zeroFrames).order(ByteOrder.LITTLE_ENDIAN).putLong(32, 0L);
+        assertRejected("zero-frames.snap", zeroFrames);
+
+        byte[] pastTheEnd = good.clone();
+        ByteBuffer.wrap(pastTheEnd).order(ByteOrder.LITTLE_ENDIAN).putLong(24, good.length + 1L);
+        assertRejected("past-the-end.snap", pastTheEnd);
+
+        byte[] tooManyBodies = good.clone();
+        ByteBuffer.wrap(tooManyBodies).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(8, 1_000_000).putLong(32, SnapshotFormat.frameBytes(1_000_000));
+        assertRejected("too-many-bodies.snap", tooManyBodies);
+
+        // The first name claims more bytes than the table holds.
+        byte[] truncated = good.clone();
+        int firstName = SnapshotFormat.HEADER_BYTES + SnapshotFormat.MIN_BODY_BYTES - 2 * Short.BYTES;
+        ByteBuffer.wrap(truncated).order(ByteOrder.LITTLE_ENDIAN).putShort(firstName, (short) 0xFFFF);
+        assertRejected("truncated.snap", truncated);
+    }
+
+    @Test
+    void framesAreLimitedToWhatOneBufferCanIndex() {
+        assertTrue(SnapshotFormat.frameBytes(SnapshotFormat.MAX_BODIES) <= Integer.MAX_VALUE);
+        assertTrue(SnapshotFormat.frameBytes(SnapshotFormat.MAX_BODIES + 1) > Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,137 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpatialGridTest {
+    private static final double AU = Main.AU_TO_METERS;
+
+    // A grid over a random system, with a tight cluster and a few far outliers moved in to exercise every path.
+    private static SpatialGrid grid(long seed) {
+        SolarSystem system = TestSystems.randomSystem(3_000, seed);
+        SpatialGrid grid = new SpatialGrid(0.5 * AU);
+        grid.update(system.getStore());
+        Random random = new Random(seed);
+        for (int id = 1; id < 300; id++) {
+            grid.move(id, 2 * AU + random.nextGaussian() * 1e-3 * AU, -AU + random.nextGaussian() * 1e-3 * AU);
+        }
+        for (int id = 300; id < 310; id++) {
+            grid.move(id, random.nextGaussian() * 1e4 * AU, random.nextGaussian() * 1e4 * AU);
+        }
+        return grid;
+    }
+
+    private static double distance(SpatialGrid grid, int id, double qx, double qy) {
+        return Math.hypot(grid.getX(id) - qx, grid.getY(id) - qy);
+    }
+
+    private static int[] bruteRange(SpatialGrid grid, double qx, double qy, double radius) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < grid.size(); id++) {
+            if (distance(grid, id, qx, qy) <= radius) {
+                ids.add(id);
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void assertRangeQueriesMatch(SpatialGrid grid, long seed) {
+        Random random = new Random(seed);
+        for (int q = 0; q < 200; q++) {
+            double qx = random.nextGaussian() * 10 * AU;
+            double qy = random.nextGaussian() * 10 * AU;
+            double radius = Math.pow(10, random.nextInt(4) - 2) * AU;
+            List<Integer> found = new ArrayList<>();
+            grid.rangeQuery(qx, qy, radius, (id, d) -> {
+                assertEquals(distance(grid, id, qx, qy), d, 1e-6 * AU);
+                found.add(id);
+            });
+            int[] ids = found.stream().mapToInt(Integer::intValue).sorted().toArray();
+            assertArrayEquals(bruteRange(grid, qx, qy, radius), ids, "query " + q);
+        }
+    }
+
+    @Test
+    void rangeQueriesMatchBruteForce() {
+        assertRangeQueriesMatch(grid(91), 91);
+    }
+
+    @Test
+    void nearestMatchesBruteForce() {
+        SpatialGrid grid = grid(92);
+        Random random = new Random(92);
+        int k = 12;
+        int[] ids = new int[k];
+        double[] distances = new double[k];
+        for (int q = 0; q < 200; q++) {
+            double qx = q % 2 == 0 ? 2 * AU : random.nextGaussian() * 30 * AU;
+            double qy = q % 2 == 0 ? -AU : random.nextGaussian() * 30 * AU;
+            assertEquals(k, grid.nearest(qx, qy, k, ids, distances));
+            double[] all = new double[grid.size()];
+            for (int id = 0; id < all.length; id++) {
+                all[id] = distance(grid, id, qx, qy);
+            }
+            Arrays.sort(all);
+            for (int r = 0; r < k; r++) {
+                assertEquals(all[r], distances[r], 1e-12 * all[r], "rank " + r + " of query " + q);
+                assertEquals(distances[r], distance(grid, ids[r], qx, qy), 1e-12 * distances[r]);
+            }
+        }
+    }
+
+    @Test
+    void allPairsMatchBruteForce() {
+        SpatialGrid grid = grid(93);
+        double threshold = 2e-3 * AU;
+        List<long[]> pairs = new ArrayList<>();
+        long count = grid.allPairsWithin(threshold, (i, j, d) -> pairs.add(new long[] {i, j}));
+
+        long expected = 0;
+        for (int i = 0; i < grid.size(); i++) {
+            for (int j = i + 1; j < grid.size(); j++) {
+                if (distance(grid, i, grid.getX(j), grid.getY(j)) < threshold) {
+                    expected++;
+                }
+            }
+        }
+        assertEquals(expected, count);
+        assertEquals(expected, pairs.size());
+        assertEquals(expected, pairs.stream().filter(p -> p[0] < p[1]).map(p -> p[0] * grid.size() + p[1]).distinct().count());
+    }
+
+    @Test
+    void queriesStayCorrectAfterMovesAndRemovals() {
+        SpatialGrid grid = grid(94);
+        Random random = new Random(94);
+        for (int k = 0; k < 500; k++) {
+            grid.swapRemove(random.nextInt(grid.size()));
+            int id = random.nextInt(grid.size());
+            grid.move(id, random.nextGaussian() * 5 * AU, random.nextGaussian() * 5 * AU);
+        }
+        assertEquals(2_500, grid.size());
+        assertRangeQueriesMatch(grid, 95);
+    }
+
+    @Test
+    void systemKeepsItsIndexInStepWithTheStore() {
+        SolarSystem system = TestSystems.randomSystem(500, 96);
+        system.setSpatialIndex(new SpatialGrid(AU));
+        system.runSimulation(10 * Main.SECONDS_PER_DAY, Main.SECONDS_PER_DAY);
+        system.removeBody(system.getBody(17));
+
+        SpatialGrid grid = system.getSpatialIndex();
+        BodyStore store = system.getStore();
+        store.updatePositions();
+        assertEquals(store.size(), grid.size());
+        for (int id = 0; id < store.size(); id++) {
+            assertEquals(store.getX(id), grid.getX(id), "x " + id);
+            assertEquals(store.getY(id), grid.getY(id), "y " + id);
+        }
+    }
+}
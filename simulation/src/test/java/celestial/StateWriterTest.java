@@ -0,0 +1,118 @@
+package celestial;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class StateWriterTest {
+
+    @Test
+    void fixedMatchesStringFormatToTheLastDigit() {
+        StateWriter writer = new StateWriter();
+        Random random = new Random(41);
+        StringBuilder out = new StringBuilder();
+        for (int k = 0; k < 10_000; k++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+            out.setLength(0);
+            writer.appendFixed(out, value, 6);
+            String expected = String.format(Locale.ROOT, "%.6f", value);
+            // Both round the same double; only an exact tie may differ, and then by one unit in the last place.
+            assertEquals(Double.parseDouble(expected), Double.parseDouble(out.toString()), 1.000001e-6 + Math.ulp(value),
+                         expected + " vs " + out);
+            assertEquals(expected.indexOf('.'), out.indexOf("."), expected + " vs " + out);
+        }
+    }
+
+    @Test
+    void scientificMatchesStringFormatToTheLastDigit() {
+        StateWriter writer = new StateWriter();
+        Random random = new Random(42);
+        StringBuilder out = new StringBuilder();
+        for (int k = 0; k < 10_000; k++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(600) - 300);
+            out.setLength(0);
+            writer.appendScientific(out, value, 6);
+            String expected = String.format(Locale.ROOT, "%.6E", value);
+            String mantissa = expected.substring(0, expected.indexOf('E'));
+            int exponent = Integer.parseInt(expected.substring(expected.indexOf('E') + 1));
+            String actual = out.toString();
+            double actualMantissa = Double.parseDouble(actual.substring(0, actual.indexOf('E')));
+            int actualExponent = Integer.parseInt(actual.substring(actual.indexOf('E') + 1));
+            if (actualExponent == exponent) {
+                assertEquals(Double.parseDouble(mantissa), actualMantissa, 1.000001e-6, expected + " vs " + actual);
+            } else {
+                // A tie rounded across a power of ten: 9.999999E4 against 1.000000E5.
+                assertEquals(Math.abs(Double.parseDouble(expected)), Math.abs(Double.parseDouble(actual)),
+                             1.000001e-6 * Math.pow(10, Math.max(exponent, actualExponent)), expected + " vs " + actual);
+            }
+        }
+    }
+
+    @Test
+    void specialValuesAndZero() {
+        StateWriter writer = new StateWriter();
+        StringBuilder out = new StringBuilder();
+        writer.appendFixed(out, Double.NaN, 3);
+        out.append(' ');
+        writer.appendFixed(out, Double.NEGATIVE_INFINITY, 3);
+        out.append(' ');
+        writer.appendScientific(out, 0.0, 2);
+        out.append(' ');
+        writer.appendFixed(out, -0.0000001, 3);
+        out.append(' ');
+        writer.appendScientific(out, Double.MIN_VALUE, 2);
+        assertEquals("NaN -Infinity 0.00E0 0.000 4.94E-324", out.toString());
+    }
+
+    @Test
+    void putTextEncodesUtf8() {
+        StateWriter writer = new StateWriter();
+        String text = "Comet C/2023 – Tsuchinshan 🌠 é";
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        writer.putText(buffer, text);
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), bytes);
+    }
+
+    @Test
+    void builderAndChannelPathsWriteTheSameBytes() throws IOException {
+        SolarSystem system = TestSystems.randomSystem(2_000, 43);
+        system.runSimulation(8 * Main.SECONDS_PER_DAY, Main.SECONDS_PER_DAY);
+
+        StringBuilder text = new StringBuilder();
+        system.writeState(text);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // A small buffer forces many drains mid-state.
+        system.writeState(Channels.newChannel(bytes), ByteBuffer.allocate(512));
+
+        assertEquals(text.toString(), bytes.toString(StandardCharsets.UTF_8));
+        assertEquals(2_000, text.chars().filter(c -> c == '\n').count());
+    }
+
+    @Test
+    void rowsStayWithinTheAdvertisedBound() {
+        SolarSystem system = TestSystems.randomSystem(50, 44);
+        StateWriter writer = new StateWriter();
+        writer.setDistanceDigits(StateWriter.MAX_DIGITS);
+        writer.setThetaDecimals(StateWriter.MAX_DIGITS);
+        BodyStore store = system.getStore();
+        store.updatePositions();
+        for (int i = 0; i < store.size(); i++) {
+            String name = system.getBody(i).getName();
+            ByteBuffer buffer = ByteBuffer.allocate(writer.maxRowBytes(name.length()));
+            writer.putRow(buffer, name, store, i);
+            assertTrue(buffer.position() <= buffer.capacity());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package celestial;
+
+import java.util.Random;
+
+// Systems shared by the tests.
+final class TestSystems {
+    static final double SUN_MASS = 1.989e30;
+    static final double YEAR = 365.25 * Main.SECONDS_PER_DAY;
+
+    private TestSystems() {
+    }
+
+    static Star sun() {
+        return new Star("Sun", SUN_MASS, 6.96340e8, 5778.0, "G2V");
+    }
+
+    // An empty quiet system around a Sun-like star.
+    static SolarSystem newSystem() {
+        SolarSystem system = new SolarSystem(sun());
+        system.setQuiet(true);
+        return system;
+    }
+
+    // A quiet system of `count` bodies: the star, circular planets at random phases and every fifth body a comet.
+    static SolarSystem randomSystem(int count, long seed) {
+        Random random = new Random(seed);
+        SolarSystem system = newSystem();
+        for (int i = 1; i < count; i++) {
+            double period = (0.1 + random.nextDouble() * 100.0) * YEAR;
+            if (i % 5 == 0) {
+                system.addBody(new Comet("Comet " + i, 1e12, 2e3, 0.1 + 0.85 * random.nextDouble(),
+                                         period, (0.3 + random.nextDouble()) * Main.AU_TO_METERS));
+            } else {
+                Planet planet = new Planet("Body " + i, 1e18, 1e5, (0.3 + random.nextDouble() * 40.0) * Main.AU_TO_METERS,
+                                           period, 0, false, false);
+                planet.setCurrentTheta(2 * Math.PI * random.nextDouble());
+                system.addBody(planet);
+            }
+        }
+        return system;
+    }
+
+    // Period of a circular orbit of radius a around mass m.
+    static double keplerPeriod(double a, double m) {
+        return 2 * Math.PI * Math.sqrt(a * a * a / (Main.G * m));
+    }
+
+    // A quiet system of planets on Keplerian circular orbits around the star, each of the given mass, at radii
+    // spread over [innerAu, outerAu) AU and random phases.
+    static SolarSystem keplerianSystem(int count, double planetMass, double innerAu, double outerAu, long seed) {
+        Random random = new Random(seed);
+        SolarSystem system = newSystem();
+        for (int i = 1; i < count; i++) {
+            double a = (innerAu + (outerAu - innerAu) * random.nextDouble()) * Main.AU_TO_METERS;
+            Planet planet = new Planet("Body " + i, planetMass, 1e5, a, keplerPeriod(a, SUN_MASS), 0, false, false);
+            planet.setCurrentTheta(2 * Math.PI * random.nextDouble());
+            system.addBody(planet);
+        }
+        return system;
+    }
+
+    // Difference between two angles, folded into [0, PI].
+    static double angleBetween(double a, double b) {
+        double d = Math.abs(a - b) % (2 * Math.PI);
+        return Math.min(d, 2 * Math.PI - d);
+    }
+}